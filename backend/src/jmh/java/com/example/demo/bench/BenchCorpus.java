@@ -0,0 +1,78 @@
+package com.example.demo.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import com.example.demo.service.importer.ImportRecord;
+import com.example.demo.service.importer.RecordReader;
+
+/**
+ * ベンチマーク用の合成コーパス。seed が同じなら毎回同じ論文列になる。
+ * タイトルは語彙からの組み合わせ、タグは上位ほど付きやすい偏った分布（実データのタグに近づける）。
+ */
+public final class BenchCorpus {
+
+	static final String[] WORDS = {
+		"quic", "transport", "survey", "learning", "deep", "graph", "neural", "network", "attention",
+		"transformer", "retrieval", "index", "compression", "latency", "cache", "query", "stream",
+		"distributed", "consensus", "storage", "vector", "search", "ranking", "language", "model",
+		"benchmark", "scalable", "efficient", "robust", "federated", "privacy", "secure", "protocol",
+		"深層学習", "自然言語処理", "推薦", "検索", "分散", "圧縮", "評価",
+	};
+	static final String[] STATUSES = {"UNREAD", "UNREAD", "UNREAD", "READING", "DONE"};
+
+	private final int papers;
+	private final int tagVocabulary;
+	private final int tagsPerPaper;
+	private final long seed;
+
+	public BenchCorpus(int papers, int tagVocabulary, int tagsPerPaper, long seed) {
+		this.papers = papers;
+		this.tagVocabulary = tagVocabulary;
+		this.tagsPerPaper = tagsPerPaper;
+		this.seed = seed;
+	}
+
+	public int papers() { return papers; }
+
+	/** タグ名（rank が小さいほど多くの論文に付く） */
+	public static String tag(int rank) {
+		return "tag" + rank;
+	}
+
+	/** 取り込みと同じ経路で流し込むための RecordReader */
+	public RecordReader reader() {
+		var rnd = new SplittableRandom(seed);
+		return new RecordReader() {
+			private long seq;
+
+			@Override
+			public ImportRecord next() {
+				if (seq >= papers) return null;
+				seq++;
+				return record(rnd, seq);
+			}
+		};
+	}
+
+	private ImportRecord record(SplittableRandom rnd, long seq) {
+		int words = 3 + rnd.nextInt(6);
+		var title = new StringBuilder();
+		for (int i = 0; i < words; i++) {
+			if (i > 0) title.append(' ');
+			title.append(WORDS[rnd.nextInt(WORDS.length)]);
+		}
+		var authors = "Author" + rnd.nextInt(papers / 4 + 1) + " and Author" + rnd.nextInt(papers / 4 + 1);
+		Integer year = rnd.nextInt(20) == 0 ? null : 1990 + rnd.nextInt(36);
+		var tags = new ArrayList<String>(tagsPerPaper);
+		for (int i = 0; i < tagsPerPaper && tagVocabulary > 0; i++) {
+			// 0 に寄った分布（u^3）で、先頭のタグほど多く付く
+			double u = rnd.nextDouble();
+			String t = tag((int) (u * u * u * tagVocabulary));
+			if (!tags.contains(t)) tags.add(t);
+		}
+		return new ImportRecord(seq, null, title + " " + seq, authors, year,
+				"https://example.com/papers/" + seq, STATUSES[rnd.nextInt(STATUSES.length)], List.copyOf(tags));
+	}
+}
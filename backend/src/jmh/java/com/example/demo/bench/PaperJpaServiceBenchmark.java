@@ -0,0 +1,114 @@
+package com.example.demo.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.demo.BibmanagerApplication;
+import com.example.demo.service.PaperService;
+import com.example.demo.service.PaperService.PaperRow;
+import com.example.demo.service.importer.PaperImportService;
+
+/**
+ * PaperJpaService の一覧・件数。組み込み H2（メモリ）に papers 件を取り込んでから測る。
+ * 件数キャッシュは切ってある（毎回 SQL / 索引で数えた値を測るため）。
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PaperJpaServiceBenchmark {
+
+	@Param({"10000", "100000"})
+	public int papers;
+
+	@Param({"200"})
+	public int tagVocabulary;
+
+	@Param({"3"})
+	public int tagsPerPaper;
+
+	private ConfigurableApplicationContext ctx;
+	private PaperService svc;
+	private int deepPage;
+	private long midId;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		ctx = new SpringApplicationBuilder(BibmanagerApplication.class)
+				.web(WebApplicationType.NONE)
+				.properties(
+						"spring.datasource.url=jdbc:h2:mem:bench" + papers + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+						"spring.jpa.show-sql=false",
+						"spring.jpa.properties.hibernate.format_sql=false",
+						"spring.h2.console.enabled=false",
+						"bibmanager.count-cache.ttl-ms=0",
+						"logging.level.root=WARN")
+				.run();
+		var report = ctx.getBean(PaperImportService.class)
+				.importAll(new BenchCorpus(papers, tagVocabulary, tagsPerPaper, 42).reader());
+		if (report.imported() != papers) throw new IllegalStateException("seed failed: " + report);
+		svc = ctx.getBean(PaperService.class);
+		deepPage = papers / 20 / 2;
+		midId = svc.findAll(deepPage, 1).get(0).id();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		ctx.close();
+	}
+
+	@Benchmark
+	public List<PaperRow> findAllFirstPage() {
+		return svc.findAll(0, 20, null, null, null);
+	}
+
+	@Benchmark
+	public List<PaperRow> findAllDeepPage() {
+		return svc.findAll(deepPage, 20, null, null, null);
+	}
+
+	@Benchmark
+	public List<PaperRow> findAllByQuery() {
+		return svc.findAll(0, 20, "survey", null, null);
+	}
+
+	@Benchmark
+	public List<PaperRow> findAllByQueryAndStatus() {
+		return svc.findAll(0, 20, "transformer", "READING", null);
+	}
+
+	@Benchmark
+	public List<PaperRow> findAllByTag() {
+		return svc.findAll(0, 20, null, null, List.of(BenchCorpus.tag(0)));
+	}
+
+	@Benchmark
+	public List<PaperRow> findAfterDeepCursor() {
+		return svc.findAfter(midId, 20, null, null, null);
+	}
+
+	@Benchmark
+	public long countAll() {
+		return svc.countFiltered(null, null, null);
+	}
+
+	@Benchmark
+	public long countByQuery() {
+		return svc.countFiltered("survey", null, null);
+	}
+
+	@Benchmark
+	public long countByTag() {
+		return svc.countFiltered(null, null, List.of(BenchCorpus.tag(0)));
+	}
+}
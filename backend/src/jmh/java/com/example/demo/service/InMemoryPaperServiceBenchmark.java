@@ -0,0 +1,104 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.demo.bench.BenchCorpus;
+import com.example.demo.service.PaperService.PaperRow;
+import com.example.demo.service.index.FacetIndex;
+import com.example.demo.service.index.NearDuplicateIndex;
+import com.example.demo.service.index.PaperIndexes;
+import com.example.demo.service.index.PaperSearchIndex;
+
+/**
+ * InMemoryPaperService の一覧・件数。PaperJpaServiceBenchmark と同じコーパス・同じ問い合わせで比べる。
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InMemoryPaperServiceBenchmark {
+
+	@Param({"10000", "100000"})
+	public int papers;
+
+	@Param({"200"})
+	public int tagVocabulary;
+
+	@Param({"3"})
+	public int tagsPerPaper;
+
+	private InMemoryPaperService svc;
+	private int deepPage;
+	private long midId;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		var search = new PaperSearchIndex(2.0, 1.0);
+		var facets = new FacetIndex();
+		// 重複検出の署名計算は一覧・検索の計測に関係ないので切っておく
+		var duplicates = new NearDuplicateIndex(0.7, false);
+		svc = new InMemoryPaperService(search, facets, duplicates, new PaperIndexes(List.of(search, facets)));
+		svc.init();
+		var reader = new BenchCorpus(papers, tagVocabulary, tagsPerPaper, 42).reader();
+		for (var r = reader.next(); r != null; r = reader.next()) {
+			long id = svc.create(r.title(), r.authors(), r.year(), r.url()).id();
+			if (!"UNREAD".equals(r.status())) svc.setStatus(id, r.status());
+			if (!r.tags().isEmpty()) svc.bulkTags(List.of(id), r.tags(), null);
+		}
+		deepPage = papers / 20 / 2;
+		midId = svc.findAll(deepPage, 1).get(0).id();
+	}
+
+	@Benchmark
+	public List<PaperRow> findAllFirstPage() {
+		return svc.findAll(0, 20, null, null, null);
+	}
+
+	@Benchmark
+	public List<PaperRow> findAllDeepPage() {
+		return svc.findAll(deepPage, 20, null, null, null);
+	}
+
+	@Benchmark
+	public List<PaperRow> findAllByQuery() {
+		return svc.findAll(0, 20, "survey", null, null);
+	}
+
+	@Benchmark
+	public List<PaperRow> findAllByQueryAndStatus() {
+		return svc.findAll(0, 20, "transformer", "READING", null);
+	}
+
+	@Benchmark
+	public List<PaperRow> findAllByTag() {
+		return svc.findAll(0, 20, null, null, List.of(BenchCorpus.tag(0)));
+	}
+
+	@Benchmark
+	public List<PaperRow> findAfterDeepCursor() {
+		return svc.findAfter(midId, 20, null, null, null);
+	}
+
+	@Benchmark
+	public long countAll() {
+		return svc.countFiltered(null, null, null);
+	}
+
+	@Benchmark
+	public long countByQuery() {
+		return svc.countFiltered("survey", null, null);
+	}
+
+	@Benchmark
+	public long countByTag() {
+		return svc.countFiltered(null, null, List.of(BenchCorpus.tag(0)));
+	}
+}
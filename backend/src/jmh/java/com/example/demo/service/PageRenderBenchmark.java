@@ -0,0 +1,127 @@
+package com.example.demo.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.demo.domain.Paper;
+import com.example.demo.service.PaperService.PaperRow;
+import com.example.demo.web.PageColumnsConverter;
+import com.example.demo.web.PaperController.PageRes;
+import com.example.demo.web.PaperController.PaperRes;
+import com.example.demo.web.PaperController.PaperResList;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * 1 ページ分のエンティティ → PaperRow（row()）→ PageRes<PaperRes> の JSON までの変換コスト。
+ * DB やインデックスを含まないので、ここでの割り当て量は 1 リクエストの応答組み立ての下限になる。
+ * *Gzip は server.compression と同じ gzip 込みのコスト（応答バイト数は戻り値の長さ）。
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PageRenderBenchmark {
+
+	@Param({"20", "200"})
+	public int size;
+
+	@Param({"3"})
+	public int tagsPerPaper;
+
+	private List<Paper> papers;
+	private List<List<String>> tagNames;
+	private List<PaperRow> rows;
+	private ObjectMapper mapper;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		papers = new ArrayList<>(size);
+		tagNames = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			papers.add(Paper.builder().id((long) (100_000 - i)).title("Deep learning survey of transformers " + i)
+					.authors("Author" + i + " and Author" + (i + 1)).pubYear(2000 + i % 25)
+					.url("https://example.com/papers/" + i).createdAt(LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(i))
+					.status(Paper.Status.values()[i % 3]).build());
+			var tags = new ArrayList<String>(tagsPerPaper);
+			for (int t = 0; t < tagsPerPaper; t++) tags.add("tag" + ((i + t * 7) % 50));
+			tagNames.add(tags);
+		}
+		rows = mapRows();
+		// Spring Boot の既定に合わせて JavaTimeModule を載せる
+		mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+	}
+
+	@Benchmark
+	public List<PaperRow> mapRows() {
+		var out = new ArrayList<PaperRow>(papers.size());
+		for (int i = 0; i < papers.size(); i++) out.add(PaperJpaService.row(papers.get(i), tagNames.get(i)));
+		return out;
+	}
+
+	@Benchmark
+	public byte[] serializePage() throws JsonProcessingException {
+		return mapper.writeValueAsBytes(page(rows));
+	}
+
+	@Benchmark
+	public byte[] mapAndSerializePage() throws JsonProcessingException {
+		return mapper.writeValueAsBytes(page(mapRows()));
+	}
+
+	// 一覧が今返している形（PaperResList でシリアライズ中に 1 件ずつ詰め替える）
+	@Benchmark
+	public byte[] serializeLazyPage() throws JsonProcessingException {
+		return mapper.writeValueAsBytes(lazyPage());
+	}
+
+	// Accept: application/vnd.bibmanager.columns+json
+	@Benchmark
+	public byte[] serializeColumns() throws IOException {
+		var out = new ByteArrayOutputStream();
+		try (var gen = mapper.getFactory().createGenerator(out)) {
+			PageColumnsConverter.write(lazyPage(), gen);
+		}
+		return out.toByteArray();
+	}
+
+	@Benchmark
+	public byte[] serializeLazyPageGzip() throws IOException {
+		return gzip(serializeLazyPage());
+	}
+
+	@Benchmark
+	public byte[] serializeColumnsGzip() throws IOException {
+		return gzip(serializeColumns());
+	}
+
+	private PageRes<PaperRes> lazyPage() {
+		return new PageRes<>(new PaperResList(rows), 12345, 0, size, true, null);
+	}
+
+	private static byte[] gzip(byte[] body) throws IOException {
+		var out = new ByteArrayOutputStream(body.length / 4);
+		try (var gz = new GZIPOutputStream(out)) {
+			gz.write(body);
+		}
+		return out.toByteArray();
+	}
+
+	private PageRes<PaperRes> page(List<PaperRow> rows) {
+		var content = rows.stream().map(e -> new PaperRes(e.id(), e.title(), e.authors(), e.year(), e.url(),
+				e.createdAt(), e.status(), e.tags())).toList();
+		return new PageRes<>(content, 12345, 0, size, true, null);
+	}
+}
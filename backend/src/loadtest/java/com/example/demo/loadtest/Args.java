@@ -0,0 +1,42 @@
+package com.example.demo.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** {@code --key value} 形式の引数。件数は 10k / 100k / 1m の省略表記も受け付ける */
+final class Args {
+
+	private final Map<String, String> values = new HashMap<>();
+
+	Args(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			if (!args[i].startsWith("--")) throw new IllegalArgumentException("unexpected argument: " + args[i]);
+			String key = args[i].substring(2);
+			String value = i + 1 < args.length && !args[i + 1].startsWith("--") ? args[++i] : "true";
+			values.put(key, value);
+		}
+	}
+
+	String str(String key, String def) {
+		return values.getOrDefault(key, def);
+	}
+
+	long count(String key, long def) {
+		var v = values.get(key);
+		if (v == null) return def;
+		v = v.trim().toLowerCase();
+		long mul = 1;
+		if (v.endsWith("k")) { mul = 1_000; v = v.substring(0, v.length() - 1); }
+		else if (v.endsWith("m")) { mul = 1_000_000; v = v.substring(0, v.length() - 1); }
+		return Long.parseLong(v) * mul;
+	}
+
+	int integer(String key, int def) {
+		return Math.toIntExact(count(key, def));
+	}
+
+	double decimal(String key, double def) {
+		var v = values.get(key);
+		return v == null ? def : Double.parseDouble(v);
+	}
+}
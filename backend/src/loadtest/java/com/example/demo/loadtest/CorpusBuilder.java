@@ -0,0 +1,101 @@
+package com.example.demo.loadtest;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 合成コーパスを作る。
+ * <pre>
+ * --papers 10k|100k|1m   件数（既定 10k）
+ * --tags 2000            タグの種類数 / --tag-skew 1.0  Zipf の指数
+ * --seed 42
+ * --out corpus.ndjson    ファイルに書く（.gz なら gzip）
+ * --target http://localhost:8080
+ *                        起動中のアプリの POST /api/papers/import に流し込む（H2 ファイル DB に入る）
+ * --chunk 100k           取り込み 1 リクエストあたりの件数
+ * </pre>
+ */
+public final class CorpusBuilder {
+
+	public static void main(String[] argv) throws Exception {
+		var args = new Args(argv);
+		long papers = args.count("papers", 10_000);
+		var corpus = new SyntheticCorpus(args.integer("tags", 2000), args.decimal("tag-skew", 1.0));
+		var rnd = new SplittableRandom(args.count("seed", 42));
+		var out = args.str("out", null);
+		var target = args.str("target", null);
+		if (out == null && target == null) {
+			System.err.println("usage: CorpusBuilder --papers 100k (--out corpus.ndjson | --target http://localhost:8080)");
+			System.exit(2);
+		}
+		var mapper = new ObjectMapper();
+		long started = System.nanoTime();
+
+		if (out != null) {
+			var path = Path.of(out);
+			OutputStream os = Files.newOutputStream(path);
+			if (out.endsWith(".gz")) os = new GZIPOutputStream(os, 1 << 16);
+			try (var w = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), 1 << 16)) {
+				write(w, corpus, rnd, mapper, 1, papers);
+			}
+			System.out.printf("wrote %,d papers to %s (%,d bytes)%n", papers, path, Files.size(path));
+		} else {
+			long chunk = Math.max(1, args.count("chunk", 100_000));
+			var client = HttpClient.newHttpClient();
+			var uri = URI.create(target.replaceAll("/+$", "") + "/api/papers/import?format=ndjson");
+			for (long from = 1; from <= papers; from += chunk) {
+				long to = Math.min(papers, from + chunk - 1);
+				var report = mapper.readTree(post(client, uri, corpus, rnd.split(), mapper, from, to));
+				System.out.printf("%,d-%,d: imported %,d, failed %,d, %.0f records/s%n", from, to,
+						report.path("imported").asLong(), report.path("failed").asLong(), report.path("recordsPerSec").asDouble());
+			}
+		}
+		System.out.printf("done in %.1f s%n", (System.nanoTime() - started) / 1e9);
+	}
+
+	private static void write(BufferedWriter w, SyntheticCorpus corpus, SplittableRandom rnd, ObjectMapper mapper,
+			long from, long to) throws IOException {
+		for (long seq = from; seq <= to; seq++) {
+			w.write(mapper.writeValueAsString(corpus.next(rnd, seq)));
+			w.write('\n');
+		}
+	}
+
+	// 本文は別スレッドで生成しながらパイプで送る（チャンク全体をメモリに載せない）
+	private static String post(HttpClient client, URI uri, SyntheticCorpus corpus, SplittableRandom rnd,
+			ObjectMapper mapper, long from, long to) throws IOException, InterruptedException {
+		var in = new PipedInputStream(1 << 20);
+		var pipe = new PipedOutputStream(in);
+		var producer = Thread.ofVirtual().start(() -> {
+			try (var w = new BufferedWriter(new OutputStreamWriter(pipe, StandardCharsets.UTF_8), 1 << 16)) {
+				write(w, corpus, rnd, mapper, from, to);
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		});
+		var req = HttpRequest.newBuilder(uri)
+				.header("Content-Type", "application/x-ndjson")
+				.POST(HttpRequest.BodyPublishers.ofInputStream(() -> in))
+				.build();
+		var res = client.send(req, HttpResponse.BodyHandlers.ofString());
+		producer.join();
+		if (res.statusCode() != 200) throw new IOException("import failed: HTTP " + res.statusCode() + " " + res.body());
+		return res.body();
+	}
+}
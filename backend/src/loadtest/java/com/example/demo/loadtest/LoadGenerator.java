@@ -0,0 +1,320 @@
+package com.example.demo.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * PaperController に本番に近い操作ミックスを流す負荷生成器。
+ * <pre>
+ * --target http://localhost:8080
+ * --rate 100           到着率（req/s）。応答を待たずに一定間隔で発行する（open loop）
+ * --duration 60        計測秒数 / --warmup 10  計測前に流す秒数
+ * --concurrency 64     同時に飛ばすリクエストの上限（超えた分は待たされ、その待ちも遅延に入る）
+ * --mix list=55,get=20,create=6,status=8,tag=5,untag=3,delete=3
+ * --tags 2000          コーパスと同じタグ種類数（検索するタグの分布を揃える）
+ * --out build/loadtest エンドポイント別の .hgrm を書く
+ * </pre>
+ * 遅延は「発行する予定だった時刻」から測るので、サーバが詰まったときに計測側も止まって
+ * 遅延を過小評価する（coordinated omission）ことがない。
+ */
+public final class LoadGenerator {
+
+	enum Op { LIST, GET, CREATE, STATUS, TAG, UNTAG, DELETE }
+
+	private static final String DEFAULT_MIX = "list=55,get=20,create=6,status=8,tag=5,untag=3,delete=3";
+
+	private final HttpClient client;
+	private final String base;
+	private final SyntheticCorpus corpus;
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final Semaphore inFlight;
+	private final Map<Op, Histogram> latency = new EnumMap<>(Op.class);
+	private final Map<Op, LongAdder> failures = new EnumMap<>(Op.class);
+	// 計測期間中の 503（DB バルクヘッドが断った）の件数。errors にも含まれる
+	private final LongAdder shed = new LongAdder();
+	private final IdPool ids = new IdPool();
+	private final IdPool created = new IdPool();
+	private final ConcurrentLinkedQueue<Object[]> tagged = new ConcurrentLinkedQueue<>();
+	private final AtomicLong seq = new AtomicLong();
+	private volatile long measureFrom;
+
+	private LoadGenerator(String base, int concurrency, SyntheticCorpus corpus) {
+		this.base = base.replaceAll("/+$", "");
+		this.corpus = corpus;
+		this.inFlight = new Semaphore(concurrency);
+		this.client = HttpClient.newBuilder()
+				.executor(Executors.newVirtualThreadPerTaskExecutor())
+				.connectTimeout(Duration.ofSeconds(5))
+				.build();
+		for (var op : Op.values()) {
+			// 1µs〜60s を有効数字 3 桁で
+			latency.put(op, new ConcurrentHistogram(TimeUnit.SECONDS.toMicros(60), 3));
+			failures.put(op, new LongAdder());
+		}
+	}
+
+	public static void main(String[] argv) throws Exception {
+		var args = new Args(argv);
+		double rate = args.decimal("rate", 100);
+		long durationSec = args.count("duration", 60);
+		long warmupSec = args.count("warmup", 10);
+		var mix = parseMix(args.str("mix", DEFAULT_MIX));
+		var gen = new LoadGenerator(args.str("target", "http://localhost:8080"), args.integer("concurrency", 64),
+				new SyntheticCorpus(args.integer("tags", 2000), args.decimal("tag-skew", 1.0)));
+
+		int sampled = gen.sampleIds(args.integer("id-sample", 20_000));
+		if (sampled == 0) throw new IllegalStateException("no papers found; run buildCorpus first");
+		System.out.printf("sampled %,d ids; %.0f req/s for %ds (+%ds warmup)%n", sampled, rate, durationSec, warmupSec);
+
+		gen.run(mix, rate, warmupSec, durationSec);
+		gen.report(System.out, durationSec);
+		gen.writeHistograms(Path.of(args.str("out", "build/loadtest")));
+	}
+
+	private void run(Op[] mix, double rate, long warmupSec, long durationSec) throws InterruptedException {
+		long interval = (long) (1e9 / rate);
+		long start = System.nanoTime();
+		measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSec);
+		long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSec);
+		var rnd = ThreadLocalRandom.current();
+		try (var workers = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (long i = 0; ; i++) {
+				long intended = start + i * interval;
+				if (intended >= end) break;
+				long wait = intended - System.nanoTime();
+				if (wait > 0) LockSupport.parkNanos(wait);
+				var op = mix[rnd.nextInt(mix.length)];
+				workers.submit(() -> execute(op, intended));
+			}
+		} // close() で発行済みの全リクエストの完了を待つ
+	}
+
+	private void execute(Op op, long intended) {
+		boolean ok;
+		try {
+			inFlight.acquire();
+			try {
+				ok = call(op);
+			} finally {
+				inFlight.release();
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return;
+		} catch (IOException | RuntimeException ex) {
+			ok = false;
+		}
+		if (intended < measureFrom) return;
+		latency.get(op).recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended)));
+		if (!ok) failures.get(op).increment();
+	}
+
+	private boolean call(Op op) throws IOException, InterruptedException {
+		var rnd = ThreadLocalRandom.current();
+		switch (op) {
+			case LIST -> { return send(get("/api/papers?" + listQuery(rnd))) < 300; }
+			case GET -> {
+				Long id = ids.pick(rnd);
+				return id == null || send(get("/api/papers/" + id)) < 300;
+			}
+			case CREATE -> { return create(rnd); }
+			case STATUS -> {
+				Long id = ids.pick(rnd);
+				return id == null || send(json("PATCH", "/api/papers/" + id + "/status",
+						Map.of("status", corpus.sampleStatus(rnd)))) < 300;
+			}
+			case TAG -> {
+				Long id = ids.pick(rnd);
+				if (id == null) return true;
+				var tag = corpus.sampleTag(rnd);
+				boolean ok = send(json("POST", "/api/papers/" + id + "/tags", Map.of("tag", tag))) < 300;
+				if (ok && tagged.size() < 10_000) tagged.add(new Object[] {id, tag});
+				return ok;
+			}
+			case UNTAG -> {
+				var t = tagged.poll();
+				if (t == null) return true;
+				var path = "/api/papers/" + t[0] + "/tags/" + URLEncoder.encode((String) t[1], StandardCharsets.UTF_8);
+				return send(HttpRequest.newBuilder(uri(path)).DELETE()) < 300;
+			}
+			case DELETE -> {
+				// 取り込んだコーパスは減らさず、この負荷試験で作った論文だけを消す
+				Long id = created.take(rnd);
+				if (id == null) return create(rnd);
+				ids.remove(id);
+				return send(HttpRequest.newBuilder(uri("/api/papers/" + id)).DELETE()) < 300;
+			}
+		}
+		throw new IllegalStateException(op.name());
+	}
+
+	private boolean create(ThreadLocalRandom rnd) throws IOException, InterruptedException {
+		var p = corpus.next(rnd, seq.incrementAndGet());
+		var body = new java.util.HashMap<String, Object>();
+		body.put("title", p.title());
+		body.put("authors", p.authors());
+		body.put("year", p.year());
+		body.put("url", p.url());
+		var res = client.send(json("POST", "/api/papers", body).build(), HttpResponse.BodyHandlers.ofString());
+		if (res.statusCode() >= 300) return false;
+		long id = mapper.readTree(res.body()).path("id").asLong();
+		ids.add(id);
+		created.add(id);
+		return true;
+	}
+
+	// 一覧の条件は、q・status・tags・深いページ・cursor・withTotal=false をそれぞれの頻度で混ぜる
+	private String listQuery(ThreadLocalRandom rnd) {
+		var q = new StringBuilder("size=20");
+		if (rnd.nextInt(100) < 40) param(q, "q", corpus.sampleQuery(rnd));
+		if (rnd.nextInt(100) < 20) param(q, "status", corpus.sampleStatus(rnd));
+		if (rnd.nextInt(100) < 25) param(q, "tags", corpus.sampleTag(rnd));
+		int mode = rnd.nextInt(100);
+		if (mode < 20) param(q, "cursor", "");
+		else if (mode < 35) param(q, "page", String.valueOf(1 + rnd.nextInt(50)));
+		if (rnd.nextInt(100) < 20) param(q, "withTotal", "false");
+		return q.toString();
+	}
+
+	private static void param(StringBuilder q, String name, String value) {
+		q.append('&').append(name).append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+	}
+
+	// 既存の論文 id を cursor で辿って集める（GET / PATCH / タグ操作の対象）
+	private int sampleIds(int limit) throws IOException, InterruptedException {
+		String cursor = "";
+		while (ids.size() < limit && cursor != null) {
+			var res = client.send(get("/api/papers?size=200&withTotal=false&cursor="
+					+ URLEncoder.encode(cursor, StandardCharsets.UTF_8)).build(), HttpResponse.BodyHandlers.ofString());
+			if (res.statusCode() != 200) throw new IOException("list failed: HTTP " + res.statusCode());
+			var page = mapper.readTree(res.body());
+			page.path("content").forEach(n -> ids.add(n.path("id").asLong()));
+			cursor = page.path("nextCursor").isTextual() ? page.path("nextCursor").asText() : null;
+		}
+		return ids.size();
+	}
+
+	private int send(HttpRequest.Builder req) throws IOException, InterruptedException {
+		int status = client.send(req.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+		if (status == 503 && System.nanoTime() >= measureFrom) shed.increment();
+		return status;
+	}
+
+	private HttpRequest.Builder get(String path) {
+		return HttpRequest.newBuilder(uri(path)).GET();
+	}
+
+	private HttpRequest.Builder json(String method, String path, Object body) throws IOException {
+		return HttpRequest.newBuilder(uri(path))
+				.header("Content-Type", "application/json")
+				.method(method, HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)));
+	}
+
+	private URI uri(String path) {
+		return URI.create(base + path);
+	}
+
+	private void report(PrintStream out, long durationSec) {
+		out.printf("%n%-7s %9s %8s %9s %9s %9s %9s %9s %9s%n",
+				"op", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+		for (var op : Op.values()) {
+			var h = latency.get(op);
+			if (h.getTotalCount() == 0) continue;
+			out.printf("%-7s %,9d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", op.name().toLowerCase(),
+					h.getTotalCount(), failures.get(op).sum(), h.getTotalCount() / (double) durationSec,
+					ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(90)), ms(h.getValueAtPercentile(99)),
+					ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()));
+		}
+		if (shed.sum() > 0) out.printf("shed (503): %,d%n", shed.sum());
+	}
+
+	// HdrHistogram の percentile 分布形式（ms 単位）。https://hdrhistogram.github.io/HdrHistogram/plotFiles.html で重ねて描ける
+	private void writeHistograms(Path dir) throws IOException {
+		Files.createDirectories(dir);
+		for (var op : Op.values()) {
+			var h = latency.get(op);
+			if (h.getTotalCount() == 0) continue;
+			try (var ps = new PrintStream(Files.newOutputStream(dir.resolve(op.name().toLowerCase() + ".hgrm")), false, StandardCharsets.UTF_8)) {
+				h.outputPercentileDistribution(ps, 1000.0);
+			}
+		}
+		System.out.println("histograms written to " + dir.toAbsolutePath());
+	}
+
+	private static double ms(long micros) {
+		return micros / 1000.0;
+	}
+
+	// "list=55,get=20,..." を重みどおりの個数だけ並べた表に（発行時に一様に 1 つ選ぶ）
+	private static Op[] parseMix(String spec) {
+		var table = new ArrayList<Op>();
+		for (var part : spec.split(",")) {
+			var kv = part.trim().split("=");
+			if (kv.length != 2) throw new IllegalArgumentException("bad mix entry: " + part);
+			var op = Op.valueOf(kv[0].trim().toUpperCase());
+			for (int i = Integer.parseInt(kv[1].trim()); i > 0; i--) table.add(op);
+		}
+		if (table.isEmpty()) throw new IllegalArgumentException("empty mix");
+		return table.toArray(Op[]::new);
+	}
+
+	/** ランダムに 1 件選べる id の集合（削除は末尾と入れ替えて O(1)） */
+	static final class IdPool {
+		private final List<Long> ids = new ArrayList<>();
+		private final Map<Long, Integer> pos = new java.util.HashMap<>();
+
+		synchronized void add(long id) {
+			if (pos.putIfAbsent(id, ids.size()) == null) ids.add(id);
+		}
+
+		synchronized Long pick(ThreadLocalRandom rnd) {
+			return ids.isEmpty() ? null : ids.get(rnd.nextInt(ids.size()));
+		}
+
+		synchronized Long take(ThreadLocalRandom rnd) {
+			Long id = pick(rnd);
+			if (id != null) remove(id);
+			return id;
+		}
+
+		synchronized void remove(long id) {
+			Integer i = pos.remove(id);
+			if (i == null) return;
+			Long last = ids.remove(ids.size() - 1);
+			if (i < ids.size()) {
+				ids.set(i, last);
+				pos.put(last, i);
+			}
+		}
+
+		synchronized int size() {
+			return ids.size();
+		}
+	}
+}
@@ -0,0 +1,164 @@
+package com.example.demo.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * 本番に近い形の合成論文データ。
+ * タイトルは英語と日本語（約 3 割）を混ぜ、語の選び方もタグも Zipf 分布（上位ほど頻出）にする。
+ * 著者は 1〜8 人をカンマ区切り、年は最近ほど多い。乱数は呼び出し側から渡す（スレッドごとに持てるように）。
+ */
+public final class SyntheticCorpus {
+
+	/** NDJSON 取り込み（POST /api/papers/import）と同じフィールド名 */
+	public record Paper(String title, String authors, Integer year, String url, String status, List<String> tags) {}
+
+	private static final String[] EN_ADJ = {
+		"Efficient", "Scalable", "Robust", "Adaptive", "Distributed", "Neural", "Federated", "Incremental",
+		"Lightweight", "Secure", "Approximate", "Self-Supervised", "Probabilistic", "Low-Latency", "Hierarchical",
+	};
+	private static final String[] EN_TOPIC = {
+		"Transformer", "Graph Neural Network", "Retrieval", "Index", "Cache", "Query Optimization", "Consensus",
+		"Storage Engine", "Vector Search", "Language Model", "Recommendation", "Compression", "Congestion Control",
+		"QUIC", "Stream Processing", "Knowledge Graph", "Code Generation", "Speech Recognition", "Object Detection",
+		"Reinforcement Learning", "Contrastive Learning", "Diffusion Model", "Time Series", "Anomaly Detection",
+	};
+	private static final String[] EN_TASK = {
+		"Edge Devices", "Large-Scale Systems", "Scientific Literature", "Mobile Networks", "Data Centers",
+		"Low-Resource Languages", "Medical Imaging", "Autonomous Driving", "Web Search", "E-Commerce",
+	};
+	private static final String[] JA_TOPIC = {
+		"深層学習", "自然言語処理", "推薦システム", "情報検索", "分散システム", "グラフニューラルネットワーク",
+		"強化学習", "音声認識", "画像認識", "知識グラフ", "異常検知", "時系列予測", "大規模言語モデル", "圧縮",
+	};
+	private static final String[] JA_TASK = {
+		"論文推薦", "質問応答", "文書分類", "要約生成", "機械翻訳", "検索ランキング", "負荷分散", "障害検知",
+	};
+	private static final String[] JA_SUFFIX = {"手法の提案", "に関する研究", "の評価", "の高速化", "の一検討"};
+	private static final String[] EN_GIVEN = {
+		"James", "Mary", "Wei", "Li", "Anna", "David", "Maria", "Chen", "Sofia", "Ahmed", "Elena", "Raj", "Yuki", "Hiro",
+	};
+	private static final String[] EN_FAMILY = {
+		"Smith", "Wang", "Zhang", "Garcia", "Kim", "Müller", "Rossi", "Patel", "Nguyen", "Ivanov", "Yan", "Lin",
+		"Johnson", "Brown", "Lee", "Martin", "Chen", "Singh", "Kowalski", "Silva",
+	};
+	private static final String[] JA_FAMILY = {"山田", "佐藤", "鈴木", "高橋", "田中", "伊藤", "渡辺", "中村", "小林", "加藤"};
+	private static final String[] JA_GIVEN = {"太郎", "花子", "健", "美咲", "翔", "陽菜", "大輔", "彩", "拓也", "葵"};
+	private static final String[] STATUSES = {"UNREAD", "READING", "DONE"};
+	private static final int[] STATUS_WEIGHTS = {60, 25, 15};
+
+	private final int tagVocabulary;
+	private final Zipf tags;
+	private final Zipf enTopic = new Zipf(EN_TOPIC.length, 1.0);
+	private final Zipf jaTopic = new Zipf(JA_TOPIC.length, 1.0);
+
+	/** tagVocabulary 種類のタグを、指数 tagSkew の Zipf で付ける（1.0 前後が実データに近い） */
+	public SyntheticCorpus(int tagVocabulary, double tagSkew) {
+		this.tagVocabulary = tagVocabulary;
+		this.tags = new Zipf(tagVocabulary, tagSkew);
+	}
+
+	/** タグ名。rank 0 が最頻 */
+	public static String tag(int rank) {
+		return "t" + rank;
+	}
+
+	public Paper next(RandomGenerator rnd, long seq) {
+		boolean ja = rnd.nextInt(10) < 3;
+		String title = ja ? jaTitle(rnd) : enTitle(rnd);
+		Integer year = rnd.nextInt(20) == 0 ? null : 2025 - (int) Math.min(35, -Math.log(1 - rnd.nextDouble()) * 6);
+		String url = rnd.nextInt(5) == 0 ? null : "https://doi.org/10.5555/bench." + seq;
+		int tagCount = (int) Math.min(6, -Math.log(1 - rnd.nextDouble()) * 1.5);
+		var ts = new ArrayList<String>(tagCount);
+		for (int i = 0; i < tagCount; i++) {
+			var t = sampleTag(rnd);
+			if (!ts.contains(t)) ts.add(t);
+		}
+		return new Paper(title, authors(rnd, ja), year, url, sampleStatus(rnd), ts);
+	}
+
+	/** 一覧の tags 条件に使う。付与と同じ分布なので、人気タグほど多く検索される */
+	public String sampleTag(RandomGenerator rnd) {
+		return tag(tags.sample(rnd));
+	}
+
+	/** 一覧の q に使う語（タイトルに出てくる語から） */
+	public String sampleQuery(RandomGenerator rnd) {
+		return switch (rnd.nextInt(10)) {
+			case 0, 1 -> JA_TOPIC[jaTopic.sample(rnd)];
+			case 2 -> EN_ADJ[rnd.nextInt(EN_ADJ.length)].toLowerCase();
+			default -> {
+				var words = EN_TOPIC[enTopic.sample(rnd)].split(" ");
+				yield words[rnd.nextInt(words.length)].toLowerCase();
+			}
+		};
+	}
+
+	public String sampleStatus(RandomGenerator rnd) {
+		int r = rnd.nextInt(100);
+		for (int i = 0; i < STATUSES.length; i++) {
+			if ((r -= STATUS_WEIGHTS[i]) < 0) return STATUSES[i];
+		}
+		return STATUSES[0];
+	}
+
+	public int tagVocabulary() { return tagVocabulary; }
+
+	private String enTitle(RandomGenerator rnd) {
+		String adj = EN_ADJ[rnd.nextInt(EN_ADJ.length)];
+		String topic = EN_TOPIC[enTopic.sample(rnd)];
+		String other = EN_TOPIC[enTopic.sample(rnd)];
+		String task = EN_TASK[rnd.nextInt(EN_TASK.length)];
+		return switch (rnd.nextInt(5)) {
+			case 0 -> "A Survey of " + adj + " " + topic;
+			case 1 -> "Towards " + adj + " " + topic + " for " + task;
+			case 2 -> topic + ": " + adj + " " + other + " at Scale";
+			case 3 -> "Rethinking " + topic + " with " + other;
+			default -> adj + " " + topic + " for " + task;
+		};
+	}
+
+	private String jaTitle(RandomGenerator rnd) {
+		String topic = JA_TOPIC[jaTopic.sample(rnd)];
+		String task = JA_TASK[rnd.nextInt(JA_TASK.length)];
+		String suffix = JA_SUFFIX[rnd.nextInt(JA_SUFFIX.length)];
+		return switch (rnd.nextInt(3)) {
+			case 0 -> topic + "を用いた" + task + suffix;
+			case 1 -> task + "における" + topic + suffix;
+			default -> topic + "による" + task + suffix;
+		};
+	}
+
+	private static String authors(RandomGenerator rnd, boolean ja) {
+		// 1 人が最多で、多人数ほど少ない（最大 8 人）
+		int n = 1 + (int) Math.min(7, -Math.log(1 - rnd.nextDouble()) * 1.8);
+		var names = new ArrayList<String>(n);
+		for (int i = 0; i < n; i++) {
+			boolean jaName = ja ? rnd.nextInt(10) < 8 : rnd.nextInt(10) == 0;
+			names.add(jaName
+					? JA_FAMILY[rnd.nextInt(JA_FAMILY.length)] + " " + JA_GIVEN[rnd.nextInt(JA_GIVEN.length)]
+					: EN_GIVEN[rnd.nextInt(EN_GIVEN.length)] + " " + EN_FAMILY[rnd.nextInt(EN_FAMILY.length)]);
+		}
+		if (n >= 6 && rnd.nextBoolean()) return String.join(", ", names.subList(0, 3)) + " et al.";
+		return String.join(", ", names);
+	}
+
+	/** 0..n-1 を確率 ∝ 1/(k+1)^s で返す。累積分布を持って二分探索 */
+	static final class Zipf {
+		private final double[] cdf;
+
+		Zipf(int n, double s) {
+			cdf = new double[Math.max(1, n)];
+			double sum = 0;
+			for (int k = 0; k < cdf.length; k++) cdf[k] = sum += 1 / Math.pow(k + 1, s);
+			for (int k = 0; k < cdf.length; k++) cdf[k] /= sum;
+		}
+
+		int sample(RandomGenerator rnd) {
+			int i = Arrays.binarySearch(cdf, rnd.nextDouble());
+			return Math.min(cdf.length - 1, i >= 0 ? i : -i - 1);
+		}
+	}
+}
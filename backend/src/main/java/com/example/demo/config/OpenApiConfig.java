@@ -1,8 +1,12 @@
 package com.example.demo.config;
 
 import org.springdoc.core.models.GroupedOpenApi;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
@@ -27,4 +31,27 @@ public class OpenApiConfig {
         .packagesToScan("com.example.demo.web")
         .build();
   }
+
+  // bibmanager.startup.lazy-docs=true なら springdoc の Bean（と上の 2 つ）を /v3/api-docs・/docs の初回アクセスまで作らない。
+  // ハンドラは Bean 名で登録されるので、作るのはリクエストが来たとき
+  @Bean
+  static BeanFactoryPostProcessor lazyApiDocs(Environment env) {
+    return bf -> {
+      if (!env.getProperty("bibmanager.startup.lazy-docs", Boolean.class, false)) return;
+      for (String name : bf.getBeanDefinitionNames()) {
+        var def = bf.getBeanDefinition(name);
+        if (isApiDocs(bf, def)) def.setLazyInit(true);
+      }
+    };
+  }
+
+  // @Bean メソッドの定義はクラス名を持たないので、宣言している設定クラスで見る
+  private static boolean isApiDocs(ConfigurableListableBeanFactory bf, BeanDefinition def) {
+    String type = def.getBeanClassName();
+    String factory = def.getFactoryBeanName();
+    if (type == null && factory != null && bf.containsBeanDefinition(factory)) {
+      type = bf.getBeanDefinition(factory).getBeanClassName();
+    }
+    return type != null && (type.startsWith("org.springdoc.") || type.startsWith(OpenApiConfig.class.getName()));
+  }
 }
@@ -0,0 +1,27 @@
+package com.example.demo.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate が発行する SQL をスレッド単位で数える（リクエスト単位の集計は SqlCountFilter）。
+ * hibernate.session_factory.statement_inspector でクラス名を指定して Hibernate に生成させるので、状態は static に持つ。
+ * JdbcTemplate で直接流す SQL（一括取り込みなど）は数えない。
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+	private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+	@Override
+	public String inspect(String sql) {
+		COUNT.get()[0]++;
+		return sql;
+	}
+
+	public static long count() {
+		return COUNT.get()[0];
+	}
+
+	public static void reset() {
+		COUNT.get()[0] = 0;
+	}
+}
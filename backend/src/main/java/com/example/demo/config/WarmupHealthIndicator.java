@@ -0,0 +1,26 @@
+package com.example.demo.config;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.service.index.PaperIndexes;
+
+/**
+ * 起動時のインメモリ索引づくりが終わるまで OUT_OF_SERVICE。
+ * readiness グループ（/actuator/health/readiness, /readyz）に入れてあるので、終わるまで 503 を返す。
+ */
+@Component
+public class WarmupHealthIndicator implements HealthIndicator {
+
+	private final PaperIndexes indexes;
+	public WarmupHealthIndicator(PaperIndexes indexes) {
+		this.indexes = indexes;
+	}
+
+	@Override
+	public Health health() {
+		if (indexes.isReady()) return Health.up().withDetail("indexes", indexes.size()).build();
+		return Health.outOfService().withDetail("indexes", "building").build();
+	}
+}
@@ -4,6 +4,11 @@ import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -16,6 +21,7 @@ import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -23,7 +29,11 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+// 2 次キャッシュ（リージョンの大きさ・TTL は resources/application.conf）
 @Entity @Table(name = "papers")
+@Cacheable @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "papers")
+// UPDATE は変わった列だけ（status だけの変更なら set status=?, version=? の 1 文）
+@DynamicUpdate
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Paper {
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -43,6 +53,10 @@ public class Paper {
 
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
+
+    // 楽観ロック。UPDATE / DELETE は where version = ? 付きになり、同時に書かれたら後から来た方が失敗する（409）
+    @Version
+    private Long version;
     
     public enum Status {UNREAD, READING, DONE}
     
@@ -57,6 +71,7 @@ public class Paper {
     }
     
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "paper-tags")
     @JoinTable(
         name = "paper_tags",
         joinColumns = @JoinColumn(name = "paper_id"),
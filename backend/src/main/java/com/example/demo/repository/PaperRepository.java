@@ -1,14 +1,21 @@
 package com.example.demo.repository;
 
-import org.springframework.data.domain.Page;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import com.example.demo.domain.Paper;
 
+import jakarta.persistence.QueryHint;
+
 public interface PaperRepository extends JpaRepository<Paper, Long> {
 	
+	// 戻り値は Page ではなく List（Page だと Spring Data が裏で count クエリをもう 1 本流すため。件数は countSearch で）
+	// search / countSearch / seek は一覧の既定形なのでクエリキャッシュに載せる（papers・tags・paper_tags への書き込みで Hibernate が無効化）
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_CACHEABLE, value = "true"))
 	@Query("""
 	  select distinct p from Paper p
 	  left join p.tags t
@@ -18,13 +25,14 @@ public interface PaperRepository extends JpaRepository<Paper, Long> {
 	    and (:st is null or p.status = :st)
 	    and (:tags is null or t.name in :tags)
 	""")
-	Page<Paper> search(
+	java.util.List<Paper> search(
 	  @Param("q") String q,
 	  @Param("st") com.example.demo.domain.Paper.Status st,
 	  @Param("tags") java.util.List<String> tags,
 	  org.springframework.data.domain.Pageable pageable
 	);
 
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_CACHEABLE, value = "true"))
 	@Query("""
 	  select count(distinct p) from Paper p
 	  left join p.tags t
@@ -37,4 +45,142 @@ public interface PaperRepository extends JpaRepository<Paper, Long> {
 	long countSearch(@Param("q") String q,
 	                 @Param("st") com.example.demo.domain.Paper.Status st,
 	                 @Param("tags") java.util.List<String> tags);
+
+	// q を PaperSearchIndex で解決済みのとき用（LIKE の代わりに id in :ids）
+	@Query("""
+	  select distinct p from Paper p
+	  left join p.tags t
+	  where p.id in :ids
+	    and (:st is null or p.status = :st)
+	    and (:tags is null or t.name in :tags)
+	""")
+	java.util.List<Paper> searchIn(
+	  @Param("ids") java.util.Collection<Long> ids,
+	  @Param("st") com.example.demo.domain.Paper.Status st,
+	  @Param("tags") java.util.List<String> tags,
+	  org.springframework.data.domain.Pageable pageable
+	);
+
+	@Query("""
+	  select count(distinct p) from Paper p
+	  left join p.tags t
+	  where p.id in :ids
+	    and (:st is null or p.status = :st)
+	    and (:tags is null or t.name in :tags)
+	""")
+	long countSearchIn(@Param("ids") java.util.Collection<Long> ids,
+	                   @Param("st") com.example.demo.domain.Paper.Status st,
+	                   @Param("tags") java.util.List<String> tags);
+
+	// インメモリ索引の再構築用。id 昇順に少しずつ読む
+	@Query("select p from Paper p where p.id > :after order by p.id")
+	java.util.List<Paper> scanAfter(@Param("after") long after, org.springframework.data.domain.Pageable limit);
+
+	// q を索引で解決できないとき（LIKE のワイルドカード入り・再構築中）の id だけの検索
+	@Query("""
+	  select p.id from Paper p
+	  where lower(p.title) like lower(concat('%', :q, '%'))
+	     or lower(p.authors) like lower(concat('%', :q, '%'))
+	""")
+	java.util.List<Long> searchIds(@Param("q") String q);
+
+	// keyset ページング用：OFFSET を使わず id < :after で主キーをシークする
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_CACHEABLE, value = "true"))
+	@Query("""
+	  select distinct p from Paper p
+	  left join p.tags t
+	  where (:after is null or p.id < :after)
+	    and (:q is null or :q = ''
+	         or lower(p.title) like lower(concat('%', :q, '%'))
+	         or lower(p.authors) like lower(concat('%', :q, '%')))
+	    and (:st is null or p.status = :st)
+	    and (:tags is null or t.name in :tags)
+	  order by p.id desc
+	""")
+	java.util.List<Paper> seek(
+	  @Param("after") Long after,
+	  @Param("q") String q,
+	  @Param("st") com.example.demo.domain.Paper.Status st,
+	  @Param("tags") java.util.List<String> tags,
+	  org.springframework.data.domain.Pageable limit
+	);
+
+	@Query("""
+	  select distinct p from Paper p
+	  left join p.tags t
+	  where p.id in :ids
+	    and (:after is null or p.id < :after)
+	    and (:st is null or p.status = :st)
+	    and (:tags is null or t.name in :tags)
+	  order by p.id desc
+	""")
+	java.util.List<Paper> seekIn(
+	  @Param("ids") java.util.Collection<Long> ids,
+	  @Param("after") Long after,
+	  @Param("st") com.example.demo.domain.Paper.Status st,
+	  @Param("tags") java.util.List<String> tags,
+	  org.springframework.data.domain.Pageable limit
+	);
+
+	// エクスポート用：前方向カーソルで全件を流す（fetch size 指定・読み取り専用）。tags は join せず exists で絞る
+	@QueryHints({
+	  @QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "500"),
+	  @QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("""
+	  select p from Paper p
+	  where (:q is null or :q = ''
+	         or lower(p.title) like lower(concat('%', :q, '%'))
+	         or lower(p.authors) like lower(concat('%', :q, '%')))
+	    and (:st is null or p.status = :st)
+	    and (:tags is null or exists (select 1 from Paper p2 join p2.tags t where p2 = p and t.name in :tags))
+	  order by p.id desc
+	""")
+	java.util.stream.Stream<Paper> streamFiltered(
+	  @Param("q") String q,
+	  @Param("st") com.example.demo.domain.Paper.Status st,
+	  @Param("tags") java.util.List<String> tags
+	);
+
+	// 一覧の N+1 回避用：ページ分の論文IDに付いたタグ名を 1 クエリでまとめて取る
+	interface PaperTagName {
+		Long getPaperId();
+		String getName();
+	}
+
+	@Query("select p.id as paperId, t.name as name from Paper p join p.tags t where p.id in :ids")
+	java.util.List<PaperTagName> findTagNames(@Param("ids") java.util.Collection<Long> ids);
+
+	// 詳細取得用：tags も同じ SELECT で fetch join する
+	@EntityGraph(attributePaths = "tags")
+	@Query("select p from Paper p where p.id = :id")
+	java.util.Optional<Paper> findWithTagsById(@Param("id") Long id);
+
+	// paper_tags を集合で張る／外す。存在しない paper id は papers との join で落ちる（FK 違反にしない）
+	// ネイティブ SQL は触るテーブルを宣言しておく（無いと Hibernate が 2 次キャッシュを全部捨てる）。
+	// paper_tags を宣言すると Paper.tags のコレクションキャッシュと、paper_tags を見るクエリキャッシュだけが無効になる
+	@Modifying
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES, value = "paper_tags"))
+	@Query(value = """
+	  insert into paper_tags(paper_id, tag_id)
+	  select p.id, t.id from papers p cross join tags t
+	  where p.id in (:ids) and t.id in (:tagIds)
+	    and not exists (select 1 from paper_tags x where x.paper_id = p.id and x.tag_id = t.id)
+	""", nativeQuery = true)
+	int linkTags(@Param("ids") java.util.Collection<Long> ids, @Param("tagIds") java.util.Collection<Long> tagIds);
+
+	@Modifying
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES, value = "paper_tags"))
+	@Query(value = "delete from paper_tags where paper_id in (:ids) and tag_id in (:tagIds)", nativeQuery = true)
+	int unlinkTags(@Param("ids") java.util.Collection<Long> ids, @Param("tagIds") java.util.Collection<Long> tagIds);
+
+	// 一括の status 変更・削除。JPQL の一括 DML なので、Hibernate が papers（と Paper.tags）の 2 次キャッシュと
+	// クエリキャッシュを無効にする。削除は paper_tags の行も Hibernate が先に消す
+	@Modifying(clearAutomatically = true)
+	@Query("update Paper p set p.status = :st, p.version = p.version + 1 where p.id in :ids and p.status <> :st")
+	int updateStatus(@Param("ids") java.util.Collection<Long> ids, @Param("st") com.example.demo.domain.Paper.Status st);
+
+	@Modifying(clearAutomatically = true)
+	@Query("delete from Paper p where p.id in :ids")
+	int deleteByIds(@Param("ids") java.util.Collection<Long> ids);
 }
@@ -3,9 +3,24 @@ package com.example.demo.repository;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.domain.Tag;
 
+import jakarta.persistence.QueryHint;
+
 public interface TagRepository extends JpaRepository<Tag, Long> {
     Optional<Tag> findByName(String name);
+
+    // 同名タグの同時作成でも一意制約違反にしない（既にあれば何もしない）
+    // 触るのは tags だけと宣言して、2 次キャッシュ全体が捨てられないようにする
+    @Modifying
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES, value = "tags"))
+    @Transactional
+    @Query(value = "insert into tags(name) values (:name) on conflict do nothing", nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name);
 }
@@ -0,0 +1,15 @@
+package com.example.demo.service;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * DbBulkheadAspect を通さないメソッド。枠を取らず、処理時間の標本にもしない。
+ * DB 接続を長く使い続けるエクスポートや、起動時・裏での索引の作り直しに付ける。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@interface BulkheadExempt {
+}
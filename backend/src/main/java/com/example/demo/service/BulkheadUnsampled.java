@@ -0,0 +1,15 @@
+package com.example.demo.service;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * DbBulkhead の枠は取るが、処理時間の標本にはしないメソッド。
+ * 一括操作や全件走査のように、時間が件数に比例して長くなるものに付ける。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@interface BulkheadUnsampled {
+}
@@ -0,0 +1,59 @@
+package com.example.demo.service;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 一覧の total をフィルタ (q, status, tags) ごとに覚えておく小さなキャッシュ。
+ * TTL で期限切れにするほか、書き込みがあれば世代番号を進めて全エントリを無効にする。
+ * invalidate は書き込みがコミットした後に呼ぶこと（コミット前だと、その間に数えたコミット前の件数が新しい世代で残る）。
+ * そうすれば invalidate の前に数え始めた値は世代が合わないので、invalidate の後には返さない。
+ * このアプリを通らない書き込み（別プロセス・直接の SQL）は見えないので、その分は TTL の間古い件数を返しうる。
+ */
+@Component
+public class CountCache {
+
+	private record Key(String q, String status, List<String> tags) {}
+	private record Entry(long total, long generation, long expiresAt) {}
+
+	private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+	private final AtomicLong generation = new AtomicLong();
+	private final long ttlMillis;
+	private final int maxEntries;
+
+	public CountCache(@Value("${bibmanager.count-cache.ttl-ms:30000}") long ttlMillis,
+	                  @Value("${bibmanager.count-cache.max-entries:1024}") int maxEntries) {
+		this.ttlMillis = ttlMillis;
+		this.maxEntries = maxEntries;
+	}
+
+	/** tags は正規化（小文字・重複なし）済みのものを渡す。ttl-ms=0 ならキャッシュしない */
+	public long get(String q, String status, List<String> tags, LongSupplier loader) {
+		if (ttlMillis <= 0) return loader.getAsLong();
+		var key = new Key(q == null || q.isEmpty() ? null : q.toLowerCase(),
+				status,
+				tags == null ? null : tags.stream().sorted().toList());
+		long now = System.currentTimeMillis();
+		long gen = generation.get();
+		var e = entries.get(key);
+		if (e != null && e.generation() == gen && e.expiresAt() > now) return e.total();
+
+		long total = loader.getAsLong();
+		// 数えている間に世代が進んだら覚えない（新しい世代で入った値を古い値で上書きしない）
+		if (generation.get() != gen) return total;
+		if (entries.size() >= maxEntries) entries.clear();
+		entries.put(key, new Entry(total, gen, now + ttlMillis));
+		return total;
+	}
+
+	/** 書き込みのコミット後に呼ぶ */
+	public void invalidate() {
+		generation.incrementAndGet();
+		entries.clear();
+	}
+}
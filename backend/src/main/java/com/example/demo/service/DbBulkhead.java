@@ -0,0 +1,139 @@
+package com.example.demo.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * DB に同時に入れる処理の数を絞るバルクヘッド。上限は観測した処理時間で自動調整する（gradient 方式）。
+ * 長期平均の処理時間と直近の処理時間の比（詰まり始めると 1 未満）を上限に掛け、√上限 ぶんだけ余裕を足す。
+ * 失敗したときは上限を 0.9 倍にする（AIMD の乗算減少）。
+ * 上限に達したら maxWait だけ空きを待ち、それでも空かなければ Rejected を投げて 503 + Retry-After で断る
+ * （Tomcat や Hikari の待ち行列に積んで全体の遅延を崩すより、早く断ってクライアントに再試行させる）。
+ */
+@Component
+public class DbBulkhead {
+
+	/** 上限いっぱいで断ったとき。ApiExceptionHandler が 503 + Retry-After にする */
+	public static class Rejected extends RuntimeException {
+		private final int retryAfterSeconds;
+
+		public Rejected(int retryAfterSeconds) {
+			super("database is busy", null, false, false);
+			this.retryAfterSeconds = retryAfterSeconds;
+		}
+
+		public int retryAfterSeconds() { return retryAfterSeconds; }
+	}
+
+	private static final double SMOOTHING = 0.2;
+
+	private final boolean enabled;
+	private final int minLimit;
+	private final int maxLimit;
+	private final long maxWaitNanos;
+	private final int retryAfterSeconds;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition freed = lock.newCondition();
+	private double limit;
+	private int inFlight;
+	// 処理時間の移動平均（ns）。long は負荷が無いときの基準、short は直近
+	private double longRtt;
+	private double shortRtt;
+
+	private final Counter rejected;
+	private final Timer waits;
+
+	public DbBulkhead(MeterRegistry registry,
+			@Value("${bibmanager.bulkhead.enabled:true}") boolean enabled,
+			@Value("${bibmanager.bulkhead.initial-limit:10}") int initialLimit,
+			@Value("${bibmanager.bulkhead.min-limit:2}") int minLimit,
+			@Value("${bibmanager.bulkhead.max-limit:50}") int maxLimit,
+			@Value("${bibmanager.bulkhead.max-wait-ms:50}") long maxWaitMs,
+			@Value("${bibmanager.bulkhead.retry-after-seconds:1}") int retryAfterSeconds) {
+		this.enabled = enabled;
+		this.minLimit = Math.max(1, minLimit);
+		this.maxLimit = Math.max(this.minLimit, maxLimit);
+		this.limit = Math.clamp(initialLimit, this.minLimit, this.maxLimit);
+		this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+		this.retryAfterSeconds = retryAfterSeconds;
+		Gauge.builder("bibmanager.bulkhead.limit", this, DbBulkhead::limit).register(registry);
+		Gauge.builder("bibmanager.bulkhead.in_flight", this, DbBulkhead::inFlight).register(registry);
+		this.rejected = Counter.builder("bibmanager.bulkhead.rejected").register(registry);
+		this.waits = Timer.builder("bibmanager.bulkhead.wait").register(registry);
+	}
+
+	public boolean isEnabled() { return enabled; }
+
+	public double limit() {
+		lock.lock();
+		try { return limit; } finally { lock.unlock(); }
+	}
+
+	public int inFlight() {
+		lock.lock();
+		try { return inFlight; } finally { lock.unlock(); }
+	}
+
+	/** 枠を 1 つ取る。maxWait 待っても空かなければ Rejected */
+	void acquire() {
+		long start = System.nanoTime();
+		lock.lock();
+		try {
+			long remaining = maxWaitNanos;
+			while (inFlight >= (int) limit) {
+				if (remaining <= 0) {
+					rejected.increment();
+					throw new Rejected(retryAfterSeconds);
+				}
+				remaining = freed.awaitNanos(remaining);
+			}
+			inFlight++;
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new Rejected(retryAfterSeconds);
+		} finally {
+			lock.unlock();
+			waits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	// 枠を返し、処理時間で上限を調整する。ok=false は DB 由来の失敗、null は入力エラーなどで上限は動かさない
+	void release(long rttNanos, Boolean ok) {
+		lock.lock();
+		try {
+			int used = inFlight--;
+			if (ok == null) {
+				freed.signal();
+				return;
+			}
+			double next;
+			if (!ok) {
+				next = limit * 0.9;
+			} else {
+				shortRtt = shortRtt == 0 ? rttNanos : shortRtt * 0.9 + rttNanos * 0.1;
+				longRtt = longRtt == 0 ? rttNanos : longRtt * 0.99 + rttNanos * 0.01;
+				// 基準が直近より大きく外れたら（負荷が下がった後など）基準のほうを寄せる
+				if (longRtt / shortRtt > 2) longRtt *= 0.95;
+				double gradient = Math.clamp(longRtt / shortRtt, 0.5, 1.0);
+				next = limit * gradient + Math.sqrt(limit);
+				// 上限の半分も使っていないときは、処理時間が良くても上限を上げない（実際に試していないので）
+				if (used < limit / 2) next = Math.min(next, limit);
+			}
+			double before = limit;
+			limit = Math.clamp(limit * (1 - SMOOTHING) + next * SMOOTHING, minLimit, maxLimit);
+			if ((int) limit > (int) before) freed.signalAll(); else freed.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+}
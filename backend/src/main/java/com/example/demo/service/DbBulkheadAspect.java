@@ -0,0 +1,61 @@
+package com.example.demo.service;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.config.SqlStatementCounter;
+
+import jakarta.persistence.PersistenceException;
+
+/**
+ * PaperJpaService の公開メソッドを DbBulkhead に通す。
+ * @Transactional より外側（Order 0）で枠を取るので、待っている間は DB 接続を握らない。
+ * 長く接続を使い続けるエクスポートと索引の作り直し（@BulkheadExempt）は、処理時間の標本を乱すので対象外。
+ * 一括操作と重複レポート（@BulkheadUnsampled）は枠は取るが、件数に比例して長いので処理時間の標本にはしない。
+ * SQL を 1 本も流さなかった呼び出し（読み取りモデル・2 次キャッシュで済んだもの）も処理時間の標本にしない
+ * （DB を待っていない短い時間が混ざると、最小の処理時間が下がって上限が不当に絞られる）。
+ */
+@Aspect
+@Component
+@Order(0)
+@Profile("!inmemory")
+public class DbBulkheadAspect {
+
+	private final DbBulkhead bulkhead;
+
+	public DbBulkheadAspect(DbBulkhead bulkhead) {
+		this.bulkhead = bulkhead;
+	}
+
+	@Around("execution(public * com.example.demo.service.PaperJpaService.*(..))"
+			+ " && !@annotation(com.example.demo.service.BulkheadExempt)")
+	public Object guard(ProceedingJoinPoint pjp) throws Throwable {
+		if (!bulkhead.isEnabled()) return pjp.proceed();
+		bulkhead.acquire();
+		long start = System.nanoTime();
+		long sqlBefore = SqlStatementCounter.count();
+		Boolean ok = null;
+		try {
+			Object result = pjp.proceed();
+			var method = ((MethodSignature) pjp.getSignature()).getMethod();
+			boolean sample = !method.isAnnotationPresent(BulkheadUnsampled.class) && SqlStatementCounter.count() != sqlBefore;
+			ok = sample ? Boolean.TRUE : null;
+			return result;
+		} catch (ConcurrencyFailureException ex) {
+			// 版の衝突は負荷の兆候ではないので上限は動かさない
+			throw ex;
+		} catch (DataAccessException | PersistenceException ex) {
+			ok = false;
+			throw ex;
+		} finally {
+			bulkhead.release(System.nanoTime() - start, ok);
+		}
+	}
+}
@@ -1,139 +1,450 @@
 package com.example.demo.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
+import com.example.demo.domain.Paper;
+import com.example.demo.service.index.FacetIndex;
+import com.example.demo.service.index.IdBitmap;
+import com.example.demo.service.index.NearDuplicateIndex;
+import com.example.demo.service.index.PaperIndexes;
+import com.example.demo.service.index.PaperReadModel;
+import com.example.demo.service.index.PaperSearchIndex;
+import com.example.demo.service.index.TagExpr;
+
+import io.micrometer.core.annotation.Timed;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * DB を使わない PaperService（--spring.profiles.active=inmemory で有効）。
+ * 本体は id 降順の ConcurrentSkipListMap なので、先頭ページや keyset ページは先頭から必要な分だけ読めば済む。
+ * status / tag ごとの id 集合と PaperSearchIndex を二次インデックスに使い、
+ * 一番小さい候補集合を id 降順に歩きながら残りの条件を確かめる。
+ * 結果（並び順・q の部分一致・tags の OR）は PaperJpaService と同じになるようにしている。
+ */
 @Service
-public class InMemoryPaperService {
-	
-	public static record PaperEntity(
-			Long id,
-			String title,
-			String authors,
-			Integer year,
-			String url,
-			long createdAt
-	) {}
-	
-	private final Map<Long, PaperEntity> db = new ConcurrentHashMap<>();
+@Profile("inmemory")
+// メソッドごとの処理時間（bibmanager.paper.service、class / method タグ付き）
+@Timed(value = "bibmanager.paper.service", histogram = true)
+public class InMemoryPaperService implements PaperService {
+
+	private static final Comparator<Long> DESC = Comparator.reverseOrder();
+	private static final List<String> STATUSES = List.of("UNREAD", "READING", "DONE");
+
+	private final ConcurrentSkipListMap<Long, PaperRow> db = new ConcurrentSkipListMap<>(DESC);
+	private final Map<String, NavigableSet<Long>> byStatus = new ConcurrentHashMap<>();
+	private final Map<String, NavigableSet<Long>> byTag = new ConcurrentHashMap<>();
 	private final AtomicLong seq = new AtomicLong(1);
-	
-	public PaperEntity create(String title, String authors, Integer year, String url) {
-		long id = seq.getAndIncrement();
-		var e = new PaperEntity(id, title, authors, year, url, System.currentTimeMillis());
-		db.put(id,  e);
-		return e;
+	// 書き込みは本体と二次インデックスをまとめて更新するので直列化する（読み取りはロックなし）
+	private final Object writeLock = new Object();
+	private final PaperSearchIndex index;
+	private final FacetIndex facetIndex;
+	private final NearDuplicateIndex duplicates;
+	private final PaperIndexes indexes;
+
+	public InMemoryPaperService(PaperSearchIndex index, FacetIndex facetIndex, NearDuplicateIndex duplicates, PaperIndexes indexes) {
+		this.index = index;
+		this.facetIndex = facetIndex;
+		this.duplicates = duplicates;
+		this.indexes = indexes;
+		for (var st : STATUSES) byStatus.put(st, new ConcurrentSkipListSet<>(DESC));
+	}
+
+	@PostConstruct
+	void init() {
+		indexes.clear();
+		indexes.markReady();
 	}
-	
-	public Optional<PaperEntity> findById(Long id){
+
+	@Override
+	public PaperRow create(String title, String authors, Integer year, String url) {
+		synchronized (writeLock) {
+			long id = seq.getAndIncrement();
+			var e = new PaperRow(id, title, authors, year, url, System.currentTimeMillis(), "UNREAD", List.of());
+			put(null, e);
+			return e;
+		}
+	}
+
+	@Override
+	public Optional<PaperRow> findById(Long id){
 		return Optional.ofNullable(db.get(id));
 	}
-	
+
+	@Override
 	public long count() {
 		return db.size();
 	}
-	
-	public List<PaperEntity> findAll(int page, int size){
-		var sorted = db.values().stream()
-				.sorted(Comparator.comparing(PaperEntity::id).reversed())
-				.collect(Collectors.toList());
-		
-		int from = Math.max(0,  page * size);
-		int to = Math.min(sorted.size(), from + size);
-		if(from >= sorted.size()) return List.of();
-		return sorted.subList(from, to);
-	}
-	
-	public List<PaperEntity> findAll(int page, int size, String q){
-		var stream = db.values().stream();
-		if (q != null && !q.isBlank()) {
-			var needle = q.toLowerCase();
-			stream = stream.filter(e ->
-					(e.title() != null && e.title().toLowerCase().contains(needle)) ||
-					(e.authors() != null && e.authors().toLowerCase().contains(needle))
-			);
-		}
-		var sorted = stream
-				.sorted(Comparator.comparing(PaperEntity::id).reversed())
-				.collect(Collectors.toList());
-		
-		int from = Math.max(0,  page * size);
-		int to = Math.min(sorted.size(), from + size);
-		if(from >= sorted.size()) return List.of();
-		return sorted.subList(from, to);
-	}
-	
-	public void delete(Long id) {
-		db.remove(id);
-	}
-	
-	public Optional<PaperEntity> update(Long id, String title, String authors, Integer year, String url){
-		return Optional.ofNullable(db.computeIfPresent(id, (k, old) ->
-				new PaperEntity(
-						old.id(),
-						title != null ? title : old.title(),
-						authors != null ? authors : old.authors(),
-						year != null ? year : old.year(),
-						url != null ? url : old.url(),
-						old.createdAt()
-				)));
-	}
-	
-	public long countFiltered(String q) {
-		if (q == null || q.isBlank()) return db.size();
-		var needle = q.toLowerCase();
-		return db.values().stream()
-				.filter(e -> 
-					(e.title() != null && e.title().toLowerCase().contains(needle)) ||
-					(e.authors() != null && e.authors().toLowerCase().contains(needle)))
-				.count();
-	}
-}
-
-
-
-
-
-
-
-
 
+	@Override
+	public List<PaperRow> findAll(int page, int size){
+		return findAll(page, size, null, null, null);
+	}
 
+	@Override
+	public List<PaperRow> findAll(int page, int size, String q, String status, List<String> tags) {
+		var f = Filter.of(q, status, tags, index);
+		long skip = (long) page * size;
+		var out = new ArrayList<PaperRow>(size);
+		var it = candidates(f, null);
+		while (it.hasNext() && out.size() < size) {
+			var e = db.get(it.next());
+			if (e == null || !f.test(e)) continue;
+			if (skip > 0) { skip--; continue; }
+			out.add(e);
+		}
+		return out;
+	}
 
+	@Override
+	public long countFiltered(String q, String status, List<String> tags) {
+		var f = Filter.of(q, status, tags, index);
+		if (f.isEmpty()) return db.size();
+		long n = 0;
+		var it = candidates(f, null);
+		while (it.hasNext()) {
+			var e = db.get(it.next());
+			if (e != null && f.test(e)) n++;
+		}
+		return n;
+	}
 
+	@Override
+	public FacetIndex.Facets facets(String q, String status, TagExpr tags, int topTags) {
+		return facetIndex.facets(qBits(q), Filter.of(null, status, null, index).status(), tags, topTags);
+	}
 
+	@Override
+	public Slice findByTagExpr(String q, String status, TagExpr tags, Long afterId, int offset, int limit) {
+		var m = facetIndex.matching(qBits(q), Filter.of(null, status, null, index).status(), tags);
+		var rows = m.descIds(afterId, offset, limit).stream().map(db::get).filter(Objects::nonNull).toList();
+		return new Slice(rows, m.cardinality());
+	}
 
+	@Override
+	public Slice findByRelevance(String q, String status, TagExpr tags, int offset, int limit) {
+		var m = facetIndex.matching(qBits(q), Filter.of(null, status, null, index).status(), tags);
+		var rows = index.rank(q, m, offset, limit).stream().map(db::get).filter(Objects::nonNull).toList();
+		return new Slice(rows, m.cardinality());
+	}
 
+	// q だけで絞った集合（q なしなら null）。status / tags はファセット索引側で掛ける
+	private IdBitmap qBits(String q) {
+		var f = Filter.of(q, null, null, index);
+		if (f.q() == null) return null;
+		var bits = new IdBitmap();
+		var it = candidates(f, null);
+		while (it.hasNext()) {
+			var e = db.get(it.next());
+			if (e != null && f.test(e)) bits.add(Math.toIntExact(e.id()));
+		}
+		return bits;
+	}
 
+	@Override
+	public List<PaperRow> findAfter(Long afterId, int limit, String q, String status, List<String> tags) {
+		var f = Filter.of(q, status, tags, index);
+		var out = new ArrayList<PaperRow>(limit);
+		var it = candidates(f, afterId);
+		while (it.hasNext() && out.size() < limit) {
+			var e = db.get(it.next());
+			if (e != null && f.test(e)) out.add(e);
+		}
+		return out;
+	}
 
+	@Override
+	public void streamFiltered(String q, String status, List<String> tags, Consumer<PaperRow> sink) {
+		var f = Filter.of(q, status, tags, index);
+		var it = candidates(f, null);
+		while (it.hasNext()) {
+			var e = db.get(it.next());
+			if (e != null && f.test(e)) sink.accept(e);
+		}
+	}
 
+	@Override
+	public boolean delete(Long id) {
+		synchronized (writeLock) {
+			var old = db.get(id);
+			if (old != null) remove(old);
+			return old != null;
+		}
+	}
 
+	@Override
+	public Optional<PaperRow> update(Long id, String title, String authors, Integer year, String url){
+		synchronized (writeLock) {
+			return Optional.ofNullable(db.get(id)).map(old -> put(old, new PaperRow(
+					old.id(),
+					title != null ? title : old.title(),
+					authors != null ? authors : old.authors(),
+					year != null ? year : old.year(),
+					url != null ? url : old.url(),
+					old.createdAt(),
+					old.status(),
+					old.tags())));
+		}
+	}
 
+	@Override
+	public Optional<PaperRow> setStatus(Long id, String status) {
+		synchronized (writeLock) {
+			return Optional.ofNullable(db.get(id)).map(old -> {
+				if (status == null) return old;
+				var st = Paper.Status.valueOf(status).name();
+				return put(old, withTags(old, st, old.tags()));
+			});
+		}
+	}
 
+	@Override
+	public Optional<PaperRow> addTag(Long paperId, String tagName) {
+		if (tagName == null || tagName.isBlank()) return Optional.empty();
+		String norm = TagDictionary.normalize(tagName);
+		synchronized (writeLock) {
+			return Optional.ofNullable(db.get(paperId)).map(old -> {
+				if (old.tags().contains(norm)) return old;
+				var tags = new TreeSet<>(old.tags());
+				tags.add(norm);
+				return put(old, withTags(old, old.status(), List.copyOf(tags)));
+			});
+		}
+	}
 
+	@Override
+	public Optional<PaperRow> removeTag(Long paperId, String tagName) {
+		// 空のタグは外すものが無いだけ（論文が無いときだけ empty）
+		if (tagName == null || tagName.isBlank()) return Optional.ofNullable(db.get(paperId));
+		String norm = TagDictionary.normalize(tagName);
+		synchronized (writeLock) {
+			return Optional.ofNullable(db.get(paperId)).map(old -> {
+				if (!old.tags().contains(norm)) return old;
+				var tags = new ArrayList<>(old.tags());
+				tags.remove(norm);
+				return put(old, withTags(old, old.status(), List.copyOf(tags)));
+			});
+		}
+	}
 
+	@Override
+	public BulkTagResult bulkTags(Collection<Long> paperIds, List<String> add, List<String> remove) {
+		if (paperIds == null || paperIds.isEmpty()) return new BulkTagResult(0, 0);
+		var adds = normalized(add);
+		var removes = normalized(remove);
+		int linked = 0, unlinked = 0;
+		synchronized (writeLock) {
+			for (var id : new HashSet<>(paperIds)) {
+				var old = db.get(id);
+				if (old == null) continue;
+				var tags = new TreeSet<>(old.tags());
+				for (var t : adds) if (tags.add(t)) linked++;
+				for (var t : removes) if (tags.remove(t)) unlinked++;
+				if (tags.size() != old.tags().size() || !tags.containsAll(old.tags())) {
+					put(old, withTags(old, old.status(), List.copyOf(tags)));
+				}
+			}
+		}
+		return new BulkTagResult(linked, unlinked);
+	}
 
+	@Override
+	public List<Long> matchingIds(String q, String status, TagExpr tags, int limit) {
+		return facetIndex.matching(qBits(q), Filter.of(null, status, null, index).status(), tags).descIds(null, 0, limit);
+	}
 
+	@Override
+	public BulkResult bulkStatus(Collection<Long> paperIds, String status) {
+		if (paperIds == null || paperIds.isEmpty()) return new BulkResult(0, 0);
+		var st = Paper.Status.valueOf(status).name();
+		var ids = new HashSet<>(paperIds);
+		int updated = 0;
+		synchronized (writeLock) {
+			for (var id : ids) {
+				var old = db.get(id);
+				if (old == null || old.status().equals(st)) continue;
+				put(old, withTags(old, st, old.tags()));
+				updated++;
+			}
+		}
+		return new BulkResult(ids.size(), updated);
+	}
 
+	@Override
+	public BulkResult bulkDelete(Collection<Long> paperIds) {
+		if (paperIds == null || paperIds.isEmpty()) return new BulkResult(0, 0);
+		var ids = new HashSet<>(paperIds);
+		int deleted = 0;
+		synchronized (writeLock) {
+			for (var id : ids) {
+				var old = db.get(id);
+				if (old == null) continue;
+				remove(old);
+				deleted++;
+			}
+		}
+		return new BulkResult(ids.size(), deleted);
+	}
 
+	@Override
+	public List<Duplicate> possibleDuplicates(long id, int limit) {
+		if (!duplicates.isReady()) throw new IllegalStateException("duplicate index is not ready");
+		return withRows(duplicates.similarTo(id, limit));
+	}
 
+	@Override
+	public List<List<Duplicate>> duplicateClusters(int limit) {
+		if (!duplicates.isReady()) throw new IllegalStateException("duplicate index is not ready");
+		return duplicates.clusters(limit).stream().map(this::withRows).toList();
+	}
 
+	// 索引を見た後に消えた論文は落とす
+	private List<Duplicate> withRows(List<NearDuplicateIndex.Match> matches) {
+		var out = new ArrayList<Duplicate>(matches.size());
+		for (var m : matches) {
+			var row = db.get(m.id());
+			if (row != null) out.add(new Duplicate(row, m.similarity()));
+		}
+		return out;
+	}
 
+	private static List<String> normalized(List<String> names) {
+		if (names == null) return List.of();
+		return names.stream().filter(s -> s != null && !s.isBlank()).map(TagDictionary::normalize).distinct().toList();
+	}
 
+	private static PaperRow withTags(PaperRow old, String status, List<String> tags) {
+		return new PaperRow(old.id(), old.title(), old.authors(), old.year(), old.url(), old.createdAt(), status, tags);
+	}
 
+	// writeLock 内で呼ぶ。old は更新前（新規なら null）
+	private PaperRow put(PaperRow old, PaperRow e) {
+		db.put(e.id(), e);
+		if (old == null || !old.status().equals(e.status())) {
+			if (old != null) byStatus.get(old.status()).remove(old.id());
+			byStatus.get(e.status()).add(e.id());
+		}
+		var before = old == null ? List.<String>of() : old.tags();
+		for (var t : before) if (!e.tags().contains(t)) untag(t, e.id());
+		for (var t : e.tags()) if (!before.contains(t)) byTag.computeIfAbsent(t, k -> new ConcurrentSkipListSet<>(DESC)).add(e.id());
+		indexes.put(e);
+		return e;
+	}
 
+	private void remove(PaperRow old) {
+		db.remove(old.id());
+		byStatus.get(old.status()).remove(old.id());
+		for (var t : old.tags()) untag(t, old.id());
+		indexes.remove(old.id());
+	}
 
+	private void untag(String tag, long id) {
+		var set = byTag.get(tag);
+		if (set != null) set.remove(id);
+	}
 
+	/**
+	 * 条件を満たしうる id を降順に返す。status / tags / q のうち一番小さい集合を選ぶ。
+	 * 返した id は呼び出し側で Filter#test により最終確認する。
+	 */
+	private Iterator<Long> candidates(Filter f, Long afterId) {
+		NavigableSet<Long> best = afterId == null ? db.keySet() : db.keySet().tailSet(afterId, false);
+		long bestSize = db.size();
+		if (f.status() != null) {
+			var s = byStatus.get(f.status());
+			if (s.size() < bestSize) { best = tail(s, afterId); bestSize = s.size(); }
+		}
+		if (f.tags() != null) {
+			long sum = 0;
+			for (var t : f.tags()) { var s = byTag.get(t); if (s != null) sum += s.size(); }
+			if (sum < bestSize) {
+				if (f.tags().size() == 1) {
+					var s = byTag.get(f.tags().get(0));
+					best = s == null ? Collections.emptyNavigableSet() : tail(s, afterId);
+				} else {
+					var union = new TreeSet<Long>(DESC);
+					for (var t : f.tags()) { var s = byTag.get(t); if (s != null) union.addAll(tail(s, afterId)); }
+					best = union;
+				}
+				bestSize = sum;
+			}
+		}
+		if (f.hits() != null && f.hits().length < bestSize) {
+			long[] hits = f.hits();
+			int from = 0;
+			if (afterId != null) while (from < hits.length && hits[from] >= afterId) from++;
+			var list = new ArrayList<Long>(hits.length - from);
+			for (int i = from; i < hits.length; i++) list.add(hits[i]);
+			return list.iterator();
+		}
+		return best.iterator();
+	}
 
+	private static NavigableSet<Long> tail(NavigableSet<Long> s, Long afterId) {
+		return afterId == null ? s : s.tailSet(afterId, false);
+	}
 
+	/**
+	 * 一覧の絞り込み条件。PaperJpaService / PaperRepository.search と同じ意味：
+	 * q は title / authors の大文字小文字を無視した LIKE '%q%'、status は完全一致、tags はいずれかを含む（OR）。
+	 */
+	private record Filter(String q, Pattern like, long[] hits, String status, List<String> tags) implements Predicate<PaperRow> {
+
+		static Filter of(String q, String status, List<String> tags, PaperSearchIndex index) {
+			String needle = q == null || q.isEmpty() ? null : q.toLowerCase(Locale.ROOT);
+			Pattern like = null;
+			long[] hits = null;
+			if (needle != null) {
+				// 普通の q は n-gram インデックスで候補を出す。LIKE のワイルドカード入りは正規表現で全件を見る
+				if (PaperSearchIndex.supports(q)) hits = index.match(q); else like = PaperReadModel.likePattern(needle);
+			}
+			String st = status == null || status.isBlank() ? null
+					: Paper.Status.valueOf(status.toUpperCase()).name();
+			List<String> tagList = (tags == null || tags.isEmpty()) ? null
+					: tags.stream().filter(s -> s != null && !s.isBlank()).map(String::toLowerCase).distinct().toList();
+			return new Filter(needle, like, hits, st, tagList);
+		}
 
+		boolean isEmpty() { return q == null && status == null && tags == null; }
 
+		@Override
+		public boolean test(PaperRow e) {
+			if (status != null && !status.equals(e.status())) return false;
+			if (tags != null && tags.stream().noneMatch(e.tags()::contains)) return false;
+			if (q != null && !matchesText(e)) return false;
+			return true;
+		}
 
+		private boolean matchesText(PaperRow e) {
+			return text(e.title()) || text(e.authors());
+		}
 
+		private boolean text(String s) {
+			if (s == null) return false;
+			var lower = s.toLowerCase(Locale.ROOT);
+			return like != null ? like.matcher(lower).matches() : lower.contains(q);
+		}
+	}
+}
@@ -1,30 +1,163 @@
 package com.example.demo.service;
 
+import static com.example.demo.service.TransactionHooks.afterCommit;
+
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.domain.Paper;
 import com.example.demo.repository.PaperRepository;
-import com.example.demo.repository.TagRepository;
+import com.example.demo.service.index.FacetIndex;
+import com.example.demo.service.index.IdBitmap;
+import com.example.demo.service.index.NearDuplicateIndex;
+import com.example.demo.service.index.PaperIndexes;
+import com.example.demo.service.index.PaperReadModel;
+import com.example.demo.service.index.PaperSearchIndex;
+import com.example.demo.service.index.TagExpr;
+
+import io.micrometer.core.annotation.Timed;
+
+import jakarta.persistence.EntityManager;
 
 @Service
+@Profile("!inmemory")
+// メソッドごとの処理時間（bibmanager.paper.service、class / method タグ付き）
+@Timed(value = "bibmanager.paper.service", histogram = true)
 public class PaperJpaService implements PaperService {
 
+    private static final Logger log = LoggerFactory.getLogger(PaperJpaService.class);
+
+    // q のヒット件数がこれを超えたら id in (...) ではなく従来の LIKE 検索に戻す
+    private static final int MAX_IN_IDS = 1000;
+    private static final int REBUILD_CHUNK = 5000;
+    private static final int EXPORT_CHUNK = 500;
+    // 一括操作の in (...) 1 文あたりの id 数
+    private static final int BULK_CHUNK = 1000;
+
     private final PaperRepository repo;
-    private final TagRepository tagRepo;
-    public PaperJpaService(PaperRepository repo, TagRepository tagRepo) { 
+    private final TagDictionary tagDict;
+    private final PaperSearchIndex index;
+    private final FacetIndex facetIndex;
+    private final NearDuplicateIndex duplicates;
+    private final PaperReadModel readModel;
+    private final PaperIndexes indexes;
+    private final CountCache counts;
+    private final EntityManager em;
+    private final boolean secondLevelCache;
+    private final boolean backgroundWarmup;
+    public PaperJpaService(PaperRepository repo, TagDictionary tagDict, PaperSearchIndex index, FacetIndex facetIndex,
+                           NearDuplicateIndex duplicates, PaperReadModel readModel, PaperIndexes indexes, CountCache counts, EntityManager em,
+                           @Value("${spring.jpa.properties.hibernate.cache.use_second_level_cache:false}") boolean secondLevelCache,
+                           @Value("${bibmanager.startup.background-warmup:false}") boolean backgroundWarmup) { 
     	this.repo = repo;
-    	this.tagRepo = tagRepo;
+    	this.tagDict = tagDict;
+    	this.index = index;
+    	this.facetIndex = facetIndex;
+    	this.duplicates = duplicates;
+    	this.readModel = readModel;
+    	this.indexes = indexes;
+    	this.counts = counts;
+    	this.em = em;
+    	this.secondLevelCache = secondLevelCache;
+    	this.backgroundWarmup = backgroundWarmup;
+    }
+
+    /**
+     * 起動時に papers から全インメモリ索引（検索・ファセット）を作り直す。
+     * bibmanager.startup.background-warmup なら起動を待たせずに裏で作り、終わるまで readiness は OUT_OF_SERVICE
+     * （WarmupHealthIndicator）。走査は REBUILD_CHUNK 件ずつ別トランザクションで読む。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @BulkheadExempt
+    public void rebuildIndexes() {
+        if (!backgroundWarmup) {
+            scanIntoIndexes();
+            return;
+        }
+        Thread.ofVirtual().name("index-warmup").start(() -> {
+            try {
+                scanIntoIndexes();
+            } catch (RuntimeException ex) {
+                log.error("index warmup failed; readiness stays OUT_OF_SERVICE", ex);
+            }
+        });
+    }
+
+    private void scanIntoIndexes() {
+        long t0 = System.nanoTime();
+        // 走査と並んで書き込みが来ても、書き込みのほうを残す（PaperIndexes.beginRebuild）
+        indexes.beginRebuild();
+        long after = 0, n = 0;
+        while (true) {
+            var chunk = repo.scanAfter(after, PageRequest.of(0, REBUILD_CHUNK));
+            rows(chunk).forEach(indexes::rebuildPut);
+            n += chunk.size();
+            if (chunk.size() < REBUILD_CHUNK) break;
+            after = chunk.get(chunk.size() - 1).getId();
+        }
+        indexes.finishRebuild();
+        log.info("indexes rebuilt: {} papers into {} indexes in {} ms", n, indexes.size(), (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    /**
+     * 読み取りモデルだけを裏で作り直す（行がずれた疑いがあるとき用）。既に実行中なら false。
+     * 作り直しの間も一覧は古いモデルから返し、走査を始めた後の書き込みは新しいモデルにもそのまま入る。
+     * 走査は REBUILD_CHUNK 件ずつ別トランザクションで読むので、DB 接続を長く握らない。
+     */
+    @BulkheadExempt
+    public boolean rebuildReadModel() {
+        if (!readModel.beginRebuild()) return false;
+        Thread.ofVirtual().name("read-model-rebuild").start(() -> {
+            long t0 = System.nanoTime();
+            boolean done = false;
+            try {
+                long after = 0, n = 0;
+                while (true) {
+                    var chunk = repo.scanAfter(after, PageRequest.of(0, REBUILD_CHUNK));
+                    rows(chunk).forEach(readModel::rebuildPut);
+                    n += chunk.size();
+                    if (chunk.size() < REBUILD_CHUNK) break;
+                    after = chunk.get(chunk.size() - 1).getId();
+                }
+                done = true;
+                log.info("read model rebuilt: {} papers in {} ms", n, (System.nanoTime() - t0) / 1_000_000);
+            } catch (RuntimeException ex) {
+                log.warn("read model rebuild failed; keeping the previous model", ex);
+            } finally {
+                readModel.finishRebuild(!done);
+            }
+        });
+        return true;
     }
 
     private static PaperService.PaperRow row(Paper p) {
     	var tags = p.getTags() == null ? java.util.List.<String>of()
-                : p.getTags().stream().map(t -> t.getName()).sorted().toList();
+                : p.getTags().stream().map(t -> t.getName()).toList();
+        return row(p, tags);
+    }
+
+    // src/jmh のマッピングベンチマークからも呼ぶのでパッケージプライベート
+    static PaperService.PaperRow row(Paper p, List<String> tagNames) {
+        var tags = tagNames.stream().sorted().toList();
         long created = p.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
         String st = (p.getStatus() == null) ? "UNREAD" : p.getStatus().name();
         return new PaperRow(p.getId(), p.getTitle(), p.getAuthors(), p.getPubYear(), p.getUrl(), created, st, tags);
@@ -33,84 +166,410 @@ public class PaperJpaService implements PaperService {
     @Override
     public PaperRow create(String title, String authors, Integer year, String url) {
         var p = Paper.builder().title(title).authors(authors).pubYear(year).url(url).status(Paper.Status.UNREAD).build();
-        return row(repo.save(p));
+        var r = row(repo.save(p));
+        indexes.put(r);
+        counts.invalidate();
+        return r;
     }
 
+    // 一覧用：p.getTags() を触らず、タグ名はページ分まとめて 1 クエリで引く
+    private List<PaperRow> rows(List<Paper> papers) {
+        if (papers.isEmpty()) return List.of();
+        var ids = papers.stream().map(Paper::getId).toList();
+        var tagsById = new HashMap<Long, List<String>>();
+        for (var t : repo.findTagNames(ids)) {
+            tagsById.computeIfAbsent(t.getPaperId(), k -> new ArrayList<>()).add(t.getName());
+        }
+        return papers.stream().map(p -> row(p, tagsById.getOrDefault(p.getId(), List.of()))).toList();
+    }
+
+    // ids の順序を保ったまま 1 クエリで読み出す
+    private List<PaperRow> rowsByIds(List<Long> ids) {
+        var byId = new HashMap<Long, Paper>();
+        repo.findAllById(ids).forEach(p -> byId.put(p.getId(), p));
+        return rows(ids.stream().map(byId::get).filter(Objects::nonNull).toList());
+    }
+
+    // 2 次キャッシュがあれば主キー検索＋コレクションキャッシュで SQL 0 本、無ければ fetch join の 1 本
+    // （fetch join はキャッシュを素通りするので、キャッシュ有効時は使わない）
     @Override
+    @Transactional(readOnly = true)
     public Optional<PaperRow> findById(Long id) {
-        return repo.findById(id).map(PaperJpaService::row);
+        if (secondLevelCache) return repo.findById(id).map(PaperJpaService::row);
+        return repo.findWithTagsById(id).map(PaperJpaService::row);
     }
 
     @Override
-    public long count() { return repo.count(); }
+    public long count() {
+        return readModelReady() ? readModel.size() : repo.count();
+    }
 
     @Override
     public List<PaperRow> findAll(int page, int size) {
+        if (readModelReady()) return readModel.rows(listIds(null, null, null).descIds(null, offset(page, size), size));
         var pr = PageRequest.of(page, size, Sort.by("id").descending());
-        return repo.findAll(pr).map(PaperJpaService::row).getContent();
+        return rows(repo.findAll(pr).getContent());
     }
 
+    // 一覧（findAll / countFiltered / findAfter）は読み取りモデルが出来ていればそこだけで返す：
+    // 条件は FacetIndex と PaperSearchIndex のビットマップで id に絞り、行は読み取りモデルから引く（SQL 0 本）。
+    // 起動直後の構築中（と bibmanager.read-model.enabled=false）は下の SQL の経路に戻る
     @Override
     public List<PaperRow> findAll(int page, int size, String q, String status, java.util.List<String> tags) {
+        var st = parseStatus(status);
+        var tagList = normTags(tags);
+        if (readModelReady()) return readModel.rows(listIds(q, st, tagList).descIds(null, offset(page, size), size));
         var pr = PageRequest.of(page, size, Sort.by("id").descending());
-        com.example.demo.domain.Paper.Status st = null;
-        if (status != null && !status.isBlank()) st = com.example.demo.domain.Paper.Status.valueOf(status.toUpperCase());
-        List<String> tagList = (tags == null || tags.isEmpty()) ? null
-                : tags.stream().filter(s -> s != null && !s.isBlank())
-                       .map(String::toLowerCase).distinct().toList();
-        return repo.search(q, st, tagList, pr).map(PaperJpaService::row).getContent();
+        long[] hits = matchIds(q);
+        if (hits == null) {
+            return rows(repo.search(q, st, tagList, pr));
+        }
+        if (st == null && tagList == null) {
+            // q だけならインデックスの id 降順リストをそのままページングする
+            int from = (int) Math.min(hits.length, (long) page * size);
+            int to = Math.min(hits.length, from + size);
+            return rowsByIds(Arrays.stream(hits, from, to).boxed().toList());
+        }
+        if (hits.length <= MAX_IN_IDS) {
+            if (hits.length == 0) return List.of();
+            return rows(repo.searchIn(boxed(hits), st, tagList, pr));
+        }
+        return rows(repo.search(q, st, tagList, pr));
     }
 
     @Override
     public long countFiltered(String q, String status, java.util.List<String> tags) {
-    	com.example.demo.domain.Paper.Status st = null;
-        if (status != null && !status.isBlank()) st = com.example.demo.domain.Paper.Status.valueOf(status.toUpperCase());
-        List<String> tagList = (tags == null || tags.isEmpty()) ? null
-                : tags.stream().filter(s -> s != null && !s.isBlank())
-                       .map(String::toLowerCase).distinct().toList();
+        var st = parseStatus(status);
+        var tagList = normTags(tags);
+        // 読み取りモデルからはビットマップの件数を数えるだけなのでキャッシュしない
+        if (readModelReady()) return listIds(q, st, tagList).cardinality();
+        // 件数は (q, status, tags) ごとにキャッシュ。書き込み系がコミットの後に invalidate する
+        return counts.get(q, st == null ? null : st.name(), tagList, () -> countUncached(q, st, tagList));
+    }
+
+    private long countUncached(String q, Paper.Status st, List<String> tagList) {
+        long[] hits = matchIds(q);
+        if (hits == null) return repo.countSearch(q, st, tagList);
+        if (st == null && tagList == null) return hits.length;
+        if (hits.length == 0) return 0;
+        if (hits.length <= MAX_IN_IDS) return repo.countSearchIn(boxed(hits), st, tagList);
         return repo.countSearch(q, st, tagList);
     }
 
     @Override
-    public void delete(Long id) { repo.deleteById(id); }
+    public List<PaperRow> findAfter(Long afterId, int limit, String q, String status, java.util.List<String> tags) {
+        var st = parseStatus(status);
+        var tagList = normTags(tags);
+        if (readModelReady()) return readModel.rows(listIds(q, st, tagList).descIds(afterId, 0, limit));
+        var lim = PageRequest.of(0, limit);
+        long[] hits = matchIds(q);
+        if (hits == null) {
+            return rows(repo.seek(afterId, q, st, tagList, lim));
+        }
+        if (st == null && tagList == null) {
+            // ヒットは id 降順なので afterId 未満の先頭を二分探索してそこから limit 件
+            int from = afterId == null ? 0 : firstBelow(hits, afterId);
+            int to = Math.min(hits.length, from + limit);
+            return rowsByIds(Arrays.stream(hits, from, to).boxed().toList());
+        }
+        if (hits.length <= MAX_IN_IDS) {
+            if (hits.length == 0) return List.of();
+            return rows(repo.seekIn(boxed(hits), afterId, st, tagList, lim));
+        }
+        return rows(repo.seek(afterId, q, st, tagList, lim));
+    }
+
+    @Override
+    public FacetIndex.Facets facets(String q, String status, TagExpr tags, int topTags) {
+        if (!facetIndex.isReady()) throw new IllegalStateException("facet index is not ready");
+        var st = parseStatus(status);
+        return facetIndex.facets(qBits(q), st == null ? null : st.name(), tags, topTags);
+    }
+
+    @Override
+    public PaperService.Slice findByTagExpr(String q, String status, TagExpr tags, Long afterId, int offset, int limit) {
+        if (!facetIndex.isReady()) throw new IllegalStateException("facet index is not ready");
+        var st = parseStatus(status);
+        // paper_tags との join は一切せず、ページ分の id だけを読む
+        var m = facetIndex.matching(qBits(q), st == null ? null : st.name(), tags);
+        var ids = m.descIds(afterId, offset, limit);
+        return new PaperService.Slice(readModel.isReady() ? readModel.rows(ids) : rowsByIds(ids), m.cardinality());
+    }
+
+    @Override
+    public PaperService.Slice findByRelevance(String q, String status, TagExpr tags, int offset, int limit) {
+        if (!facetIndex.isReady() || !index.isReady()) throw new IllegalStateException("search index is not ready");
+        var st = parseStatus(status);
+        // 絞り込みは一覧と同じビットマップ、順位は PaperSearchIndex の BM25。行はページ分だけ読む
+        var m = facetIndex.matching(qBits(q), st == null ? null : st.name(), tags);
+        var ids = index.rank(q, m, offset, limit);
+        return new PaperService.Slice(readModel.isReady() ? readModel.rows(ids) : rowsByIds(ids), m.cardinality());
+    }
+
+    // q のヒットをビットマップに（q なしなら null）。インデックスで引けない q は読み取りモデルを走査するか、SQL で id だけ集める
+    private IdBitmap qBits(String q) {
+        if (q == null || q.isEmpty()) return null;
+        long[] hits = matchIds(q);
+        if (hits != null) return IdBitmap.of(hits);
+        if (readModel.isReady()) return readModel.like(q);
+        return IdBitmap.of(repo.searchIds(q).stream().mapToLong(Long::longValue).toArray());
+    }
+
+    private boolean readModelReady() {
+        return readModel.isReady() && facetIndex.isReady();
+    }
+
+    // 従来の tags（いずれかを含む）はタグ式の OR と同じ
+    private IdBitmap listIds(String q, Paper.Status st, List<String> tagList) {
+        return facetIndex.matching(qBits(q), st == null ? null : st.name(), TagExpr.anyOf(tagList));
+    }
+
+    private static int offset(int page, int size) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) page * size);
+    }
+
+    // 降順配列 desc の中で value 未満になる最初の位置
+    private static int firstBelow(long[] desc, long value) {
+        int lo = 0, hi = desc.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (desc[mid] < value) hi = mid; else lo = mid + 1;
+        }
+        return lo;
+    }
+
+    // q をインデックスで解決できれば id 降順のヒットを返す。できなければ null（SQL の LIKE に任せる）
+    private long[] matchIds(String q) {
+        if (q == null || q.isEmpty() || !index.isReady() || !PaperSearchIndex.supports(q)) return null;
+        return index.match(q);
+    }
+
+    private static List<Long> boxed(long[] ids) {
+        return Arrays.stream(ids).boxed().toList();
+    }
+
+    private static Paper.Status parseStatus(String status) {
+        if (status == null || status.isBlank()) return null;
+        return Paper.Status.valueOf(status.toUpperCase());
+    }
+
+    private static List<String> normTags(List<String> tags) {
+        if (tags == null || tags.isEmpty()) return null;
+        return tags.stream().filter(s -> s != null && !s.isBlank())
+                .map(String::toLowerCase).distinct().toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @BulkheadExempt
+    public void streamFiltered(String q, String status, List<String> tags, Consumer<PaperRow> sink) {
+        var st = parseStatus(status);
+        var tagList = normTags(tags);
+        try (var stream = repo.streamFiltered(q, st, tagList)) {
+            var chunk = new ArrayList<Paper>(EXPORT_CHUNK);
+            var it = stream.iterator();
+            while (it.hasNext()) {
+                chunk.add(it.next());
+                if (chunk.size() == EXPORT_CHUNK) emit(chunk, sink);
+            }
+            if (!chunk.isEmpty()) emit(chunk, sink);
+        }
+    }
+
+    // タグ名はチャンクごとに 1 クエリ。書き出したら永続コンテキストから外してヒープを一定に保つ
+    private void emit(List<Paper> chunk, Consumer<PaperRow> sink) {
+        rows(chunk).forEach(sink);
+        chunk.clear();
+        em.clear();
+    }
 
+    // 1 件の削除はエンティティ経由にして、2 次キャッシュからはこの論文の項目だけを落とす
+    // （一括 DML の bulkDelete は papers / paper-tags の領域を丸ごと捨てる）
     @Override
+    @Transactional
+    public boolean delete(Long id) {
+        return repo.findById(id).map(p -> {
+            repo.delete(p);
+            afterCommit(() -> {
+                indexes.remove(id);
+                counts.invalidate();
+            });
+            return true;
+        }).orElse(false);
+    }
+
+    // 1 トランザクションで読んで（2 次キャッシュにあれば SQL なし）変更を flush する。
+    // @DynamicUpdate + @Version なので、変わった列だけの UPDATE .. where id = ? and version = ? が 1 本。
+    // 値が変わらなければ UPDATE は出ない。同時更新に負けたら ObjectOptimisticLockingFailureException（409）
+    @Override
+    @Transactional
     public Optional<PaperRow> update(Long id, String title, String authors, Integer year, String url) {
         return repo.findById(id).map(old -> {
             if (title   != null) old.setTitle(title);
             if (authors != null) old.setAuthors(authors);
             if (year    != null) old.setPubYear(year);
             if (url     != null) old.setUrl(url);
-            return row(repo.save(old));
+            return written(old);
         });
     }
     
+    @Override
+    @Transactional
     public Optional<PaperRow> setStatus(Long id, String status){
     	return repo.findById(id).map(old -> {
-    		if (status  != null) old.setStatus(com.example.demo.domain.Paper.Status.valueOf(status));
-    		return row(repo.save(old));
+    		if (status  != null) old.setStatus(Paper.Status.valueOf(status));
+    		return written(old);
     	});
     }
-    
+
+    // flush して版の衝突をここで表に出す。repo 経由の flush なので例外は Spring の ObjectOptimisticLockingFailureException に変換される。
+    // 索引と件数キャッシュへの反映はコミットの後（flush の後でもコミットは失敗しうる）。ロールバックした書き込みを索引に残さず、
+    // 件数キャッシュの世代もコミット後に進めるので、並行する countFiltered がコミット前の件数を新しい世代で覚えることもない
+    private PaperRow written(Paper p) {
+        repo.flush();
+        var r = row(p);
+        afterCommit(() -> {
+            indexes.put(r);
+            counts.invalidate();
+        });
+        return r;
+    }
+
     @Override
+    @Transactional
     public Optional<PaperRow> addTag(Long paperId, String tagName) {
         if (tagName == null || tagName.isBlank()) return Optional.empty();
-        String norm = tagName.trim().toLowerCase();
-        return repo.findById(paperId).map(p -> {
-            var tag = tagRepo.findByName(norm).orElseGet(() -> tagRepo.save(
-                    com.example.demo.domain.Tag.builder().name(norm).build()));
-            p.getTags().add(tag);
-            return row(repo.save(p));
+        // 無い論文のためにタグを作らない
+        if (!repo.existsById(paperId)) return Optional.empty();
+        long tagId = tagDict.resolveOrCreate(TagDictionary.normalize(tagName));
+        int n = repo.linkTags(List.of(paperId), List.of(tagId));
+        var r = findById(paperId);
+        afterCommit(() -> {
+            if (n > 0) counts.invalidate();
+            r.ifPresent(indexes::put);
         });
+        return r;
     }
 
     @Override
+    @Transactional
     public Optional<PaperRow> removeTag(Long paperId, String tagName) {
-        if (tagName == null || tagName.isBlank()) return Optional.empty();
-        String norm = tagName.trim().toLowerCase();
-        return repo.findById(paperId).map(p -> {
-            tagRepo.findByName(norm).ifPresent(t -> p.getTags().remove(t));
-            return row(repo.save(p));
+        // 空のタグは外すものが無いだけ（論文が無いときだけ empty）
+        if (tagName == null || tagName.isBlank()) return findById(paperId);
+        var tagId = tagDict.idOf(TagDictionary.normalize(tagName));
+        boolean unlinked = tagId.isPresent() && repo.unlinkTags(List.of(paperId), List.of(tagId.get())) > 0;
+        var r = findById(paperId);
+        afterCommit(() -> {
+            if (unlinked) counts.invalidate();
+            r.ifPresent(indexes::put);
         });
+        return r;
+    }
+
+    @Override
+    @Transactional
+    @BulkheadUnsampled
+    public BulkTagResult bulkTags(Collection<Long> paperIds, List<String> add, List<String> remove) {
+        if (paperIds == null || paperIds.isEmpty()) return new BulkTagResult(0, 0);
+        var addIds = tagIds(add, true);
+        var removeIds = tagIds(remove, false);
+        int linked = addIds.isEmpty() ? 0 : repo.linkTags(paperIds, addIds);
+        int unlinked = removeIds.isEmpty() ? 0 : repo.unlinkTags(paperIds, removeIds);
+        if (linked + unlinked > 0) {
+            // 索引には付け外し後の行を入れ直す
+            reindex(List.copyOf(new LinkedHashSet<>(paperIds)));
+        }
+        return new BulkTagResult(linked, unlinked);
+    }
+
+    @Override
+    public List<Long> matchingIds(String q, String status, TagExpr tags, int limit) {
+        if (!facetIndex.isReady()) throw new IllegalStateException("facet index is not ready");
+        var st = parseStatus(status);
+        return facetIndex.matching(qBits(q), st == null ? null : st.name(), tags).descIds(null, 0, limit);
+    }
+
+    // 1 トランザクションで BULK_CHUNK 件ずつ update .. where id in (..) and status <> ?（1 万件で 10 文）
+    @Override
+    @Transactional
+    @BulkheadUnsampled
+    public BulkResult bulkStatus(Collection<Long> paperIds, String status) {
+        if (paperIds == null || paperIds.isEmpty()) return new BulkResult(0, 0);
+        var st = Paper.Status.valueOf(status);
+        var ids = List.copyOf(new LinkedHashSet<>(paperIds));
+        int updated = 0;
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK) {
+            updated += repo.updateStatus(ids.subList(from, Math.min(ids.size(), from + BULK_CHUNK)), st);
+        }
+        if (updated > 0) reindex(ids);
+        return new BulkResult(ids.size(), updated);
+    }
+
+    @Override
+    @Transactional
+    @BulkheadUnsampled
+    public BulkResult bulkDelete(Collection<Long> paperIds) {
+        if (paperIds == null || paperIds.isEmpty()) return new BulkResult(0, 0);
+        var ids = List.copyOf(new LinkedHashSet<>(paperIds));
+        int deleted = 0;
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK) {
+            deleted += repo.deleteByIds(ids.subList(from, Math.min(ids.size(), from + BULK_CHUNK)));
+        }
+        if (deleted > 0) {
+            afterCommit(() -> {
+                ids.forEach(indexes::remove);
+                counts.invalidate();
+            });
+        }
+        return new BulkResult(ids.size(), deleted);
+    }
+
+    @Override
+    public List<Duplicate> possibleDuplicates(long id, int limit) {
+        if (!duplicates.isReady()) throw new IllegalStateException("duplicate index is not ready");
+        return withRows(List.of(duplicates.similarTo(id, limit))).get(0);
+    }
+
+    @Override
+    @BulkheadUnsampled
+    public List<List<Duplicate>> duplicateClusters(int limit) {
+        if (!duplicates.isReady()) throw new IllegalStateException("duplicate index is not ready");
+        return withRows(duplicates.clusters(limit));
+    }
+
+    // 索引の一致に行を付ける。全まとまりの id を EXPORT_CHUNK 件ずつまとめて読み、消えていた論文は落とす
+    private List<List<Duplicate>> withRows(List<List<NearDuplicateIndex.Match>> groups) {
+        var ids = groups.stream().flatMap(List::stream).map(NearDuplicateIndex.Match::id).distinct().toList();
+        var byId = new HashMap<Long, PaperRow>();
+        for (int from = 0; from < ids.size(); from += EXPORT_CHUNK) {
+            rowsByIds(ids.subList(from, Math.min(ids.size(), from + EXPORT_CHUNK))).forEach(r -> byId.put(r.id(), r));
+        }
+        return groups.stream()
+                .map(g -> g.stream().filter(m -> byId.containsKey(m.id()))
+                        .map(m -> new Duplicate(byId.get(m.id()), m.similarity())).toList())
+                .toList();
+    }
+
+    // 一括変更後の行をトランザクション内で読み直し（チャンクごとに 2 クエリ）、コミット後に索引へ入れる
+    private void reindex(List<Long> ids) {
+        var changed = new ArrayList<PaperRow>(ids.size());
+        for (int from = 0; from < ids.size(); from += EXPORT_CHUNK) {
+            changed.addAll(rowsByIds(ids.subList(from, Math.min(ids.size(), from + EXPORT_CHUNK))));
+            em.clear();
+        }
+        afterCommit(() -> {
+            changed.forEach(indexes::put);
+            counts.invalidate();
+        });
+    }
+
+    private List<Long> tagIds(List<String> names, boolean create) {
+        if (names == null) return List.of();
+        return names.stream()
+                .filter(s -> s != null && !s.isBlank())
+                .map(TagDictionary::normalize).distinct()
+                .map(n -> create ? Optional.of(tagDict.resolveOrCreate(n)) : tagDict.idOf(n))
+                .flatMap(Optional::stream)
+                .toList();
     }
 }
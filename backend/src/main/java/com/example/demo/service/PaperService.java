@@ -6,6 +6,12 @@ import java.util.Optional;
 public interface PaperService {
 	
 	record PaperRow(Long id, String title, String authors, Integer year, String url, long createdAt, String status, java.util.List<String> tags) {};
+	record BulkTagResult(int linked, int unlinked) {};
+	// requested は重複を除いた対象 id の数、affected は実際に変わった（消えた）論文の数
+	record BulkResult(int requested, int affected) {};
+	record Slice(List<PaperRow> rows, long total) {};
+	// similarity はタイトル・著者から推定した Jaccard 類似度（0〜1）
+	record Duplicate(PaperRow paper, double similarity) {};
 	
 	PaperRow create(String title, String authors, Integer year, String url);
 	Optional<PaperRow> findById(Long id);
@@ -13,9 +19,34 @@ public interface PaperService {
 	List<PaperRow> findAll(int page, int size);
 	List<PaperRow> findAll(int page, int size, String q, String status, java.util.List<String> tags);
 	long countFiltered(String q, String status, java.util.List<String> tags);
-	void delete(Long id);
+	// 一覧と同じ条件でのファセット件数（status / 上位 topTags 件のタグ / 出版年）
+	com.example.demo.service.index.FacetIndex.Facets facets(String q, String status, com.example.demo.service.index.TagExpr tags, int topTags);
+	// タグ式（AND / OR / NOT）での一覧。索引のビットマップで絞り込み、id 降順で afterId より後ろ（null なら先頭）から
+	// offset 件飛ばして最大 limit 件と、条件に合う総件数を返す。索引の構築前は IllegalStateException
+	Slice findByTagExpr(String q, String status, com.example.demo.service.index.TagExpr tags, Long afterId, int offset, int limit);
+	// q との関連度（title / authors の BM25）の高い順の一覧。絞り込みは findByTagExpr と同じで、offset 件飛ばして最大 limit 件と総件数を返す。
+	// 同点は id 降順。q は空でないこと。索引の構築前は IllegalStateException
+	Slice findByRelevance(String q, String status, com.example.demo.service.index.TagExpr tags, int offset, int limit);
+	// keyset ページング：id が afterId より小さいものを id 降順で最大 limit 件（afterId=null なら先頭から）
+	List<PaperRow> findAfter(Long afterId, int limit, String q, String status, java.util.List<String> tags);
+	// エクスポート用：条件に合う全件を id 降順で 1 件ずつ sink に渡す（全件をメモリに載せない）
+	void streamFiltered(String q, String status, java.util.List<String> tags, java.util.function.Consumer<PaperRow> sink);
+	// 消したら true、無ければ false
+	boolean delete(Long id);
 	Optional<PaperRow> update(Long id, String title, String authors, Integer year, String url);
 	Optional<PaperRow> setStatus(Long id, String status);
 	java.util.Optional<PaperRow> addTag(Long paperId, String tagName);
 	java.util.Optional<PaperRow> removeTag(Long paperId, String tagName);
+	// 複数論文 × 複数タグをまとめて付け外し（存在しない id は無視）。張った／外した paper_tags の行数を返す
+	BulkTagResult bulkTags(java.util.Collection<Long> paperIds, java.util.List<String> add, java.util.List<String> remove);
+	// 一括操作の対象を一覧と同じ条件で選ぶ。id 降順で最大 limit 件。索引の構築前は IllegalStateException
+	List<Long> matchingIds(String q, String status, com.example.demo.service.index.TagExpr tags, int limit);
+	// 複数論文の status をまとめて変える（存在しない id・既にその status の論文は数えない）
+	BulkResult bulkStatus(java.util.Collection<Long> paperIds, String status);
+	// 複数論文をまとめて削除する（存在しない id は無視）
+	BulkResult bulkDelete(java.util.Collection<Long> paperIds);
+	// タイトル・著者がほぼ同じ論文（自分は除く）を似ている順に最大 limit 件。索引の構築前は IllegalStateException
+	List<Duplicate> possibleDuplicates(long id, int limit);
+	// ライブラリ全体の重複のまとまりを大きい順に最大 limit 個（各まとまりは一番古い論文が先頭）。索引の構築前は IllegalStateException
+	List<List<Duplicate>> duplicateClusters(int limit);
 }
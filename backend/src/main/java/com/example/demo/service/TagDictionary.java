@@ -0,0 +1,80 @@
+package com.example.demo.service;
+
+import static com.example.demo.service.TransactionHooks.afterCommit;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.repository.TagRepository;
+
+/**
+ * タグ名（小文字）→ tags.id の辞書。タグの語彙は小さく読み取り中心なので全件メモリに持つ。
+ * 起動時に全件ロードし、新規作成時に追記する。タグは削除されない前提。
+ * 新規タグは呼び出し側のトランザクションで insert .. on conflict do nothing してから id を引くので、
+ * 同じタグを同時に作っても uq_tags_name 違反にならない（後の方は先の方のコミットを待って同じ id を読む）。
+ * 辞書に載せるのはコミットの後。ロールバックで消えたタグの id は残らない。
+ */
+@Component
+@Profile("!inmemory")
+public class TagDictionary {
+
+	private static final Logger log = LoggerFactory.getLogger(TagDictionary.class);
+
+	private final Map<String, Long> ids = new ConcurrentHashMap<>();
+	private final TagRepository tagRepo;
+
+	public TagDictionary(TagRepository tagRepo) {
+		this.tagRepo = tagRepo;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void warm() {
+		tagRepo.findAll().forEach(t -> ids.put(t.getName(), t.getId()));
+		log.info("tag dictionary warmed: {} tags", ids.size());
+	}
+
+	public static String normalize(String name) {
+		return name.trim().toLowerCase();
+	}
+
+	/** 辞書に載っていれば id、無ければ null（DB は見ない） */
+	public Long cachedId(String norm) {
+		return ids.get(norm);
+	}
+
+	/** 既存タグの id。辞書に無ければ DB を 1 回だけ見る */
+	public Optional<Long> idOf(String norm) {
+		var id = ids.get(norm);
+		if (id != null) return Optional.of(id);
+		return tagRepo.findByName(norm).map(t -> {
+			ids.putIfAbsent(t.getName(), t.getId());
+			return t.getId();
+		});
+	}
+
+	/**
+	 * 無ければ呼び出し側のトランザクションで作って id を返す。
+	 * DB を触る間は辞書のロックを持たない（同じ名前を同時に作るときの待ちは DB の一意索引に任せる）。
+	 */
+	public long resolveOrCreate(String norm) {
+		var id = ids.get(norm);
+		if (id != null) return id;
+		tagRepo.insertIfAbsent(norm);
+		long created = tagRepo.findByName(norm).orElseThrow().getId();
+		afterCommit(() -> ids.putIfAbsent(norm, created));
+		return created;
+	}
+
+	/** 辞書を通さずに作られたタグ（一括取り込みなど）を登録する */
+	public void remember(String norm, long id) {
+		ids.putIfAbsent(norm, id);
+	}
+}
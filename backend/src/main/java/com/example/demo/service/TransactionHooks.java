@@ -0,0 +1,27 @@
+package com.example.demo.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/** トランザクションのコミット後に回す処理（PaperJpaService の索引反映、TagDictionary の辞書登録） */
+final class TransactionHooks {
+
+	private TransactionHooks() {}
+
+	/**
+	 * 今のトランザクションがコミットした後に run する（トランザクション外なら今すぐ）。ロールバックしたら呼ばない。
+	 * コミット後は DB を読まない（必要な値はトランザクション内で読んでおく）。
+	 */
+	static void afterCommit(Runnable run) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					run.run();
+				}
+			});
+		} else {
+			run.run();
+		}
+	}
+}
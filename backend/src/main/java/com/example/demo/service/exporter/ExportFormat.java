@@ -0,0 +1,30 @@
+package com.example.demo.service.exporter;
+
+import java.util.Locale;
+
+public enum ExportFormat {
+	BIBTEX("application/x-bibtex", "bib"),
+	NDJSON("application/x-ndjson", "ndjson"),
+	CSV("text/csv", "csv");
+
+	private final String contentType;
+	private final String extension;
+
+	ExportFormat(String contentType, String extension) {
+		this.contentType = contentType;
+		this.extension = extension;
+	}
+
+	public String contentType() { return contentType; }
+	public String extension() { return extension; }
+
+	/** 不明な名前なら null */
+	public static ExportFormat of(String name) {
+		if (name == null) return null;
+		try {
+			return valueOf(name.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException ex) {
+			return null;
+		}
+	}
+}
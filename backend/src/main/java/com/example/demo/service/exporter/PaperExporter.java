@@ -0,0 +1,46 @@
+package com.example.demo.service.exporter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.example.demo.service.PaperService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 絞り込み条件に合う論文を全件、指定形式で OutputStream へ流す。
+ * 行は PaperService#streamFiltered から 1 件ずつ受け取るので、ライブラリの大きさによらずヒープは一定。
+ */
+@Component
+public class PaperExporter {
+
+	private final PaperService svc;
+	private final ObjectMapper mapper;
+	public PaperExporter(PaperService svc, ObjectMapper mapper) {
+		this.svc = svc;
+		this.mapper = mapper;
+	}
+
+	/** 書いた件数を返す */
+	public long export(ExportFormat format, String q, String status, List<String> tags, OutputStream out) throws IOException {
+		var writer = RowWriter.of(format, out, mapper);
+		long[] n = {0};
+		try {
+			svc.streamFiltered(q, status, tags, r -> {
+				try {
+					writer.write(r);
+					n[0]++;
+				} catch (IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+			});
+		} catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+		writer.finish();
+		return n[0];
+	}
+}
@@ -0,0 +1,159 @@
+package com.example.demo.service.exporter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+
+import com.example.demo.service.PaperService.PaperRow;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * エクスポート 1 行ずつの書き出し。行を貯めずにそのまま OutputStream へ流す。
+ */
+interface RowWriter {
+
+	void write(PaperRow r) throws IOException;
+
+	void finish() throws IOException;
+
+	static RowWriter of(ExportFormat format, OutputStream out, ObjectMapper mapper) throws IOException {
+		return switch (format) {
+			case NDJSON -> new Ndjson(out, mapper);
+			case CSV -> new Csv(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+			case BIBTEX -> new Bibtex(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		};
+	}
+
+	/** GET /api/papers の PaperRes と同じ形の JSON を 1 行 1 件で */
+	final class Ndjson implements RowWriter {
+		private final JsonGenerator gen;
+
+		Ndjson(OutputStream out, ObjectMapper mapper) throws IOException {
+			this.gen = mapper.getFactory().createGenerator(out);
+			gen.setRootValueSeparator(null);
+		}
+
+		@Override
+		public void write(PaperRow r) throws IOException {
+			gen.writeStartObject();
+			gen.writeNumberField("id", r.id());
+			gen.writeStringField("title", r.title());
+			gen.writeStringField("authors", r.authors());
+			if (r.year() == null) gen.writeNullField("year"); else gen.writeNumberField("year", r.year());
+			gen.writeStringField("url", r.url());
+			gen.writeNumberField("createdAt", r.createdAt());
+			gen.writeStringField("status", r.status());
+			gen.writeArrayFieldStart("tags");
+			for (var t : r.tags()) gen.writeString(t);
+			gen.writeEndArray();
+			gen.writeEndObject();
+			gen.writeRaw('\n');
+		}
+
+		@Override
+		public void finish() throws IOException { gen.flush(); }
+	}
+
+	/** RFC 4180。tags は ';' 区切りで 1 列に */
+	final class Csv implements RowWriter {
+		private final Writer w;
+
+		Csv(Writer w) throws IOException {
+			this.w = w;
+			w.write("id,title,authors,year,url,createdAt,status,tags\r\n");
+		}
+
+		@Override
+		public void write(PaperRow r) throws IOException {
+			w.write(String.valueOf(r.id())); w.write(',');
+			field(r.title()); w.write(',');
+			field(r.authors()); w.write(',');
+			if (r.year() != null) w.write(String.valueOf(r.year()));
+			w.write(',');
+			field(r.url()); w.write(',');
+			w.write(String.valueOf(r.createdAt())); w.write(',');
+			w.write(r.status()); w.write(',');
+			field(String.join(";", r.tags()));
+			w.write("\r\n");
+		}
+
+		private void field(String v) throws IOException {
+			if (v == null) return;
+			if (v.indexOf(',') < 0 && v.indexOf('"') < 0 && v.indexOf('\n') < 0 && v.indexOf('\r') < 0) {
+				w.write(v);
+				return;
+			}
+			w.write('"');
+			w.write(v.replace("\"", "\"\""));
+			w.write('"');
+		}
+
+		@Override
+		public void finish() throws IOException { w.flush(); }
+	}
+
+	/**
+	 * POST /api/papers/import の BibTeX 取り込みで読み戻せる形（tags → keywords）。
+	 * 文字列は LaTeX の特殊文字をエスケープし、波括弧は値の中で必ず釣り合うようにする（BibTeX は \{ も数える）。
+	 * url は逐語扱い（biblatex の verbatim フィールド）で、値を壊す \ { } だけを %XX にする。
+	 */
+	final class Bibtex implements RowWriter {
+		private final Writer w;
+
+		Bibtex(Writer w) { this.w = w; }
+
+		@Override
+		public void write(PaperRow r) throws IOException {
+			w.write("@misc{paper" + r.id() + ",\n");
+			field("title", r.title());
+			field("author", r.authors());
+			if (r.year() != null) w.write("  year = " + r.year() + ",\n");
+			if (r.url() != null) w.write("  url = {" + url(r.url()) + "},\n");
+			if (!r.tags().isEmpty()) field("keywords", String.join(", ", r.tags()));
+			w.write("}\n\n");
+		}
+
+		private void field(String name, String v) throws IOException {
+			if (v == null) return;
+			w.write("  " + name + " = {" + text(v) + "},\n");
+		}
+
+		// 対になる { } は \{ \} に、対にならないものは \textbraceleft{} / \textbraceright{} にする
+		private static String text(String v) {
+			var paired = new boolean[v.length()];
+			var open = new ArrayDeque<Integer>();
+			for (int i = 0; i < v.length(); i++) {
+				char c = v.charAt(i);
+				if (c == '{') open.push(i);
+				else if (c == '}' && !open.isEmpty()) {
+					paired[open.pop()] = true;
+					paired[i] = true;
+				}
+			}
+			var sb = new StringBuilder(v.length() + 16);
+			for (int i = 0; i < v.length(); i++) {
+				char c = v.charAt(i);
+				switch (c) {
+					case '{' -> sb.append(paired[i] ? "\\{" : "\\textbraceleft{}");
+					case '}' -> sb.append(paired[i] ? "\\}" : "\\textbraceright{}");
+					case '\\' -> sb.append("\\textbackslash{}");
+					case '~' -> sb.append("\\textasciitilde{}");
+					case '&', '%', '$', '#', '_' -> sb.append('\\').append(c);
+					default -> sb.append(c);
+				}
+			}
+			return sb.toString();
+		}
+
+		private static String url(String v) {
+			return v.replace("\\", "%5C").replace("{", "%7B").replace("}", "%7D");
+		}
+
+		@Override
+		public void finish() throws IOException { w.flush(); }
+	}
+}
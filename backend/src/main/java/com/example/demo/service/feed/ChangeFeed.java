@@ -0,0 +1,256 @@
+package com.example.demo.service.feed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.service.PaperService.PaperRow;
+import com.example.demo.service.index.PaperIndex;
+
+/**
+ * 論文の変更を通し番号付きで配る変更フィード（GET /api/papers/changes の SSE の中身）。
+ * PaperIndexes に繋がっているので、どちらの PaperService 実装の書き込みも put / remove で届く
+ * （トランザクション内の書き込みはコミットの後なので、ロールバックした変更は流れない）。
+ * 論文ごとに内容の指紋（title〜url・タグ・status）だけを持ち、前回と比べて
+ * created / updated / status / tags / deleted のどれかに分ける（何も変わっていない put は流さない）。
+ * 直近 history 件は輪に残し、再接続したクライアントは最後に受け取った番号の続きから受け取れる。
+ * 購読者ごとの未送信分は論文 id ごとに 1 件にまとめ（遅い購読者でも溜まるのは変わった論文の数まで）、
+ * それでも buffer 件を超えたら捨てて reset を 1 件送る（クライアントは一覧を読み直す）。
+ */
+@Component
+public class ChangeFeed implements PaperIndex {
+
+	public enum Type {
+		CREATED("created"), UPDATED("updated"), STATUS("status"), TAGS("tags"), DELETED("deleted"), RESET("reset");
+
+		private final String eventName;
+
+		Type(String eventName) {
+			this.eventName = eventName;
+		}
+
+		/** SSE の event 名（data の type も同じ）。クライアントはこの名前で受けるので、定数名を変えても変えない */
+		public String eventName() { return eventName; }
+	}
+
+	/** paper は deleted / reset では null。status / tags も行全体を持つ（まとめたときに updated にできるように） */
+	public record Change(long seq, Type type, long id, PaperRow paper) {}
+
+	private static final List<String> STATUSES = List.of("UNREAD", "READING", "DONE");
+
+	private final int historySize;
+	private final int bufferSize;
+	private final int maxSubscribers;
+	private final Change[] history;
+	// 通し番号は起動時刻（マイクロ秒）から始める。再起動前の番号で再接続されても、輪より古いので reset になる
+	private final long firstSeq = System.currentTimeMillis() * 1000;
+	private long seq = firstSeq;
+	private final Object publishLock = new Object();
+	private final CopyOnWriteArrayList<Subscription> subscribers = new CopyOnWriteArrayList<>();
+
+	// 論文 id ごとの指紋（0 は未登録）。書き込みは publishLock 内
+	private long[] fields = new long[1024];
+	private int[] tagHashes = new int[1024];
+	private byte[] statuses = new byte[1024];
+	private volatile boolean ready;
+
+	public ChangeFeed(@Value("${bibmanager.changes.history:10000}") int historySize,
+	                  @Value("${bibmanager.changes.buffer:1000}") int bufferSize,
+	                  @Value("${bibmanager.changes.max-subscribers:200}") int maxSubscribers) {
+		this.historySize = historySize;
+		this.bufferSize = bufferSize;
+		this.maxSubscribers = maxSubscribers;
+		this.history = new Change[historySize];
+	}
+
+	@Override
+	public boolean isReady() { return ready; }
+
+	@Override
+	public void markReady() { ready = true; }
+
+	@Override
+	public boolean announcesChanges() { return true; }
+
+	// 起動時の再構築（clear → 全件 put）では指紋を覚えるだけで何も流さない
+	@Override
+	public void clear() {
+		synchronized (publishLock) {
+			ready = false;
+			fields = new long[1024];
+			tagHashes = new int[1024];
+			statuses = new byte[1024];
+		}
+	}
+
+	@Override
+	public void put(PaperRow row) {
+		int id = Math.toIntExact(row.id());
+		long f = fieldsHash(row);
+		int t = row.tags().hashCode();
+		byte s = (byte) (STATUSES.indexOf(row.status()) + 1);
+		Type type;
+		synchronized (publishLock) {
+			grow(id);
+			long oldF = fields[id];
+			int oldT = tagHashes[id];
+			byte oldS = statuses[id];
+			fields[id] = f;
+			tagHashes[id] = t;
+			statuses[id] = s;
+			if (oldF == 0) type = Type.CREATED;
+			else if (oldF != f) type = Type.UPDATED;
+			else if (oldT != t && oldS != s) type = Type.UPDATED;
+			else if (oldT != t) type = Type.TAGS;
+			else if (oldS != s) type = Type.STATUS;
+			else return;
+		}
+		if (ready) publish(type, row.id(), row);
+	}
+
+	@Override
+	public void remove(long id) {
+		int key = Math.toIntExact(id);
+		synchronized (publishLock) {
+			if (key >= fields.length || fields[key] == 0) return;
+			fields[key] = 0;
+			tagHashes[key] = 0;
+			statuses[key] = 0;
+		}
+		if (ready) publish(Type.DELETED, id, null);
+	}
+
+	/**
+	 * 購読を始める。since があればそれより後の変更から（輪に残っていなければ最初に reset）。
+	 * 購読者が max-subscribers に達していれば null。使い終わったら close する。
+	 */
+	public Subscription subscribe(Long since) {
+		synchronized (publishLock) {
+			if (subscribers.size() >= maxSubscribers) return null;
+			var sub = new Subscription(seq);
+			if (since != null) {
+				long oldest = Math.max(firstSeq, seq - historySize);
+				if (since < oldest || since > seq) {
+					sub.overflow(seq);
+				} else {
+					for (long s = since + 1; s <= seq; s++) sub.offer(history[(int) (s % historySize)]);
+				}
+			}
+			subscribers.add(sub);
+			return sub;
+		}
+	}
+
+	public int subscriberCount() { return subscribers.size(); }
+
+	/** 今の通し番号（最後に配った変更の番号） */
+	public long lastSeq() {
+		synchronized (publishLock) { return seq; }
+	}
+
+	// 番号の割り当てと全購読者への受け渡しを 1 つのロックで行うので、どの購読者にも番号順に届く
+	private void publish(Type type, long id, PaperRow row) {
+		synchronized (publishLock) {
+			var c = new Change(++seq, type, id, row);
+			history[(int) (c.seq() % historySize)] = c;
+			for (var sub : subscribers) sub.offer(c);
+		}
+	}
+
+	private void grow(int id) {
+		if (id < fields.length) return;
+		int n = Math.max(id + 1, fields.length + (fields.length >> 1));
+		fields = Arrays.copyOf(fields, n);
+		tagHashes = Arrays.copyOf(tagHashes, n);
+		statuses = Arrays.copyOf(statuses, n);
+	}
+
+	// 0 は「未登録」に使うので最下位ビットを立てる
+	private static long fieldsHash(PaperRow r) {
+		long h = Objects.hashCode(r.title());
+		h = h * 0x9e3779b97f4a7c15L + Objects.hashCode(r.authors());
+		h = h * 0x9e3779b97f4a7c15L + Objects.hashCode(r.year());
+		h = h * 0x9e3779b97f4a7c15L + Objects.hashCode(r.url());
+		return h | 1;
+	}
+
+	/**
+	 * 1 購読者ぶんの未送信の変更。送る側（SSE のスレッド）は poll で待ってまとめて受け取る。
+	 * 同じ論文の変更は 1 件にまとめて末尾に付け直すので、受け取る番号は常に増えていく。
+	 */
+	public final class Subscription implements AutoCloseable {
+
+		private final LinkedHashMap<Long, Change> pending = new LinkedHashMap<>();
+		private final ReentrantLock lock = new ReentrantLock();
+		private final Condition changed = lock.newCondition();
+		private boolean overflow;
+		// 溢れた時点の番号（reset の番号にする）
+		private long overflowSeq;
+		private final long startSeq;
+
+		private Subscription(long startSeq) {
+			this.startSeq = startSeq;
+		}
+
+		/** 購読を始めた時点の番号（since なしで繋いだクライアントはここから続きを受け取る） */
+		public long startSeq() { return startSeq; }
+
+		private void overflow(long at) {
+			pending.clear();
+			overflow = true;
+			overflowSeq = at;
+		}
+
+		// publishLock 内で呼ぶ
+		private void offer(Change c) {
+			lock.lock();
+			try {
+				if (overflow) return;
+				var prev = pending.remove(c.id());
+				pending.put(c.id(), prev == null ? c : merge(prev, c));
+				if (pending.size() > bufferSize) overflow(c.seq());
+				changed.signal();
+			} finally { lock.unlock(); }
+		}
+
+		/** 変更が来るまで最大 timeoutMs 待ち、溜まっている分を番号順に返す（来なければ空）。溢れていたら reset 1 件 */
+		public List<Change> poll(long timeoutMs) throws InterruptedException {
+			lock.lock();
+			try {
+				long nanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+				while (!overflow && pending.isEmpty()) {
+					if (nanos <= 0) return List.of();
+					nanos = changed.awaitNanos(nanos);
+				}
+				if (overflow) {
+					overflow = false;
+					return List.of(new Change(overflowSeq, Type.RESET, 0, null));
+				}
+				var out = new ArrayList<>(pending.values());
+				pending.clear();
+				return out;
+			} finally { lock.unlock(); }
+		}
+
+		@Override
+		public void close() {
+			subscribers.remove(this);
+		}
+	}
+
+	// 作成の後の変更は作成のまま（行は新しい方）、削除は削除、種類が違えば行ごとの updated
+	private static Change merge(Change prev, Change next) {
+		if (next.type() == Type.DELETED || prev.type() == next.type()) return next;
+		if (prev.type() == Type.CREATED) return new Change(next.seq(), Type.CREATED, next.id(), next.paper());
+		return new Change(next.seq(), Type.UPDATED, next.id(), next.paper());
+	}
+}
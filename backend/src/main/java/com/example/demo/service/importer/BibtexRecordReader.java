@@ -0,0 +1,249 @@
+package com.example.demo.service.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BibTeX を 1 エントリずつ読むストリーミングパーサ。
+ * title / author / year / url（無ければ doi）/ keywords（→ tags）を拾う。@string マクロは展開しない。
+ * 壊れたエントリは次の '@' まで読み飛ばして続行する。エントリの外の文章は（'@' を含んでいても）コメントとして読み飛ばす。
+ */
+public class BibtexRecordReader implements RecordReader {
+
+	// 1 フィールドの上限（巨大な abstract などでメモリを食わないように）
+	private static final int MAX_VALUE = 64 * 1024;
+	private static final Pattern YEAR = Pattern.compile("\\d{4}");
+	// 括弧が無ければ壊れたエントリとして数える型（それ以外の @word は地の文として読み飛ばす）
+	private static final Set<String> ENTRY_TYPES = Set.of("article", "book", "booklet", "conference", "inbook",
+			"incollection", "inproceedings", "manual", "mastersthesis", "misc", "online", "phdthesis",
+			"proceedings", "report", "techreport", "thesis", "unpublished");
+	// 逐語に近いフィールド（url / doi）。エスケープだけ戻し、括弧と ~ はそのまま
+	private static final Set<String> VERBATIM = Set.of("url", "doi");
+	// RowWriter.Bibtex が書く記号のマクロ（後ろの {} は任意）
+	private static final Map<String, Character> SYMBOLS = Map.of(
+			"textbackslash", '\\', "textbraceleft", '{', "textbraceright", '}', "textasciitilde", '~');
+
+	private final Reader in;
+	private int peeked = -2;
+	private long seq;
+
+	public BibtexRecordReader(Reader in) {
+		this.in = in;
+	}
+
+	@Override
+	public ImportRecord next() throws IOException {
+		while (true) {
+			if (!skipTo('@')) return null;
+			read(); // '@'
+			String type = readWord().toLowerCase(Locale.ROOT);
+			skipWs();
+			int open = peek();
+			if (open != '{' && open != '(') {
+				// エントリの間の文章に出てくる '@'（メールアドレスなど）はエントリではないので数えずに飛ばす。
+				// 括弧は読まずに残すので、直後の '@' から次のエントリを読める
+				if (!ENTRY_TYPES.contains(type)) continue;
+				seq++;
+				throw new RecordException(seq, null, "expected '{' after @" + type);
+			}
+			read();
+			int close = open == '{' ? '}' : ')';
+			if (type.equals("comment") || type.equals("preamble") || type.equals("string")) {
+				skipBalanced(open, close);
+				continue;
+			}
+			seq++;
+			return readEntry(close);
+		}
+	}
+
+	private ImportRecord readEntry(int close) throws IOException {
+		String key = null;
+		Map<String, String> fields = new HashMap<>();
+		try {
+			key = readUntil(',', close).trim();
+			int c = read();
+			while (c == ',') {
+				skipWs();
+				if (peek() == close) { read(); break; }
+				String name = readWord().toLowerCase(Locale.ROOT);
+				skipWs();
+				if (name.isEmpty() || read() != '=') throw new RecordException(seq, key, "expected 'name = value'");
+				fields.put(name, clean(readValue(close), VERBATIM.contains(name)));
+				skipWs();
+				c = read();
+			}
+			if (c != ',' && c != close) throw new RecordException(seq, key, "unterminated entry");
+		} catch (RecordException ex) {
+			// 次のエントリの '@' まで飛ばしてから投げる
+			skipTo('@');
+			throw new RecordException(seq, key, ex.getMessage());
+		}
+
+		// author は "A and B and C" のまま入れる（authors は自由記述の列なので）
+		String authors = fields.get("author");
+		Integer year = null;
+		if (fields.containsKey("year")) {
+			Matcher m = YEAR.matcher(fields.get("year"));
+			if (!m.find()) throw new RecordException(seq, key, "year is not a number: " + fields.get("year"));
+			year = Integer.valueOf(m.group());
+		}
+		String url = fields.get("url");
+		if (url == null && fields.get("doi") != null) url = "https://doi.org/" + fields.get("doi");
+		List<String> tags = new ArrayList<>();
+		if (fields.get("keywords") != null) for (var t : fields.get("keywords").split("[,;]")) tags.add(t);
+		return new ImportRecord(seq, key, fields.get("title"), authors, year, url, null, tags);
+	}
+
+	// value = part ( '#' part )*  part は {...} / "..." / 裸の単語・数字
+	private String readValue(int close) throws IOException {
+		var sb = new StringBuilder();
+		while (true) {
+			skipWs();
+			int c = peek();
+			if (c == '{') {
+				read();
+				readBraced(sb);
+			} else if (c == '"') {
+				read();
+				readQuoted(sb);
+			} else {
+				String w = readBare(close);
+				if (w.isEmpty()) throw new RecordException(seq, null, "missing value");
+				sb.append(w);
+			}
+			skipWs();
+			if (peek() != '#') break;
+			read();
+		}
+		return sb.toString();
+	}
+
+	private void readBraced(StringBuilder sb) throws IOException {
+		int depth = 1;
+		while (true) {
+			int c = read();
+			if (c < 0) throw new RecordException(seq, null, "unexpected end of input");
+			if (c == '{') depth++;
+			else if (c == '}' && --depth == 0) return;
+			append(sb, c);
+		}
+	}
+
+	private void readQuoted(StringBuilder sb) throws IOException {
+		int depth = 0;
+		while (true) {
+			int c = read();
+			if (c < 0) throw new RecordException(seq, null, "unexpected end of input");
+			if (c == '{') depth++;
+			else if (c == '}') depth--;
+			else if (c == '"' && depth == 0) return;
+			append(sb, c);
+		}
+	}
+
+	private String readBare(int close) throws IOException {
+		var sb = new StringBuilder();
+		int c;
+		while ((c = peek()) >= 0 && c != ',' && c != close && c != '#' && !Character.isWhitespace(c)) {
+			append(sb, read());
+		}
+		return sb.toString();
+	}
+
+	private void append(StringBuilder sb, int c) {
+		if (sb.length() >= MAX_VALUE) throw new RecordException(seq, null, "field value too long");
+		sb.append((char) c);
+	}
+
+	/**
+	 * LaTeX の \& \% \$ \# \_ \{ \} と SYMBOLS のマクロを文字に戻す。
+	 * verbatim でなければ、エスケープされていない { } を落とし、~ を空白にして、空白をまとめる。
+	 */
+	private static String clean(String v, boolean verbatim) {
+		var sb = new StringBuilder(v.length());
+		for (int i = 0; i < v.length(); i++) {
+			char c = v.charAt(i);
+			if (c == '\\' && i + 1 < v.length()) {
+				char n = v.charAt(i + 1);
+				if ("&%$#_{}".indexOf(n) >= 0) {
+					sb.append(n);
+					i++;
+					continue;
+				}
+				int end = i + 1;
+				while (end < v.length() && Character.isLetter(v.charAt(end))) end++;
+				var sym = SYMBOLS.get(v.substring(i + 1, end));
+				if (sym != null) {
+					sb.append(sym.charValue());
+					i = v.startsWith("{}", end) ? end + 1 : end - 1;
+					continue;
+				}
+			}
+			if (verbatim) sb.append(c);
+			else if (c == '~') sb.append(' ');
+			else if (c != '{' && c != '}') sb.append(c);
+		}
+		return verbatim ? sb.toString().trim() : sb.toString().replaceAll("\\s+", " ").trim();
+	}
+
+	private String readWord() throws IOException {
+		var sb = new StringBuilder();
+		int c;
+		while ((c = peek()) >= 0 && (Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == ':' || c == '.')) {
+			sb.append((char) read());
+		}
+		return sb.toString();
+	}
+
+	private String readUntil(int a, int b) throws IOException {
+		var sb = new StringBuilder();
+		int c;
+		while ((c = peek()) >= 0 && c != a && c != b) {
+			if (sb.length() >= MAX_VALUE) throw new RecordException(seq, null, "citation key too long");
+			sb.append((char) read());
+		}
+		return sb.toString();
+	}
+
+	private void skipBalanced(int open, int close) throws IOException {
+		int depth = 1, c;
+		while (depth > 0 && (c = read()) >= 0) {
+			if (c == open) depth++;
+			else if (c == close) depth--;
+		}
+	}
+
+	/** target の直前まで進める。見つからなければ false */
+	private boolean skipTo(int target) throws IOException {
+		int c;
+		while ((c = peek()) >= 0) {
+			if (c == target) return true;
+			read();
+		}
+		return false;
+	}
+
+	private void skipWs() throws IOException {
+		while (peek() >= 0 && Character.isWhitespace(peek())) read();
+	}
+
+	private int peek() throws IOException {
+		if (peeked == -2) peeked = in.read();
+		return peeked;
+	}
+
+	private int read() throws IOException {
+		int c = peek();
+		peeked = -2;
+		return c;
+	}
+}
@@ -0,0 +1,17 @@
+package com.example.demo.service.importer;
+
+import java.util.List;
+
+/**
+ * 取り込み 1 件分。seq は入力中の通し番号（1 始まり）、key は BibTeX の引用キー（NDJSON では null）。
+ */
+public record ImportRecord(
+		long seq,
+		String key,
+		String title,
+		String authors,
+		Integer year,
+		String url,
+		String status,
+		List<String> tags
+) {}
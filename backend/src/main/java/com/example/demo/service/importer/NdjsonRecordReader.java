@@ -0,0 +1,70 @@
+package com.example.demo.service.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 1 行 1 JSON オブジェクト。フィールドは POST /api/papers と同じ
+ * (title, authors, year, url) に加えて status と tags（配列かカンマ区切り文字列）。
+ */
+public class NdjsonRecordReader implements RecordReader {
+
+	private final BufferedReader in;
+	private final ObjectMapper mapper;
+	private long seq;
+
+	public NdjsonRecordReader(BufferedReader in, ObjectMapper mapper) {
+		this.in = in;
+		this.mapper = mapper;
+	}
+
+	@Override
+	public ImportRecord next() throws IOException {
+		String line;
+		do {
+			line = in.readLine();
+			if (line == null) return null;
+		} while (line.isBlank());
+		seq++;
+
+		JsonNode n;
+		try {
+			n = mapper.readTree(line);
+		} catch (JsonProcessingException ex) {
+			throw new RecordException(seq, null, "malformed JSON: " + ex.getOriginalMessage());
+		}
+		if (!n.isObject()) throw new RecordException(seq, null, "expected a JSON object");
+
+		Integer year = null;
+		var y = n.get("year");
+		if (y != null && !y.isNull()) {
+			if (!y.canConvertToInt() && !y.isTextual()) throw new RecordException(seq, null, "year must be an integer");
+			try {
+				year = y.isTextual() ? Integer.valueOf(y.asText().trim()) : y.asInt();
+			} catch (NumberFormatException ex) {
+				throw new RecordException(seq, null, "year must be an integer");
+			}
+		}
+		return new ImportRecord(seq, null, text(n, "title"), text(n, "authors"), year,
+				text(n, "url"), text(n, "status"), tags(n.get("tags")));
+	}
+
+	private static String text(JsonNode n, String field) {
+		var v = n.get(field);
+		return v == null || v.isNull() ? null : v.asText();
+	}
+
+	private static List<String> tags(JsonNode v) {
+		if (v == null || v.isNull()) return List.of();
+		var out = new ArrayList<String>();
+		if (v.isArray()) v.forEach(t -> out.add(t.asText()));
+		else for (var t : v.asText().split(",")) out.add(t);
+		return out;
+	}
+}
@@ -0,0 +1,252 @@
+package com.example.demo.service.importer;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.service.CountCache;
+import com.example.demo.service.PaperService.PaperRow;
+import com.example.demo.service.TagDictionary;
+import com.example.demo.service.index.PaperIndexes;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * 一括取り込み。RecordReader から流れてくるレコードを batch-size 件ずつ貯め、
+ * papers / tags / paper_tags を JDBC バッチで書く（1 バッチ 1 トランザクション）。
+ * papers.id は IDENTITY なので Hibernate ではバッチにならない。ここでは生成キーを
+ * executeBatch 後にまとめて受け取る。
+ */
+@Service
+@Profile("!inmemory")
+public class PaperImportService {
+
+	private static final Logger log = LoggerFactory.getLogger(PaperImportService.class);
+
+	// エラーレポートに載せる上限（これ以上は件数だけ数える）
+	private static final int MAX_ERRORS = 1000;
+	private static final Set<String> STATUSES = Set.of("UNREAD", "READING", "DONE");
+
+	public record ImportError(long seq, String key, String message) {}
+
+	public record ImportReport(
+			long records,
+			long imported,
+			long failed,
+			List<ImportError> errors,
+			boolean errorsTruncated,
+			long elapsedMs,
+			double recordsPerSec
+	) {}
+
+	private final JdbcTemplate jdbc;
+	private final TransactionTemplate tx;
+	private final PaperIndexes indexes;
+	private final CountCache counts;
+	private final TagDictionary tagDict;
+	private final EntityManagerFactory emf;
+	private final int batchSize;
+
+	public PaperImportService(JdbcTemplate jdbc, PlatformTransactionManager txm, PaperIndexes indexes,
+	                          CountCache counts, TagDictionary tagDict, EntityManagerFactory emf,
+	                          @Value("${bibmanager.import.batch-size:1000}") int batchSize) {
+		this.jdbc = jdbc;
+		this.tx = new TransactionTemplate(txm);
+		this.indexes = indexes;
+		this.counts = counts;
+		this.tagDict = tagDict;
+		this.emf = emf;
+		this.batchSize = batchSize;
+	}
+
+	public ImportReport importAll(RecordReader reader) throws IOException {
+		long t0 = System.nanoTime();
+		var errors = new ArrayList<ImportError>();
+		long[] failed = {0};
+		long records = 0, imported = 0;
+		var batch = new ArrayList<ImportRecord>(batchSize);
+
+		while (true) {
+			ImportRecord r;
+			try {
+				r = reader.next();
+			} catch (RecordReader.RecordException ex) {
+				records++;
+				fail(errors, failed, ex.seq(), ex.key(), ex.getMessage());
+				continue;
+			}
+			if (r == null) break;
+			records++;
+			String problem = validate(r);
+			if (problem != null) {
+				fail(errors, failed, r.seq(), r.key(), problem);
+				continue;
+			}
+			batch.add(r);
+			if (batch.size() >= batchSize) {
+				imported += flush(batch, errors, failed);
+				batch.clear();
+			}
+		}
+		if (!batch.isEmpty()) imported += flush(batch, errors, failed);
+
+		long ms = (System.nanoTime() - t0) / 1_000_000;
+		double rps = ms == 0 ? imported : imported * 1000.0 / ms;
+		log.info("import finished: {} records, {} imported, {} failed in {} ms ({} records/s)",
+				records, imported, failed[0], ms, String.format("%.0f", rps));
+		return new ImportReport(records, imported, failed[0], errors, failed[0] > errors.size(), ms, rps);
+	}
+
+	private static void fail(List<ImportError> errors, long[] failed, long seq, String key, String message) {
+		failed[0]++;
+		if (errors.size() < MAX_ERRORS) errors.add(new ImportError(seq, key, message));
+	}
+
+	// PaperController の入力チェックと DB の列長に合わせる
+	private static String validate(ImportRecord r) {
+		if (r.title() == null || r.title().isBlank()) return "title is required";
+		if (r.title().length() > 400) return "title must be at most 400 characters";
+		if (r.authors() != null && r.authors().length() > 800) return "authors must be at most 800 characters";
+		if (r.year() != null && (r.year() < 1900 || r.year() > 2100)) return "year must be between 1900 and 2100";
+		if (r.url() != null && r.url().length() > 500) return "url must be at most 500 characters";
+		if (r.status() != null && !STATUSES.contains(r.status().trim().toUpperCase(Locale.ROOT)))
+			return "status must be one of " + STATUSES;
+		for (var t : r.tags()) if (t != null && t.trim().length() > 64) return "tag must be at most 64 characters: " + t;
+		return null;
+	}
+
+	/**
+	 * 1 トランザクションで書き、書けた件数を返す。DB エラーでロールバックしたら半分ずつに割って書き直し、
+	 * 1 件でも通らないレコードだけを失敗にする（1 件の不正な行でバッチ全体を落とさない）。
+	 */
+	private int flush(List<ImportRecord> batch, List<ImportError> errors, long[] failed) {
+		Written w;
+		try {
+			w = tx.execute(s -> write(batch));
+		} catch (DataAccessException ex) {
+			// 接続が切れたなど行に依らない失敗は、割っても通らないのでまとめて失敗にする
+			boolean perRow = !(ex instanceof DataAccessResourceFailureException || ex instanceof TransientDataAccessResourceException);
+			if (perRow && batch.size() > 1) {
+				int mid = batch.size() / 2;
+				return flush(batch.subList(0, mid), errors, failed) + flush(batch.subList(mid, batch.size()), errors, failed);
+			}
+			for (var r : batch) fail(errors, failed, r.seq(), r.key(), "database error: " + ex.getMostSpecificCause().getMessage());
+			return 0;
+		}
+		for (int i = 0; i < batch.size(); i++) indexes.put(toRow(w.ids()[i], batch.get(i), w.createdAt()));
+		w.newTags().forEach(tagDict::remember);
+		// 索引に入れたバッチから件数とクエリキャッシュにも見せる（取り込み中も一覧と件数がずれない）。
+		// JDBC で直接書いたので Hibernate はクエリキャッシュの無効化を知らない
+		// （新しい行だけなのでエンティティのキャッシュは古くならない）
+		counts.invalidate();
+		emf.getCache().unwrap(Cache.class).evictQueryRegions();
+		return batch.size();
+	}
+
+	// 書いた内容を PaperJpaService と同じ形の行にする（索引への反映用）
+	private static PaperRow toRow(long id, ImportRecord r, long createdAt) {
+		var tags = r.tags().stream().filter(t -> t != null && !t.isBlank())
+				.map(TagDictionary::normalize).distinct().sorted().toList();
+		String st = r.status() == null ? "UNREAD" : r.status().trim().toUpperCase(Locale.ROOT);
+		return new PaperRow(id, r.title().trim(), r.authors(), r.year(), r.url(), createdAt, st, tags);
+	}
+
+	// papers の採番結果と、このバッチで新しく辞書に載せるタグ（コミット後に登録する）
+	private record Written(long[] ids, Map<String, Long> newTags, long createdAt) {}
+
+	private Written write(List<ImportRecord> batch) {
+		var created = LocalDateTime.now();
+		var now = Timestamp.valueOf(created);
+		long createdAt = created.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+		long[] ids = jdbc.execute((ConnectionCallback<long[]>) con -> {
+			try (PreparedStatement ps = con.prepareStatement(
+					"insert into papers(title, authors, pub_year, url, created_at, status) values (?, ?, ?, ?, ?, ?)",
+					new String[] {"id"})) {
+				for (var r : batch) {
+					ps.setString(1, r.title().trim());
+					ps.setString(2, r.authors());
+					if (r.year() == null) ps.setNull(3, Types.INTEGER); else ps.setInt(3, r.year());
+					ps.setString(4, r.url());
+					ps.setTimestamp(5, now);
+					ps.setString(6, r.status() == null ? "UNREAD" : r.status().trim().toUpperCase(Locale.ROOT));
+					ps.addBatch();
+				}
+				ps.executeBatch();
+				long[] out = new long[batch.size()];
+				try (var keys = ps.getGeneratedKeys()) {
+					int i = 0;
+					while (keys.next()) out[i++] = keys.getLong(1);
+					if (i != out.length) throw new IllegalStateException("generated keys: expected " + out.length + " got " + i);
+				}
+				return out;
+			}
+		});
+
+		// タグ：バッチ内の名前をまとめて作成（既存は無視）→ id を引いて paper_tags をバッチ挿入
+		var names = new LinkedHashSet<String>();
+		var perPaper = new ArrayList<Set<String>>(batch.size());
+		for (var r : batch) {
+			var set = new LinkedHashSet<String>();
+			for (var t : r.tags()) {
+				if (t == null || t.isBlank()) continue;
+				set.add(TagDictionary.normalize(t));
+			}
+			perPaper.add(set);
+			names.addAll(set);
+		}
+		if (names.isEmpty()) return new Written(ids, Map.of(), createdAt);
+
+		// 辞書に載っているタグは DB を見ない
+		Map<String, Long> tagIds = new HashMap<>();
+		Map<String, Long> newTags = new HashMap<>();
+		var nameList = new ArrayList<String>();
+		for (var name : names) {
+			var known = tagDict.cachedId(name);
+			if (known != null) tagIds.put(name, known); else nameList.add(name);
+		}
+		if (!nameList.isEmpty()) jdbc.batchUpdate("insert into tags(name) values (?) on conflict do nothing", nameList, nameList.size(),
+				(ps, name) -> ps.setString(1, name));
+		for (int from = 0; from < nameList.size(); from += 500) {
+			var part = nameList.subList(from, Math.min(nameList.size(), from + 500));
+			String in = String.join(",", Collections.nCopies(part.size(), "?"));
+			jdbc.query("select id, name from tags where name in (" + in + ")",
+					rs -> {
+						tagIds.put(rs.getString(2), rs.getLong(1));
+						newTags.put(rs.getString(2), rs.getLong(1));
+					}, part.toArray());
+		}
+
+		var links = new ArrayList<long[]>();
+		for (int i = 0; i < batch.size(); i++) {
+			for (var name : perPaper.get(i)) links.add(new long[] {ids[i], tagIds.get(name)});
+		}
+		jdbc.batchUpdate("insert into paper_tags(paper_id, tag_id) values (?, ?)", links, links.size(),
+				(ps, l) -> { ps.setLong(1, l[0]); ps.setLong(2, l[1]); });
+		return new Written(ids, newTags, createdAt);
+	}
+}
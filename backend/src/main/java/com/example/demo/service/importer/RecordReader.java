@@ -0,0 +1,27 @@
+package com.example.demo.service.importer;
+
+import java.io.IOException;
+
+/**
+ * 入力ストリームから 1 件ずつ読み出すパーサ。全体をメモリに載せない。
+ */
+public interface RecordReader {
+
+	/** 次のレコード。終端なら null。壊れたレコードは読み飛ばしたうえで {@link RecordException} を投げる */
+	ImportRecord next() throws IOException;
+
+	/** 1 件分のパースに失敗した（ストリームは次のレコードの手前まで進んでいる） */
+	class RecordException extends RuntimeException {
+		private final long seq;
+		private final String key;
+
+		public RecordException(long seq, String key, String message) {
+			super(message);
+			this.seq = seq;
+			this.key = key;
+		}
+
+		public long seq() { return seq; }
+		public String key() { return key; }
+	}
+}
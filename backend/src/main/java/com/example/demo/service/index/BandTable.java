@@ -0,0 +1,82 @@
+package com.example.demo.service.index;
+
+import java.util.function.IntConsumer;
+
+/**
+ * LSH のバンド 1 本ぶんの表（バンド値 → 論文ID の多重マップ）。
+ * 100 万件で数百万エントリになるので、箱詰めの HashMap ではなく int[] 2 本の開番地法（線形探索）で持つ。
+ * 負荷率は 3/4 まで、削除は墓標を置いて再ハッシュ時に掃除する。スレッドセーフではない（呼び出し側のロックで守る）。
+ */
+final class BandTable {
+
+	// ids の 0 は空き、-1 は削除済み（論文ID は 1 以上）
+	private static final int EMPTY = 0;
+	private static final int TOMBSTONE = -1;
+
+	private int[] keys = new int[16];
+	private int[] ids = new int[16];
+	private int live;
+	private int used;
+
+	void add(int key, int id) {
+		if ((used + 1) * 4 > keys.length * 3) rehash(live * 2 > keys.length ? keys.length * 2 : keys.length);
+		int mask = keys.length - 1;
+		int i = slot(key, mask);
+		while (ids[i] > 0) i = (i + 1) & mask;
+		if (ids[i] == EMPTY) used++;
+		keys[i] = key;
+		ids[i] = id;
+		live++;
+	}
+
+	void remove(int key, int id) {
+		int mask = keys.length - 1;
+		for (int i = slot(key, mask); ids[i] != EMPTY; i = (i + 1) & mask) {
+			if (ids[i] == id && keys[i] == key) {
+				ids[i] = TOMBSTONE;
+				live--;
+				return;
+			}
+		}
+	}
+
+	/** key を持つ論文ID を全部 sink に渡す */
+	void forEach(int key, IntConsumer sink) {
+		int mask = keys.length - 1;
+		for (int i = slot(key, mask); ids[i] != EMPTY; i = (i + 1) & mask) {
+			if (ids[i] > 0 && keys[i] == key) sink.accept(ids[i]);
+		}
+	}
+
+	/** 全エントリを (key << 32 | id) で返す。並べ替えると同じバンド値の論文が隣り合う */
+	long[] entries() {
+		long[] out = new long[live];
+		int n = 0;
+		for (int i = 0; i < ids.length; i++) {
+			if (ids[i] > 0) out[n++] = (long) keys[i] << 32 | ids[i];
+		}
+		return out;
+	}
+
+	int size() { return live; }
+
+	void clear() {
+		keys = new int[16];
+		ids = new int[16];
+		live = used = 0;
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = keys, oldIds = ids;
+		keys = new int[capacity];
+		ids = new int[capacity];
+		live = used = 0;
+		for (int i = 0; i < oldIds.length; i++) {
+			if (oldIds[i] > 0) add(oldKeys[i], oldIds[i]);
+		}
+	}
+
+	private static int slot(int key, int mask) {
+		return (int) MinHash.mix(key) & mask;
+	}
+}
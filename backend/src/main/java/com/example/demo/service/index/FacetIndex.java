@@ -0,0 +1,212 @@
+package com.example.demo.service.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import com.example.demo.service.PaperService.PaperRow;
+
+/**
+ * 一覧の横に出すファセット（status / タグ / 出版年）用の索引。
+ * 値ごとに論文IDの IdBitmap を持ち、絞り込み結果のビットマップとの積の件数で数える。
+ * 件数は値の種類ぶんの andCardinality だけで出るので、ヒット件数が多くても行を読まない。
+ */
+@Component
+public class FacetIndex implements PaperIndex {
+
+	public record TagCount(String tag, long count) {}
+
+	/** years は年の昇順。出版年が空の論文は unknownYear に数える */
+	public record Facets(long total, Map<String, Long> status, List<TagCount> tags, Map<Integer, Long> years, long unknownYear) {}
+
+	private static final List<String> STATUSES = List.of("UNREAD", "READING", "DONE");
+
+	private record Doc(String status, Integer year, List<String> tags) {}
+
+	private final Map<Integer, Doc> docs = new HashMap<>();
+	private final IdBitmap all = new IdBitmap();
+	private final IdBitmap noYear = new IdBitmap();
+	private final Map<String, IdBitmap> byStatus = new HashMap<>();
+	private final Map<String, IdBitmap> byTag = new HashMap<>();
+	private final Map<Integer, IdBitmap> byYear = new HashMap<>();
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private volatile boolean ready;
+	// 絞り込みなしの matching が返す all の読み取り専用コピー。書き込みで捨て、次に要るとき 1 回だけ作る
+	private volatile IdBitmap allSnapshot;
+
+	@Override
+	public boolean isReady() { return ready; }
+
+	@Override
+	public void markReady() { ready = true; }
+
+	@Override
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			ready = false;
+			allSnapshot = null;
+			docs.clear();
+			all.clear();
+			noYear.clear();
+			byStatus.clear();
+			byTag.clear();
+			byYear.clear();
+		} finally { lock.writeLock().unlock(); }
+	}
+
+	@Override
+	public void put(PaperRow row) {
+		int id = Math.toIntExact(row.id());
+		var doc = new Doc(row.status(), row.year(), row.tags());
+		lock.writeLock().lock();
+		try {
+			var old = docs.put(id, doc);
+			if (doc.equals(old)) return;
+			allSnapshot = null;
+			if (old != null) unindex(id, old);
+			all.add(id);
+			bits(byStatus, doc.status()).add(id);
+			if (doc.year() == null) noYear.add(id); else bits(byYear, doc.year()).add(id);
+			for (var t : doc.tags()) bits(byTag, t).add(id);
+		} finally { lock.writeLock().unlock(); }
+	}
+
+	@Override
+	public void remove(long id) {
+		int key = Math.toIntExact(id);
+		lock.writeLock().lock();
+		try {
+			var old = docs.remove(key);
+			if (old != null) {
+				allSnapshot = null;
+				unindex(key, old);
+			}
+		} finally { lock.writeLock().unlock(); }
+	}
+
+	/**
+	 * 一覧と同じ条件に合う ID 集合。qHits は q の一致結果（q なしなら null）、
+	 * status は大文字、tags はタグ式（null なら絞らない）。返すビットマップは読み取り専用のことがある（変更しないこと）。
+	 */
+	public IdBitmap matching(IdBitmap qHits, String status, TagExpr tags) {
+		lock.readLock().lock();
+		try {
+			return matchingLocked(qHits, status, tags);
+		} finally { lock.readLock().unlock(); }
+	}
+
+	public Facets facets(IdBitmap qHits, String status, TagExpr tags, int topTags) {
+		lock.readLock().lock();
+		try {
+			boolean unfiltered = qHits == null && status == null && tags == null;
+			IdBitmap m = unfiltered ? all : matchingLocked(qHits, status, tags);
+
+			var st = new LinkedHashMap<String, Long>();
+			for (var s : STATUSES) st.put(s, count(m, byStatus.get(s), unfiltered));
+
+			var years = new TreeMap<Integer, Long>();
+			for (var e : byYear.entrySet()) {
+				long n = count(m, e.getValue(), unfiltered);
+				if (n > 0) years.put(e.getKey(), n);
+			}
+
+			// 上位 topTags 件だけ残す（件数の多い順、同数はタグ名順）
+			Comparator<TagCount> order = Comparator.comparingLong(TagCount::count).reversed().thenComparing(TagCount::tag);
+			var heap = new PriorityQueue<TagCount>(order.reversed());
+			if (topTags > 0) {
+				for (var e : byTag.entrySet()) {
+					long n = count(m, e.getValue(), unfiltered);
+					if (n == 0) continue;
+					var tc = new TagCount(e.getKey(), n);
+					if (heap.size() < topTags) heap.add(tc);
+					else if (order.compare(tc, heap.peek()) < 0) { heap.poll(); heap.add(tc); }
+				}
+			}
+			var top = new ArrayList<>(heap);
+			top.sort(order);
+
+			return new Facets(m.cardinality(), st, top, years, count(m, noYear, unfiltered));
+		} finally { lock.readLock().unlock(); }
+	}
+
+	private IdBitmap matchingLocked(IdBitmap qHits, String status, TagExpr tags) {
+		IdBitmap m = qHits != null ? IdBitmap.and(qHits, all) : all;
+		if (status != null) m = IdBitmap.and(m, byStatus.getOrDefault(status, new IdBitmap()));
+		if (tags != null) m = within(m, tags);
+		// all そのものはロックの外に出さない。絞り込みなしの一覧は書き込みまで同じ読み取り専用コピーを共有する
+		return m == all ? allSnapshot() : m;
+	}
+
+	// 読み取りロック内で呼ぶ。同時に作られても中身は同じなので、どちらを残してもよい
+	private IdBitmap allSnapshot() {
+		var s = allSnapshot;
+		if (s == null) allSnapshot = s = all.readOnlyCopy();
+		return s;
+	}
+
+	/**
+	 * 集合 m の中で式 e を満たすもの。NOT は m からの差で取るので全件の補集合は作らない。
+	 * AND は件数の少ないタグから順に掛けて途中の集合を小さく保ち、空になったら打ち切る。
+	 */
+	private IdBitmap within(IdBitmap m, TagExpr e) {
+		return switch (e) {
+			case TagExpr.Tag t -> IdBitmap.and(m, tagBits(t));
+			case TagExpr.Not n -> IdBitmap.andNot(m, n.term() instanceof TagExpr.Tag t ? tagBits(t) : within(m, n.term()));
+			case TagExpr.Or o -> {
+				var out = new IdBitmap();
+				for (var term : o.terms()) out = IdBitmap.or(out, within(m, term));
+				yield out;
+			}
+			case TagExpr.And a -> {
+				var cur = m;
+				for (var term : a.terms().stream().sorted(Comparator.comparingLong(this::estimate)).toList()) {
+					if (cur.isEmpty()) break;
+					cur = within(cur, term);
+				}
+				yield cur;
+			}
+		};
+	}
+
+	// AND の評価順を決めるための件数の目安（NOT と OR は後回し）
+	private long estimate(TagExpr e) {
+		return e instanceof TagExpr.Tag t ? tagBits(t).cardinality() : Long.MAX_VALUE;
+	}
+
+	private IdBitmap tagBits(TagExpr.Tag t) {
+		var b = byTag.get(t.name());
+		return b != null ? b : new IdBitmap();
+	}
+
+	private static long count(IdBitmap m, IdBitmap b, boolean unfiltered) {
+		if (b == null) return 0;
+		return unfiltered ? b.cardinality() : IdBitmap.andCardinality(m, b);
+	}
+
+	private void unindex(int id, Doc old) {
+		all.remove(id);
+		drop(byStatus, old.status(), id);
+		if (old.year() == null) noYear.remove(id); else drop(byYear, old.year(), id);
+		for (var t : old.tags()) drop(byTag, t, id);
+	}
+
+	private static <K> IdBitmap bits(Map<K, IdBitmap> map, K key) {
+		return map.computeIfAbsent(key, k -> new IdBitmap());
+	}
+
+	private static <K> void drop(Map<K, IdBitmap> map, K key, int id) {
+		var b = map.get(key);
+		if (b == null) return;
+		b.remove(id);
+		if (b.isEmpty()) map.remove(key);
+	}
+}
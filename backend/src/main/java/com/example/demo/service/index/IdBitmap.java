@@ -0,0 +1,428 @@
+package com.example.demo.service.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * 論文IDの圧縮ビットマップ（Roaring 方式）。
+ * ID の上位 16bit ごとにコンテナを分け、中身が疎なら short のソート済み配列、
+ * 4096 件を超えたら 65536bit の long[1024] に切り替える。
+ * and / or / andNot は新しいビットマップを返す。スレッドセーフではない（呼び出し側のロックで守る）。
+ */
+public final class IdBitmap {
+
+	private static final int ARRAY_MAX = 4096;
+
+	// keys[i] が上位 16bit、containers[i] がその下位 16bit の集合（char[] か long[]）
+	private char[] keys = new char[4];
+	private Object[] containers = new Object[4];
+	private int[] cards = new int[4];
+	private int size;
+	private boolean readOnly;
+
+	/**
+	 * 順不同・重複ありの ID から作る。1 件ずつ add すると降順の入力（索引の一致結果）で
+	 * 配列コンテナの先頭挿入が続いて O(n^2) になるので、昇順に並べてからコンテナごとにまとめて作る。
+	 */
+	public static IdBitmap of(long... ids) {
+		// コンテナの並び（上位 16bit を符号なしで比べる）と合わせるため、符号ビットを反転して並べる
+		int[] v = new int[ids.length];
+		boolean asc = true, desc = true;
+		for (int k = 0; k < v.length; k++) {
+			v[k] = Math.toIntExact(ids[k]) ^ Integer.MIN_VALUE;
+			if (k > 0 && v[k] < v[k - 1]) asc = false;
+			if (k > 0 && v[k] > v[k - 1]) desc = false;
+		}
+		if (!asc) {
+			if (desc) {
+				for (int i = 0, j = v.length - 1; i < j; i++, j--) { int t = v[i]; v[i] = v[j]; v[j] = t; }
+			} else {
+				Arrays.sort(v);
+			}
+		}
+
+		var b = new IdBitmap();
+		int k = 0;
+		while (k < v.length) {
+			int hi = (v[k] ^ Integer.MIN_VALUE) >>> 16;
+			int end = k;
+			while (end < v.length && (v[end] ^ Integer.MIN_VALUE) >>> 16 == hi) end++;
+			if (end - k <= ARRAY_MAX) {
+				char[] arr = new char[end - k];
+				int n = 0;
+				for (int i = k; i < end; i++) {
+					char lo = (char) v[i];
+					if (n == 0 || arr[n - 1] != lo) arr[n++] = lo;
+				}
+				b.appendContainer((char) hi, arr, n);
+			} else {
+				long[] bits = new long[1024];
+				for (int i = k; i < end; i++) bits[(char) v[i] >>> 6] |= 1L << v[i];
+				int card = 0;
+				for (long w : bits) card += Long.bitCount(w);
+				b.appendContainer((char) hi, card <= ARRAY_MAX ? toArray(bits, card) : bits, card);
+			}
+			k = end;
+		}
+		return b;
+	}
+
+	/** 読み取り専用のコピー。ロックの外へ渡して共有するスナップショット用（add / remove / clear は例外） */
+	public IdBitmap readOnlyCopy() {
+		var b = copy();
+		b.readOnly = true;
+		return b;
+	}
+
+	public boolean add(int id) {
+		checkWritable();
+		char hi = (char) (id >>> 16), lo = (char) id;
+		int i = find(hi);
+		if (i < 0) {
+			i = -i - 1;
+			insertContainer(i, hi, new char[] {lo}, 1);
+			return true;
+		}
+		if (containers[i] instanceof long[] bits) {
+			long mask = 1L << lo;
+			if ((bits[lo >>> 6] & mask) != 0) return false;
+			bits[lo >>> 6] |= mask;
+			cards[i]++;
+			return true;
+		}
+		char[] arr = (char[]) containers[i];
+		int n = cards[i];
+		int pos = Arrays.binarySearch(arr, 0, n, lo);
+		if (pos >= 0) return false;
+		if (n == ARRAY_MAX) {
+			var bits = toBits(arr, n);
+			bits[lo >>> 6] |= 1L << lo;
+			containers[i] = bits;
+			cards[i]++;
+			return true;
+		}
+		int ins = -pos - 1;
+		if (n == arr.length) containers[i] = arr = Arrays.copyOf(arr, Math.min(ARRAY_MAX, n * 2));
+		System.arraycopy(arr, ins, arr, ins + 1, n - ins);
+		arr[ins] = lo;
+		cards[i]++;
+		return true;
+	}
+
+	public boolean remove(int id) {
+		checkWritable();
+		char hi = (char) (id >>> 16), lo = (char) id;
+		int i = find(hi);
+		if (i < 0) return false;
+		if (containers[i] instanceof long[] bits) {
+			long mask = 1L << lo;
+			if ((bits[lo >>> 6] & mask) == 0) return false;
+			bits[lo >>> 6] &= ~mask;
+			if (--cards[i] <= ARRAY_MAX) containers[i] = toArray(bits, cards[i]);
+		} else {
+			char[] arr = (char[]) containers[i];
+			int pos = Arrays.binarySearch(arr, 0, cards[i], lo);
+			if (pos < 0) return false;
+			System.arraycopy(arr, pos + 1, arr, pos, cards[i] - pos - 1);
+			cards[i]--;
+		}
+		if (cards[i] == 0) removeContainer(i);
+		return true;
+	}
+
+	public boolean contains(int id) {
+		int i = find((char) (id >>> 16));
+		if (i < 0) return false;
+		char lo = (char) id;
+		if (containers[i] instanceof long[] bits) return (bits[lo >>> 6] & (1L << lo)) != 0;
+		return Arrays.binarySearch((char[]) containers[i], 0, cards[i], lo) >= 0;
+	}
+
+	public long cardinality() {
+		long n = 0;
+		for (int i = 0; i < size; i++) n += cards[i];
+		return n;
+	}
+
+	public boolean isEmpty() { return size == 0; }
+
+	public void clear() {
+		checkWritable();
+		keys = new char[4];
+		containers = new Object[4];
+		cards = new int[4];
+		size = 0;
+	}
+
+	public IdBitmap copy() {
+		var b = new IdBitmap();
+		b.keys = Arrays.copyOf(keys, Math.max(4, size));
+		b.containers = new Object[b.keys.length];
+		b.cards = Arrays.copyOf(cards, b.keys.length);
+		b.size = size;
+		for (int i = 0; i < size; i++) b.containers[i] = cloneContainer(containers[i], cards[i]);
+		return b;
+	}
+
+	public static IdBitmap and(IdBitmap a, IdBitmap b) {
+		var out = new IdBitmap();
+		int i = 0, j = 0;
+		while (i < a.size && j < b.size) {
+			if (a.keys[i] < b.keys[j]) i++;
+			else if (a.keys[i] > b.keys[j]) j++;
+			else {
+				if (a.containers[i] instanceof char[] x && b.containers[j] instanceof char[] y) {
+					// 疎同士はビット列に広げずにマージで積を取る
+					char[] c = new char[Math.min(a.cards[i], b.cards[j])];
+					int n = 0, p = 0, q = 0;
+					while (p < a.cards[i] && q < b.cards[j]) {
+						if (x[p] < y[q]) p++;
+						else if (x[p] > y[q]) q++;
+						else { c[n++] = x[p]; p++; q++; }
+					}
+					if (n > 0) out.appendContainer(a.keys[i], c, n);
+				} else {
+					out.appendBits(a.keys[i], andBits(a.bitsOf(i), b.bitsOf(j)));
+				}
+				i++; j++;
+			}
+		}
+		return out;
+	}
+
+	public static IdBitmap or(IdBitmap a, IdBitmap b) {
+		var out = new IdBitmap();
+		int i = 0, j = 0;
+		while (i < a.size || j < b.size) {
+			if (j >= b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+				out.appendContainer(a.keys[i], cloneContainer(a.containers[i], a.cards[i]), a.cards[i]);
+				i++;
+			} else if (i >= a.size || a.keys[i] > b.keys[j]) {
+				out.appendContainer(b.keys[j], cloneContainer(b.containers[j], b.cards[j]), b.cards[j]);
+				j++;
+			} else {
+				long[] x = a.bitsOf(i), y = b.bitsOf(j);
+				long[] bits = new long[1024];
+				for (int k = 0; k < 1024; k++) bits[k] = x[k] | y[k];
+				out.appendBits(a.keys[i], bits);
+				i++; j++;
+			}
+		}
+		return out;
+	}
+
+	public static IdBitmap andNot(IdBitmap a, IdBitmap b) {
+		var out = new IdBitmap();
+		int j = 0;
+		for (int i = 0; i < a.size; i++) {
+			while (j < b.size && b.keys[j] < a.keys[i]) j++;
+			if (j < b.size && b.keys[j] == a.keys[i]) {
+				long[] x = a.bitsOf(i), y = b.bitsOf(j);
+				long[] bits = new long[1024];
+				for (int k = 0; k < 1024; k++) bits[k] = x[k] & ~y[k];
+				out.appendBits(a.keys[i], bits);
+			} else {
+				out.appendContainer(a.keys[i], cloneContainer(a.containers[i], a.cards[i]), a.cards[i]);
+			}
+		}
+		return out;
+	}
+
+	/** |a ∩ b| を、結果のビットマップを作らずに数える */
+	public static long andCardinality(IdBitmap a, IdBitmap b) {
+		long n = 0;
+		int i = 0, j = 0;
+		while (i < a.size && j < b.size) {
+			if (a.keys[i] < b.keys[j]) i++;
+			else if (a.keys[i] > b.keys[j]) j++;
+			else {
+				Object x = a.containers[i], y = b.containers[j];
+				if (x instanceof long[] bx && y instanceof long[] by) {
+					for (int k = 0; k < 1024; k++) n += Long.bitCount(bx[k] & by[k]);
+				} else if (x instanceof char[] ax && y instanceof char[] ay) {
+					n += intersectCount(ax, a.cards[i], ay, b.cards[j]);
+				} else {
+					char[] arr = x instanceof char[] c ? c : (char[]) y;
+					int cnt = x instanceof char[] ? a.cards[i] : b.cards[j];
+					long[] bits = x instanceof long[] l ? l : (long[]) y;
+					for (int k = 0; k < cnt; k++) if ((bits[arr[k] >>> 6] & (1L << arr[k])) != 0) n++;
+				}
+				i++; j++;
+			}
+		}
+		return n;
+	}
+
+	/** 昇順の全 ID */
+	public int[] toArray() {
+		int[] out = new int[Math.toIntExact(cardinality())];
+		int[] pos = {0};
+		forEach(id -> { out[pos[0]++] = id; return true; });
+		return out;
+	}
+
+	/** 昇順に渡す。consumer が false を返したら打ち切る */
+	public void forEach(IntPredicate consumer) {
+		for (int i = 0; i < size; i++) {
+			int base = keys[i] << 16;
+			if (containers[i] instanceof long[] bits) {
+				for (int w = 0; w < 1024; w++) {
+					long word = bits[w];
+					while (word != 0) {
+						int bit = Long.numberOfTrailingZeros(word);
+						if (!consumer.test(base | (w << 6) | bit)) return;
+						word &= word - 1;
+					}
+				}
+			} else {
+				char[] arr = (char[]) containers[i];
+				for (int k = 0; k < cards[i]; k++) if (!consumer.test(base | arr[k])) return;
+			}
+		}
+	}
+
+	/** 降順（新しい ID から）に渡す。consumer が false を返したら打ち切る */
+	public void forEachDesc(IntPredicate consumer) {
+		for (int i = size - 1; i >= 0; i--) {
+			if (!forEachDescIn(i, Long.MAX_VALUE, consumer)) return;
+		}
+	}
+
+	/**
+	 * 一覧のページ分の ID を降順で。before があればそれより小さい ID だけ（keyset）、
+	 * そこから offset 件飛ばして最大 limit 件。before より大きいコンテナは丸ごと飛ばす。
+	 */
+	public List<Long> descIds(Long before, int offset, int limit) {
+		var out = new ArrayList<Long>(Math.min(limit, 1024));
+		if (limit <= 0) return out;
+		int[] skip = {offset};
+		IntPredicate take = id -> {
+			if (skip[0] > 0) { skip[0]--; return true; }
+			out.add((long) id);
+			return out.size() < limit;
+		};
+		if (before == null) {
+			forEachDesc(take);
+		} else if (before > 0) {
+			long hi = before >>> 16;
+			for (int i = size - 1; i >= 0; i--) {
+				if (keys[i] > hi) continue;
+				if (!forEachDescIn(i, before, take)) break;
+			}
+		}
+		return out;
+	}
+
+	// ---- 内部 ----
+
+	// コンテナ i の中で bound 未満の ID を降順に渡す。打ち切られたら false
+	private boolean forEachDescIn(int i, long bound, IntPredicate consumer) {
+		int base = keys[i] << 16;
+		if (containers[i] instanceof long[] bits) {
+			for (int w = 1023; w >= 0; w--) {
+				long word = bits[w];
+				while (word != 0) {
+					int bit = 63 - Long.numberOfLeadingZeros(word);
+					int id = base | (w << 6) | bit;
+					if (id < bound && !consumer.test(id)) return false;
+					word &= ~(1L << bit);
+				}
+			}
+		} else {
+			char[] arr = (char[]) containers[i];
+			for (int k = cards[i] - 1; k >= 0; k--) {
+				int id = base | arr[k];
+				if (id < bound && !consumer.test(id)) return false;
+			}
+		}
+		return true;
+	}
+
+	private void checkWritable() {
+		if (readOnly) throw new UnsupportedOperationException("read-only bitmap");
+	}
+
+	private int find(char hi) {
+		return Arrays.binarySearch(keys, 0, size, hi);
+	}
+
+	private long[] bitsOf(int i) {
+		return containers[i] instanceof long[] bits ? bits : toBits((char[]) containers[i], cards[i]);
+	}
+
+	private static long[] andBits(long[] x, long[] y) {
+		long[] bits = new long[1024];
+		for (int k = 0; k < 1024; k++) bits[k] = x[k] & y[k];
+		return bits;
+	}
+
+	// 集合演算の結果を、件数に応じて配列かビットマップにして末尾に追加する
+	private void appendBits(char key, long[] bits) {
+		int card = 0;
+		for (long w : bits) card += Long.bitCount(w);
+		if (card == 0) return;
+		appendContainer(key, card <= ARRAY_MAX ? toArray(bits, card) : bits, card);
+	}
+
+	private void appendContainer(char key, Object container, int card) {
+		insertContainer(size, key, container, card);
+	}
+
+	private void insertContainer(int i, char key, Object container, int card) {
+		if (size == keys.length) {
+			int n = size * 2;
+			keys = Arrays.copyOf(keys, n);
+			containers = Arrays.copyOf(containers, n);
+			cards = Arrays.copyOf(cards, n);
+		}
+		System.arraycopy(keys, i, keys, i + 1, size - i);
+		System.arraycopy(containers, i, containers, i + 1, size - i);
+		System.arraycopy(cards, i, cards, i + 1, size - i);
+		keys[i] = key;
+		containers[i] = container;
+		cards[i] = card;
+		size++;
+	}
+
+	private void removeContainer(int i) {
+		System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+		System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+		System.arraycopy(cards, i + 1, cards, i, size - i - 1);
+		containers[--size] = null;
+	}
+
+	private static Object cloneContainer(Object c, int card) {
+		return c instanceof long[] bits ? bits.clone() : Arrays.copyOf((char[]) c, Math.max(1, card));
+	}
+
+	private static long[] toBits(char[] arr, int n) {
+		long[] bits = new long[1024];
+		for (int k = 0; k < n; k++) bits[arr[k] >>> 6] |= 1L << arr[k];
+		return bits;
+	}
+
+	private static char[] toArray(long[] bits, int card) {
+		char[] arr = new char[Math.max(1, card)];
+		int n = 0;
+		for (int w = 0; w < 1024; w++) {
+			long word = bits[w];
+			while (word != 0) {
+				arr[n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+		return arr;
+	}
+
+	private static int intersectCount(char[] a, int na, char[] b, int nb) {
+		int i = 0, j = 0, n = 0;
+		while (i < na && j < nb) {
+			if (a[i] < b[j]) i++;
+			else if (a[i] > b[j]) j++;
+			else { n++; i++; j++; }
+		}
+		return n;
+	}
+}
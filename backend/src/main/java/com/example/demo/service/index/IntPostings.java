@@ -0,0 +1,50 @@
+package com.example.demo.service.index;
+
+import java.util.Arrays;
+
+/**
+ * 昇順に並んだ int ID の可変長ポスティングリスト。
+ * ID は IDENTITY 採番でほぼ単調増加なので、追加は末尾 append で済むことが多い。
+ * スレッドセーフではない（呼び出し側のロックで守る）。
+ */
+final class IntPostings {
+
+	private int[] ids = new int[4];
+	private int size;
+
+	int size() { return size; }
+
+	boolean isEmpty() { return size == 0; }
+
+	int get(int i) { return ids[i]; }
+
+	boolean contains(int id) {
+		return Arrays.binarySearch(ids, 0, size, id) >= 0;
+	}
+
+	void add(int id) {
+		if (size == 0 || ids[size - 1] < id) {
+			grow();
+			ids[size++] = id;
+			return;
+		}
+		int pos = Arrays.binarySearch(ids, 0, size, id);
+		if (pos >= 0) return;
+		int ins = -pos - 1;
+		grow();
+		System.arraycopy(ids, ins, ids, ins + 1, size - ins);
+		ids[ins] = id;
+		size++;
+	}
+
+	void remove(int id) {
+		int pos = Arrays.binarySearch(ids, 0, size, id);
+		if (pos < 0) return;
+		System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+		size--;
+	}
+
+	private void grow() {
+		if (size == ids.length) ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+	}
+}
@@ -0,0 +1,133 @@
+package com.example.demo.service.index;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * タイトルと著者から作る MinHash 署名（b-bit MinHash、1 行 8bit × K 行）。
+ * タイトルは NFKC・小文字化して文字と数字だけを残し（句読点・空白・記号の違いを無視）、文字 3-gram に分ける。
+ * 著者は 2 文字以上の語を順序を無視して足す（"Smith, J." と "J. Smith" が同じになるようにイニシャルは捨てる）。
+ * 漢字・かなの氏名は文字 2-gram にする（"山田 太郎" と "山田太郎" を近づける）。
+ * 各 shingle を 64bit に畳み、K 個のハッシュ関数それぞれの最小値から 8bit を取って署名の 1 行にする。
+ */
+final class MinHash {
+
+	static final int K = 32;
+	private static final int GRAM = 3;
+	// 著者の語はタイトルの 3-gram と別物として数える
+	private static final long AUTHOR_SALT = 0x5bd1e9955bd1e995L;
+	// K 個のハッシュ関数 h * MULT[i] + ADD[i]（MULT は奇数）。符号なしで比べて上位側のビットで順位が決まるので乗算 1 回で足りる
+	private static final long[] MULT = new long[K];
+	private static final long[] ADD = new long[K];
+	static {
+		long s = 0x9e3779b97f4a7c15L;
+		for (int i = 0; i < K; i++) {
+			MULT[i] = mix(s += 0x9e3779b97f4a7c15L) | 1;
+			ADD[i] = mix(s += 0x9e3779b97f4a7c15L);
+		}
+	}
+
+	private MinHash() {}
+
+	/** shingle が 1 つも無ければ（タイトルも著者も空）null */
+	static byte[] signature(String title, String authors) {
+		long[] mins = new long[K];
+		Arrays.fill(mins, -1L); // 符号なしの最大値
+		boolean any = false;
+
+		int[] cps = letters(normalize(title), false);
+		int n = cps.length;
+		if (n > 0 && n < GRAM) {
+			any = true;
+			add(mins, hash(cps, 0, n));
+		}
+		for (int i = 0; i + GRAM <= n; i++) {
+			any = true;
+			add(mins, hash(cps, i, GRAM));
+		}
+		// 著者は文字・数字の連続を 1 語とする
+		int[] au = letters(normalize(authors), true);
+		int total = au.length;
+		for (int from = 0; from < total; ) {
+			int to = from;
+			while (to < total && au[to] >= 0) to++;
+			int len = to - from;
+			if (len >= 2) {
+				any = true;
+				if (isCjk(au[from])) {
+					// 日本語などの氏名は姓と名の間の空白が有ったり無かったりするので、語ではなく 2-gram で足す
+					for (int i = from; i + 2 <= to; i++) add(mins, hash(au, i, 2) ^ AUTHOR_SALT);
+				} else {
+					add(mins, hash(au, from, len) ^ AUTHOR_SALT);
+				}
+			}
+			from = to + 1;
+		}
+		if (!any) return null;
+		byte[] sig = new byte[K];
+		// 最小値の最上位ビットはほぼ 0 なので使わず、乗算でよく混ざった中ほどの 8bit を取る
+		for (int i = 0; i < K; i++) sig[i] = (byte) (mins[i] >>> 32);
+		return sig;
+	}
+
+	/**
+	 * 2 つの署名から推定した Jaccard 類似度。
+	 * 8bit に切り詰めたので無関係でも 1/256 の確率で行が一致する分を差し引く。
+	 */
+	static double similarity(byte[] a, int aOff, byte[] b, int bOff) {
+		int same = 0;
+		for (int i = 0; i < K; i++) if (a[aOff + i] == b[bOff + i]) same++;
+		double raw = (double) same / K;
+		return Math.max(0, (raw - 1.0 / 256) / (1 - 1.0 / 256));
+	}
+
+	private static void add(long[] mins, long shingle) {
+		long h = mix(shingle);
+		for (int i = 0; i < K; i++) {
+			long v = h * MULT[i] + ADD[i];
+			if (Long.compareUnsigned(v, mins[i]) < 0) mins[i] = v;
+		}
+	}
+
+	// FNV-1a（64bit）
+	private static long hash(int[] cps, int from, int len) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = from; i < from + len; i++) {
+			h ^= cps[i];
+			h *= 0x100000001b3L;
+		}
+		return h;
+	}
+
+	// splitmix64 の仕上げ
+	static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	// 文字・数字のコードポイントだけを詰める。words なら語の切れ目に -1 を 1 つ置く
+	private static int[] letters(String s, boolean words) {
+		int[] out = new int[s.length()];
+		int n = 0;
+		for (int i = 0; i < s.length(); ) {
+			int cp = s.codePointAt(i);
+			i += Character.charCount(cp);
+			if (Character.isLetterOrDigit(cp)) out[n++] = cp;
+			else if (words && n > 0 && out[n - 1] >= 0) out[n++] = -1;
+		}
+		return Arrays.copyOf(out, n);
+	}
+
+	private static boolean isCjk(int cp) {
+		var script = Character.UnicodeScript.of(cp);
+		return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+				|| script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+	}
+
+	private static String normalize(String s) {
+		if (s == null) return "";
+		return Normalizer.normalize(s, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+	}
+}
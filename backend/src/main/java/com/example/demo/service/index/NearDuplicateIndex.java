@@ -0,0 +1,235 @@
+package com.example.demo.service.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.service.PaperService.PaperRow;
+
+/**
+ * 表記ゆれ（句読点・大小文字・著者の書き方）だけが違う重複論文を探す MinHash / LSH 索引。
+ * 署名（{@link MinHash}、32 行 × 8bit）を 4 行ずつ 8 本のバンドに分け、どれか 1 本でも一致した論文を候補にして、
+ * 署名から推定した類似度が threshold 以上のものだけを返す（類似度 0.7 の組は約 9 割、0.8 なら 98% が候補に残る）。
+ * 署名は id 順の byte[] にまとめて持ち、100 万件で署名 32MB + バンド表 128MB 程度。
+ */
+@Component
+public class NearDuplicateIndex implements PaperIndex {
+
+	public record Match(long id, double similarity) {}
+
+	private static final int ROWS = 4;
+	private static final int BANDS = MinHash.K / ROWS;
+	// 同じバンド値の論文がこれより多いとき（ごく短い同名タイトルなど）は打ち切る
+	private static final int MAX_CANDIDATES = 2000;
+
+	private final double threshold;
+	private final boolean enabled;
+	private final BandTable[] bands = new BandTable[BANDS];
+	private final IdBitmap present = new IdBitmap();
+	// id * K から K バイトがその論文の署名
+	private byte[] sigs = new byte[MinHash.K * 1024];
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private volatile boolean ready;
+
+	public NearDuplicateIndex(@Value("${bibmanager.duplicates.threshold:0.7}") double threshold,
+	                          @Value("${bibmanager.duplicates.enabled:true}") boolean enabled) {
+		this.threshold = threshold;
+		this.enabled = enabled;
+		for (int b = 0; b < BANDS; b++) bands[b] = new BandTable();
+	}
+
+	/** 無効（bibmanager.duplicates.enabled=false）なら常に false */
+	@Override
+	public boolean isReady() { return ready; }
+
+	@Override
+	public void markReady() { ready = enabled; }
+
+	@Override
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			ready = false;
+			for (var b : bands) b.clear();
+			present.clear();
+			sigs = new byte[MinHash.K * 1024];
+		} finally { lock.writeLock().unlock(); }
+	}
+
+	@Override
+	public void put(PaperRow row) {
+		if (!enabled) return;
+		int id = Math.toIntExact(row.id());
+		byte[] sig = MinHash.signature(row.title(), row.authors());
+		lock.writeLock().lock();
+		try {
+			if (present.contains(id)) {
+				// status やタグだけの更新なら署名は変わらない
+				if (sig != null && Arrays.equals(sigs, offset(id), offset(id) + MinHash.K, sig, 0, MinHash.K)) return;
+				unindex(id);
+			}
+			if (sig == null || !ensureCapacity(id)) return;
+			System.arraycopy(sig, 0, sigs, offset(id), MinHash.K);
+			present.add(id);
+			for (int b = 0; b < BANDS; b++) bands[b].add(bandKey(sigs, offset(id), b), id);
+		} finally { lock.writeLock().unlock(); }
+	}
+
+	@Override
+	public void remove(long id) {
+		if (!enabled) return;
+		int key = Math.toIntExact(id);
+		lock.writeLock().lock();
+		try {
+			if (present.contains(key)) unindex(key);
+		} finally { lock.writeLock().unlock(); }
+	}
+
+	/** id の論文に似ている論文（自分は除く）。似ている順、同じなら新しい順に最大 limit 件 */
+	public List<Match> similarTo(long id, int limit) {
+		int key = Math.toIntExact(id);
+		lock.readLock().lock();
+		try {
+			if (!present.contains(key)) return List.of();
+			var out = new ArrayList<Match>();
+			for (int c : candidates(key)) {
+				double s = MinHash.similarity(sigs, offset(key), sigs, offset(c));
+				if (s >= threshold) out.add(new Match(c, s));
+			}
+			out.sort(Comparator.comparingDouble(Match::similarity).reversed().thenComparing(Match::id, Comparator.reverseOrder()));
+			return out.size() > limit ? List.copyOf(out.subList(0, limit)) : out;
+		} finally { lock.readLock().unlock(); }
+	}
+
+	/**
+	 * ライブラリ全体の重複のまとまり。2 件以上のまとまりを大きい順に最大 limit 個。
+	 * バンドごとに (バンド値, id) を並べ替えて同じバンド値の並びを作り、並びの先頭（と直前）の論文と似ていればつなぐ（union-find）。
+	 * 全組み合わせは比べないので近似だが、1 バンドあたり並べ替え 1 回で済む。
+	 * 各まとまりは一番古い（id が小さい）論文を先頭にし、類似度はその論文との値。全件を見るあいだ読み取りロックを持つ。
+	 */
+	public List<List<Match>> clusters(int limit) {
+		lock.readLock().lock();
+		try {
+			int[] ids = present.toArray();
+			if (ids.length == 0) return List.of();
+			int[] parent = new int[ids[ids.length - 1] + 1];
+			for (int id : ids) parent[id] = id;
+			for (var band : bands) {
+				long[] entries = band.entries();
+				Arrays.sort(entries);
+				for (int i = 0; i < entries.length; ) {
+					int j = i + 1;
+					while (j < entries.length && (entries[j] >>> 32) == (entries[i] >>> 32)) j++;
+					int leader = (int) entries[i];
+					for (int k = i + 1; k < Math.min(j, i + MAX_CANDIDATES); k++) {
+						int c = (int) entries[k], prev = (int) entries[k - 1];
+						if (similar(leader, c)) union(parent, leader, c);
+						else if (prev != leader && similar(prev, c)) union(parent, prev, c);
+					}
+					i = j;
+				}
+			}
+			int[] sizes = new int[parent.length];
+			for (int id : ids) sizes[find(parent, id)]++;
+			var groups = new HashMap<Integer, List<Integer>>();
+			for (int id : ids) {
+				int root = find(parent, id);
+				if (sizes[root] > 1) groups.computeIfAbsent(root, k -> new ArrayList<>()).add(id);
+			}
+			var out = new ArrayList<List<Match>>();
+			groups.values().stream()
+					.sorted(Comparator.<List<Integer>>comparingInt(List::size).reversed().thenComparing(g -> g.get(0)))
+					.limit(limit)
+					.forEach(g -> {
+						int first = g.get(0);
+						out.add(g.stream().map(m -> new Match(m, m == first ? 1.0
+								: MinHash.similarity(sigs, offset(first), sigs, offset(m)))).toList());
+					});
+			return out;
+		} finally { lock.readLock().unlock(); }
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try { return (int) present.cardinality(); } finally { lock.readLock().unlock(); }
+	}
+
+	// どれかのバンドが一致した論文（自分を除く、重複なし）。読み取りロック内で呼ぶ
+	private int[] candidates(int id) {
+		var found = new int[16];
+		int n = 0;
+		int off = offset(id);
+		for (int b = 0; b < BANDS && n < MAX_CANDIDATES; b++) {
+			var hits = new IntList();
+			bands[b].forEach(bandKey(sigs, off, b), hits::add);
+			for (int i = 0; i < hits.size && n < MAX_CANDIDATES; i++) {
+				if (hits.values[i] == id) continue;
+				if (n == found.length) found = Arrays.copyOf(found, n * 2);
+				found[n++] = hits.values[i];
+			}
+		}
+		Arrays.sort(found, 0, n);
+		int u = 0;
+		for (int i = 0; i < n; i++) if (u == 0 || found[u - 1] != found[i]) found[u++] = found[i];
+		return Arrays.copyOf(found, u);
+	}
+
+	private boolean similar(int a, int b) {
+		return MinHash.similarity(sigs, offset(a), sigs, offset(b)) >= threshold;
+	}
+
+	private static final class IntList {
+		int[] values = new int[8];
+		int size;
+
+		void add(int v) {
+			if (size == values.length) values = Arrays.copyOf(values, size * 2);
+			values[size++] = v;
+		}
+	}
+
+	private void unindex(int id) {
+		for (int b = 0; b < BANDS; b++) bands[b].remove(bandKey(sigs, offset(id), b), id);
+		present.remove(id);
+	}
+
+	// byte[] 1 本に収まらない id（6700 万件超）は索引に入れない
+	private boolean ensureCapacity(int id) {
+		long need = (long) (id + 1) * MinHash.K;
+		if (need <= sigs.length) return true;
+		if (need > Integer.MAX_VALUE - 8) return false;
+		sigs = Arrays.copyOf(sigs, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(need, sigs.length + (sigs.length >> 1))));
+		return true;
+	}
+
+	private static int offset(int id) {
+		return id * MinHash.K;
+	}
+
+	// バンド b の 4 行（4 バイト）をそのまま int に詰める
+	private static int bandKey(byte[] sigs, int off, int b) {
+		int i = off + b * ROWS;
+		return (sigs[i] & 0xff) << 24 | (sigs[i + 1] & 0xff) << 16 | (sigs[i + 2] & 0xff) << 8 | (sigs[i + 3] & 0xff);
+	}
+
+	private static int find(int[] parent, int x) {
+		while (parent[x] != x) {
+			parent[x] = parent[parent[x]];
+			x = parent[x];
+		}
+		return x;
+	}
+
+	// 小さい id を根にする（まとまりの先頭が一番古い論文になる）
+	private static void union(int[] parent, int a, int b) {
+		int ra = find(parent, a), rb = find(parent, b);
+		if (ra == rb) return;
+		if (ra < rb) parent[rb] = ra; else parent[ra] = rb;
+	}
+}
@@ -0,0 +1,25 @@
+package com.example.demo.service.index;
+
+import com.example.demo.service.PaperService.PaperRow;
+
+/**
+ * papers から派生するインメモリ索引の共通口。
+ * PaperService の実装は書き込みのたびに（トランザクション内の書き込みはコミットの後で）最新の行を put / remove し、
+ * 起動時は clear → 全件 put → markReady の順で作り直す（書き込みと並ぶときの順序は PaperIndexes が受け持つ）。
+ */
+public interface PaperIndex {
+
+	void clear();
+
+	/** 行の最新状態を反映する（新規・更新どちらも） */
+	void put(PaperRow row);
+
+	void remove(long id);
+
+	void markReady();
+
+	boolean isReady();
+
+	/** 読み手に変更を知らせるもの（版・変更フィード）は true。PaperIndexes はほかの索引を更新してから呼ぶ */
+	default boolean announcesChanges() { return false; }
+}
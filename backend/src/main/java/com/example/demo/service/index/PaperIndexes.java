@@ -0,0 +1,85 @@
+package com.example.demo.service.index;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import com.example.demo.service.PaperService.PaperRow;
+
+/**
+ * 登録されている全 PaperIndex へ同じ変更を配る。
+ * 版や変更フィードを見て読み直したクライアントが古い行を掴まないよう、announcesChanges の索引は最後に回す。
+ * 起動時の作り直しは {@link #beginRebuild()} → {@link #rebuildPut} → {@link #finishRebuild()}。
+ * 走査中に put / remove された id は控えておき、走査で読んだ行（それより古いかもしれない）では上書きしない。
+ * 消した id は控えが墓標になるので、走査が消える前の行を読んでいても生き返らない（PaperReadModel の作り直しと同じ考え方）。
+ */
+@Component
+public class PaperIndexes {
+
+	private final List<PaperIndex> all;
+	// 起動時の作り直しが終わったか（無効にした索引は isReady が false のままなので、個々の索引ではなくここで持つ）
+	private volatile boolean ready;
+	// 作り直し中に書き込まれた id（作り直し中でなければ null）。書き込みと rebuildPut は writeLock で順番に通す
+	private Set<Long> touched;
+	private final Object writeLock = new Object();
+	public PaperIndexes(List<PaperIndex> all) {
+		this.all = all.stream().sorted(Comparator.comparing(PaperIndex::announcesChanges)).toList();
+	}
+
+	public void clear() {
+		synchronized (writeLock) {
+			ready = false;
+			all.forEach(PaperIndex::clear);
+		}
+	}
+
+	public void put(PaperRow row) {
+		synchronized (writeLock) {
+			if (touched != null) touched.add(row.id());
+			for (var i : all) i.put(row);
+		}
+	}
+
+	public void remove(long id) {
+		synchronized (writeLock) {
+			if (touched != null) touched.add(id);
+			for (var i : all) i.remove(id);
+		}
+	}
+
+	public void markReady() {
+		all.forEach(PaperIndex::markReady);
+		ready = true;
+	}
+
+	/** 全索引を空にして作り直しを始める。これ以降の put / remove は走査で読んだ行より優先される */
+	public void beginRebuild() {
+		synchronized (writeLock) {
+			clear();
+			touched = new HashSet<>();
+		}
+	}
+
+	/** 走査で読んだ行。作り直しを始めてから書き込まれた（消された）id なら捨てる */
+	public void rebuildPut(PaperRow row) {
+		synchronized (writeLock) {
+			if (touched == null || touched.contains(row.id())) return;
+			for (var i : all) i.put(row);
+		}
+	}
+
+	/** 走査が終わった。控えを捨てて読めるようにする */
+	public void finishRebuild() {
+		synchronized (writeLock) {
+			touched = null;
+		}
+		markReady();
+	}
+
+	public boolean isReady() { return ready; }
+
+	public int size() { return all.size(); }
+}
@@ -0,0 +1,222 @@
+package com.example.demo.service.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.service.PaperService.PaperRow;
+
+/**
+ * 一覧用の読み取りモデル（CQRS の読み取り側）。表示する行（タグ名はソート済み）と、
+ * q の LIKE 用に小文字化した title / authors を id 引きの配列で持つ。
+ * 書き込み側（PaperJpaService・取り込み）が PaperIndexes 経由で 1 行ずつ put / remove するので、
+ * 一覧は papers / paper_tags / tags を join せず、ここと FacetIndex のビットマップだけで返せる。
+ * 作り直し（{@link #beginRebuild()}）は別の配列に組み立ててから差し替えるので、その間も古いモデルで読める。
+ * InMemoryPaperService は本体がそのまま読み取りモデルなので inmemory プロファイルでは作らない。
+ */
+@Component
+@Profile("!inmemory")
+public class PaperReadModel implements PaperIndex {
+
+	private record Entry(PaperRow row, String titleLower, String authorsLower) {}
+
+	// 作り直し中に消された論文の印（走査で読んだ古い行で復活させない）
+	private static final Entry DELETED = new Entry(null, null, null);
+
+	private final boolean enabled;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	// 同じタグ名は 1 つの String を共有する（100 万件 × 数タグを別々に持つと数百 MB になる）
+	private final Map<String, String> tagNames = new HashMap<>();
+	private Entry[] entries = new Entry[1024];
+	private int size;
+	// 作り直し中だけ non-null。put / remove はこちらにも書き、走査の行は空いている所にだけ入れる
+	private Entry[] next;
+	private volatile boolean ready;
+
+	public PaperReadModel(@Value("${bibmanager.read-model.enabled:true}") boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/** 無効（bibmanager.read-model.enabled=false）なら常に false */
+	@Override
+	public boolean isReady() { return ready; }
+
+	@Override
+	public void markReady() { ready = enabled; }
+
+	@Override
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			ready = false;
+			entries = new Entry[1024];
+			size = 0;
+			next = null;
+			tagNames.clear();
+		} finally { lock.writeLock().unlock(); }
+	}
+
+	@Override
+	public void put(PaperRow row) {
+		if (!enabled) return;
+		int id = Math.toIntExact(row.id());
+		lock.writeLock().lock();
+		try {
+			var e = entry(row);
+			entries = grow(entries, id);
+			if (entries[id] == null) size++;
+			entries[id] = e;
+			if (next != null) {
+				next = grow(next, id);
+				next[id] = e;
+			}
+		} finally { lock.writeLock().unlock(); }
+	}
+
+	@Override
+	public void remove(long id) {
+		if (!enabled) return;
+		int key = Math.toIntExact(id);
+		lock.writeLock().lock();
+		try {
+			if (key < entries.length && entries[key] != null) {
+				entries[key] = null;
+				size--;
+			}
+			if (next != null) {
+				next = grow(next, key);
+				next[key] = DELETED;
+			}
+		} finally { lock.writeLock().unlock(); }
+	}
+
+	/** 作り直しを始める。既に作り直し中なら false */
+	public boolean beginRebuild() {
+		lock.writeLock().lock();
+		try {
+			if (!enabled || next != null) return false;
+			next = new Entry[entries.length];
+			return true;
+		} finally { lock.writeLock().unlock(); }
+	}
+
+	/** 作り直し中の走査で読んだ行。走査を始めた後の put / remove の方が新しいので、それがあれば上書きしない */
+	public void rebuildPut(PaperRow row) {
+		int id = Math.toIntExact(row.id());
+		lock.writeLock().lock();
+		try {
+			if (next == null) return;
+			next = grow(next, id);
+			if (next[id] == null) next[id] = entry(row);
+		} finally { lock.writeLock().unlock(); }
+	}
+
+	/** 組み立てた配列に差し替える（abort なら捨てる） */
+	public void finishRebuild(boolean abort) {
+		lock.writeLock().lock();
+		try {
+			if (next == null) return;
+			if (!abort) {
+				int n = 0;
+				for (int i = 0; i < next.length; i++) {
+					if (next[i] == DELETED) next[i] = null;
+					else if (next[i] != null) n++;
+				}
+				entries = next;
+				size = n;
+				ready = enabled;
+			}
+			next = null;
+		} finally { lock.writeLock().unlock(); }
+	}
+
+	public boolean isRebuilding() {
+		lock.readLock().lock();
+		try { return next != null; } finally { lock.readLock().unlock(); }
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try { return size; } finally { lock.readLock().unlock(); }
+	}
+
+	/** ids の順に行を返す（無い id は飛ばす） */
+	public List<PaperRow> rows(List<Long> ids) {
+		var out = new ArrayList<PaperRow>(ids.size());
+		lock.readLock().lock();
+		try {
+			for (long id : ids) {
+				if (id <= 0 || id >= entries.length) continue;
+				var e = entries[(int) id];
+				if (e != null) out.add(e.row());
+			}
+		} finally { lock.readLock().unlock(); }
+		return out;
+	}
+
+	/**
+	 * title / authors の小文字に SQL の lower(..) like '%q%' と同じ条件で当たる id。
+	 * PaperSearchIndex で引けない q（% / _ / \ 入り）用で、全件を走査する。
+	 */
+	public IdBitmap like(String q) {
+		String needle = q.toLowerCase(Locale.ROOT);
+		Pattern pattern = PaperSearchIndex.supports(needle) ? null : likePattern(needle);
+		var out = new IdBitmap();
+		lock.readLock().lock();
+		try {
+			for (int i = 1; i < entries.length; i++) {
+				var e = entries[i];
+				if (e == null) continue;
+				if (matches(e.titleLower(), needle, pattern) || matches(e.authorsLower(), needle, pattern)) out.add(i);
+			}
+		} finally { lock.readLock().unlock(); }
+		return out;
+	}
+
+	// 書き込みロック内で呼ぶ。toLowerCase は変わらなければ同じ String を返すので、小文字のタイトルは 1 本で済む
+	private Entry entry(PaperRow row) {
+		List<String> tags = row.tags().isEmpty() ? List.of()
+				: row.tags().stream().map(t -> tagNames.computeIfAbsent(t, k -> k)).toList();
+		var shared = new PaperRow(row.id(), row.title(), row.authors(), row.year(), row.url(), row.createdAt(), row.status(), tags);
+		return new Entry(shared, lower(row.title()), lower(row.authors()));
+	}
+
+	private static Entry[] grow(Entry[] a, int id) {
+		if (id < a.length) return a;
+		return Arrays.copyOf(a, Math.max(id + 1, a.length + (a.length >> 1)));
+	}
+
+	private static String lower(String s) {
+		return s == null ? null : s.toLowerCase(Locale.ROOT);
+	}
+
+	private static boolean matches(String s, String needle, Pattern pattern) {
+		if (s == null) return false;
+		return pattern != null ? pattern.matcher(s).matches() : s.contains(needle);
+	}
+
+	/**
+	 * '%' + needle + '%' の LIKE を正規表現に。% と _ はワイルドカード、\ はリポジトリの LIKE（ESCAPE 指定なし＝既定の \）と同じく
+	 * 次の 1 文字をそのまま比べる（\% \_ \\）。末尾に残った \ は \ そのものとして扱う。
+	 */
+	public static Pattern likePattern(String needle) {
+		var sb = new StringBuilder(".*");
+		for (int i = 0; i < needle.length(); i++) {
+			char c = needle.charAt(i);
+			if (c == '\\' && i + 1 < needle.length()) sb.append(Pattern.quote(String.valueOf(needle.charAt(++i))));
+			else if (c == '%') sb.append(".*");
+			else if (c == '_') sb.append('.');
+			else sb.append(Pattern.quote(String.valueOf(c)));
+		}
+		return Pattern.compile(sb.append(".*").toString(), Pattern.DOTALL);
+	}
+}
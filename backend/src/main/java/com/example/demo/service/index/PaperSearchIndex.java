@@ -0,0 +1,392 @@
+package com.example.demo.service.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.service.PaperService.PaperRow;
+
+/**
+ * q= キーワード検索用のインメモリ転置インデックス。
+ * title / authors を小文字化して文字 bigram ごとに論文IDのポスティングを持つ。
+ * 空白で区切られない日本語タイトルでも部分一致できるように単語ではなく n-gram で引く。
+ * 候補は最後に contains で確認するので、結果は SQL の lower(..) like '%q%' と同じになる。
+ * sort=relevance 用に、単語（漢字・かなは 2 文字ずつ）ごとの出現回数と title / authors の長さも持ち、
+ * 一致した論文を BM25 で並べる（{@link #rank}）。語ごとの文書数と長さの合計は put / remove で足し引きする。
+ */
+@Component
+public class PaperSearchIndex implements PaperIndex {
+
+	private record Doc(String title, String authors) {
+		boolean matches(String needle) {
+			return (title != null && title.contains(needle))
+					|| (authors != null && authors.contains(needle));
+		}
+	}
+
+	// BM25 の定数。q の語で始まる別の語（入力途中の語の続き）は重みを下げて数え、1 語につき先頭から MAX_EXPANSIONS 語まで
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+	private static final double PREFIX_WEIGHT = 0.5;
+	private static final int MAX_EXPANSIONS = 16;
+	private static final int MAX_QUERY_TERMS = 16;
+
+	private final Map<Integer, Doc> docs = new HashMap<>();
+	private final Map<String, IntPostings> grams = new HashMap<>();
+	// 単語 → ポスティング。前方一致で続きの語を引くための並べた語の集合も持つ（こちらは語が増減したときだけ触る）
+	private final Map<String, TermPostings> terms = new HashMap<>();
+	private final TreeSet<String> vocabulary = new TreeSet<>();
+	// 論文 id → title の語数（下位 16bit）と authors の語数（上位 16bit）
+	private int[] lengths = new int[1024];
+	private long titleLengthSum;
+	private long authorsLengthSum;
+	private final double titleBoost;
+	private final double authorsBoost;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private volatile boolean ready;
+
+	public PaperSearchIndex(@Value("${bibmanager.search.title-boost:2.0}") double titleBoost,
+	                        @Value("${bibmanager.search.authors-boost:1.0}") double authorsBoost) {
+		this.titleBoost = titleBoost;
+		this.authorsBoost = authorsBoost;
+	}
+
+	/** 起動時の再構築が終わるまでは false（呼び出し側は SQL にフォールバックする） */
+	@Override
+	public boolean isReady() { return ready; }
+
+	public int size() {
+		lock.readLock().lock();
+		try { return docs.size(); } finally { lock.readLock().unlock(); }
+	}
+
+	/** 全件を入れ直す前に呼ぶ。ready は {@link #markReady()} まで false になる */
+	@Override
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			ready = false;
+			docs.clear();
+			grams.clear();
+			terms.clear();
+			vocabulary.clear();
+			lengths = new int[1024];
+			titleLengthSum = 0;
+			authorsLengthSum = 0;
+		} finally { lock.writeLock().unlock(); }
+	}
+
+	@Override
+	public void markReady() { ready = true; }
+
+	@Override
+	public void put(PaperRow row) {
+		put(row.id(), row.title(), row.authors());
+	}
+
+	public void put(long id, String title, String authors) {
+		int key = Math.toIntExact(id);
+		var doc = new Doc(normalize(title), normalize(authors));
+		lock.writeLock().lock();
+		try {
+			var old = docs.put(key, doc);
+			if (doc.equals(old)) return; // status やタグだけの更新では文字列は変わらない
+			if (old != null) unindex(key, old);
+			for (var g : gramsOf(doc)) grams.computeIfAbsent(g, k -> new IntPostings()).add(key);
+			indexTerms(key, doc);
+		} finally { lock.writeLock().unlock(); }
+	}
+
+	@Override
+	public void remove(long id) {
+		int key = Math.toIntExact(id);
+		lock.writeLock().lock();
+		try {
+			var old = docs.remove(key);
+			if (old != null) unindex(key, old);
+		} finally { lock.writeLock().unlock(); }
+	}
+
+	/** インデックスで解決できない q（LIKE のワイルドカードやエスケープ \ 入り）なら false */
+	public static boolean supports(String q) {
+		return q.indexOf('%') < 0 && q.indexOf('_') < 0 && q.indexOf('\\') < 0;
+	}
+
+	/**
+	 * q に部分一致する論文IDを id 降順で返す。
+	 * q は空でなく {@link #supports(String)} を満たすこと。
+	 */
+	public long[] match(String q) {
+		String needle = normalize(q);
+		lock.readLock().lock();
+		try {
+			var out = new ArrayList<Integer>();
+			if (needle.length() < 2) {
+				// bigram が作れない 1 文字検索は全件を直接見る
+				for (var e : docs.entrySet()) if (e.getValue().matches(needle)) out.add(e.getKey());
+			} else {
+				var lists = new ArrayList<IntPostings>();
+				for (var g : bigrams(needle)) {
+					var p = grams.get(g);
+					if (p == null) return new long[0];
+					lists.add(p);
+				}
+				lists.sort(Comparator.comparingInt(IntPostings::size));
+				var smallest = lists.get(0);
+				outer:
+				for (int i = 0; i < smallest.size(); i++) {
+					int id = smallest.get(i);
+					for (int j = 1; j < lists.size(); j++) if (!lists.get(j).contains(id)) continue outer;
+					if (docs.get(id).matches(needle)) out.add(id);
+				}
+			}
+			long[] ids = new long[out.size()];
+			for (int i = 0; i < ids.length; i++) ids[i] = out.get(i);
+			Arrays.sort(ids);
+			reverse(ids);
+			return ids;
+		} finally { lock.readLock().unlock(); }
+	}
+
+	/**
+	 * candidates（q を含めた絞り込みの結果）を q との BM25 の高い順（同点は id 降順）に並べ、offset から limit 件の id を返す。
+	 * title / authors をそれぞれの平均の長さで正規化し、重み（title-boost / authors-boost）を掛けて足す BM25F。
+	 * q の各語は同じ語に加え、その語で始まる語（"learn" → "learning"）も重みを下げて数える（語ごとに高い方）。
+	 * どの語にも当たらない候補（語の途中に一致しただけ）は後ろに id 降順で続く。
+	 * 候補を id 降順に 1 回なめ、語ごとのポスティングは飛ばし読みで突き合わせる。
+	 * 上位 offset + limit 件だけをヒープに残すので、一致を全部は並べ替えない。
+	 * ただし候補は全部採点するので、手間は一致した件数に比例する（全件数には比例しないが、よくある語ほど遅い）。
+	 * 上位 k 件が決まった時点で打ち切る max-score / WAND の早期終了はしていない
+	 * （BM25 の順位は平均の長さが変わると入れ替わるので、点数順に並べたポスティングを差分で保てない）。
+	 */
+	public List<Long> rank(String q, IdBitmap candidates, int offset, int limit) {
+		int k = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+		var tokens = new ArrayList<>(new LinkedHashSet<>(words(normalize(q))));
+		if (tokens.size() > MAX_QUERY_TERMS) tokens.subList(MAX_QUERY_TERMS, tokens.size()).clear();
+		lock.readLock().lock();
+		try {
+			int n = Math.max(1, docs.size());
+			double avgTitle = Math.max(1, (double) titleLengthSum / n);
+			double avgAuthors = Math.max(1, (double) authorsLengthSum / n);
+			var cursors = new ArrayList<Cursor>();
+			for (int i = 0; i < tokens.size(); i++) {
+				String t = tokens.get(i);
+				var exact = terms.get(t);
+				if (exact != null) cursors.add(new Cursor(i, exact, idf(n, exact.size())));
+				// 続きの語の idf は「この接頭辞で始まる語」をまとめて 1 語とみなした値（珍しい続きの語が完全一致より上に来ないように）
+				var more = new ArrayList<TermPostings>();
+				long df = exact == null ? 0 : exact.size();
+				for (var w : vocabulary.subSet(t, false, t + Character.MAX_VALUE, true)) {
+					if (more.size() == MAX_EXPANSIONS) break;
+					var p = terms.get(w);
+					more.add(p);
+					df += p.size();
+				}
+				double prefixIdf = PREFIX_WEIGHT * idf(n, (int) Math.min(n, df));
+				for (var p : more) cursors.add(new Cursor(i, p, prefixIdf));
+			}
+
+			var top = new PriorityQueue<Scored>(k <= 1024 ? k + 1 : 1024, Scored.ORDER);
+			// 語に当たらなかった候補（id 降順で k 件まで。採点できた候補が k 件に満たないときに後ろへ足す）
+			var unscored = new ArrayList<Long>();
+			double[] perToken = new double[tokens.size()];
+			candidates.forEachDesc(doc -> {
+				boolean hit = false;
+				Arrays.fill(perToken, 0);
+				for (var c : cursors) {
+					if (!c.seek(doc)) continue;
+					perToken[c.token] = Math.max(perToken[c.token], c.weight * tf(c, lengths[doc], avgTitle, avgAuthors));
+					hit = true;
+				}
+				if (!hit) {
+					if (unscored.size() < k) unscored.add((long) doc);
+					return true;
+				}
+				double score = 0;
+				for (double v : perToken) score += v;
+				var s = new Scored(doc, score);
+				if (top.size() < k) top.add(s);
+				else if (Scored.ORDER.compare(s, top.peek()) > 0) { top.poll(); top.add(s); }
+				return true;
+			});
+
+			var ranked = new ArrayList<Long>(top.size() + unscored.size());
+			top.stream().sorted(Scored.ORDER.reversed()).forEach(s -> ranked.add((long) s.id()));
+			ranked.addAll(unscored);
+			return offset >= ranked.size() ? List.of() : List.copyOf(ranked.subList(offset, Math.min(ranked.size(), k)));
+		} finally { lock.readLock().unlock(); }
+	}
+
+	// 語ごとの重み付き出現回数を長さで正規化し、K1 で飽和させる
+	private double tf(Cursor c, int length, double avgTitle, double avgAuthors) {
+		int tfTitle = c.postings.titleTf(c.pos), tfAuthors = c.postings.authorsTf(c.pos);
+		double w = 0;
+		if (tfTitle > 0) w += titleBoost * tfTitle / (1 - B + B * (length & 0xffff) / avgTitle);
+		if (tfAuthors > 0) w += authorsBoost * tfAuthors / (1 - B + B * (length >>> 16) / avgAuthors);
+		return w * (K1 + 1) / (K1 + w);
+	}
+
+	private static double idf(int n, int df) {
+		return Math.log(1 + (n - df + 0.5) / (df + 0.5));
+	}
+
+	/** 1 語のポスティングを後ろ（大きい id）から読むカーソル。token は q の何語目か、weight は idf（前方一致なら PREFIX_WEIGHT を掛けたもの） */
+	private static final class Cursor {
+		final int token;
+		final TermPostings postings;
+		final double weight;
+		int pos;
+
+		Cursor(int token, TermPostings postings, double weight) {
+			this.token = token;
+			this.postings = postings;
+			this.weight = weight;
+			this.pos = postings.size() - 1;
+		}
+
+		// doc 以下の最後の位置まで戻し、そこが doc なら true。候補は降順に来るので pos は戻る一方（倍々に跳んでから二分探索）
+		boolean seek(int doc) {
+			if (pos < 0) return false;
+			if (postings.id(pos) <= doc) return postings.id(pos) == doc;
+			int hi = pos, lo = pos - 1;
+			for (int step = 1; lo >= 0 && postings.id(lo) > doc; step <<= 1) {
+				hi = lo;
+				lo -= step;
+			}
+			lo = Math.max(lo, -1);
+			// id(lo) <= doc（lo = -1 なら無し）、id(hi) > doc
+			while (hi - lo > 1) {
+				int mid = (lo + hi) >>> 1;
+				if (postings.id(mid) <= doc) lo = mid; else hi = mid;
+			}
+			pos = lo;
+			return lo >= 0 && postings.id(lo) == doc;
+		}
+	}
+
+	private record Scored(int id, double score) {
+		// 低い順（ヒープの先頭が一番弱い）。同点は id の小さい方が弱い
+		static final Comparator<Scored> ORDER = Comparator.comparingDouble(Scored::score).thenComparingInt(Scored::id);
+	}
+
+	private void unindex(int key, Doc doc) {
+		for (var g : gramsOf(doc)) {
+			var p = grams.get(g);
+			if (p == null) continue;
+			p.remove(key);
+			if (p.isEmpty()) grams.remove(g);
+		}
+		var counts = termCounts(doc);
+		for (var t : counts.keySet()) {
+			var p = terms.get(t);
+			if (p == null) continue;
+			p.remove(key);
+			if (p.isEmpty()) {
+				terms.remove(t);
+				vocabulary.remove(t);
+			}
+		}
+		titleLengthSum -= lengths[key] & 0xffff;
+		authorsLengthSum -= lengths[key] >>> 16;
+		lengths[key] = 0;
+	}
+
+	private void indexTerms(int key, Doc doc) {
+		int titleLength = 0, authorsLength = 0;
+		for (var e : termCounts(doc).entrySet()) {
+			var p = terms.get(e.getKey());
+			if (p == null) {
+				terms.put(e.getKey(), p = new TermPostings());
+				vocabulary.add(e.getKey());
+			}
+			int[] c = e.getValue();
+			p.add(key, c[0], c[1]);
+			titleLength += c[0];
+			authorsLength += c[1];
+		}
+		titleLength = Math.min(0xffff, titleLength);
+		authorsLength = Math.min(0xffff, authorsLength);
+		if (key >= lengths.length) lengths = Arrays.copyOf(lengths, Math.max(key + 1, lengths.length + (lengths.length >> 1)));
+		lengths[key] = titleLength | authorsLength << 16;
+		titleLengthSum += titleLength;
+		authorsLengthSum += authorsLength;
+	}
+
+	// 語 → {title での回数, authors での回数}
+	private static Map<String, int[]> termCounts(Doc doc) {
+		var out = new HashMap<String, int[]>();
+		if (doc.title() != null) for (var w : words(doc.title())) out.computeIfAbsent(w, x -> new int[2])[0]++;
+		if (doc.authors() != null) for (var w : words(doc.authors())) out.computeIfAbsent(w, x -> new int[2])[1]++;
+		return out;
+	}
+
+	/** 文字・数字の並びを 1 語とする。漢字・かな・ハングルは区切りが無いので、その部分は 2 文字ずつ（1 文字だけならその 1 文字） */
+	static List<String> words(String s) {
+		var out = new ArrayList<String>();
+		int i = 0;
+		while (i < s.length()) {
+			int cp = s.codePointAt(i);
+			if (!Character.isLetterOrDigit(cp)) { i += Character.charCount(cp); continue; }
+			boolean cjk = isCjk(cp);
+			int start = i;
+			while (i < s.length()) {
+				int c = s.codePointAt(i);
+				if (!Character.isLetterOrDigit(c) || isCjk(c) != cjk) break;
+				i += Character.charCount(c);
+			}
+			String run = s.substring(start, i);
+			if (!cjk) { out.add(run); continue; }
+			int chars = run.codePointCount(0, run.length());
+			if (chars == 1) { out.add(run); continue; }
+			for (int j = 0, a = 0; j < chars - 1; j++) {
+				int b = run.offsetByCodePoints(a, 1);
+				out.add(run.substring(a, run.offsetByCodePoints(b, 1)));
+				a = b;
+			}
+		}
+		return out;
+	}
+
+	private static boolean isCjk(int cp) {
+		if (cp < 0x1100) return false;
+		var script = Character.UnicodeScript.of(cp);
+		return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+				|| script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+	}
+
+	private static Set<String> gramsOf(Doc doc) {
+		var set = new HashSet<String>();
+		if (doc.title() != null) set.addAll(bigrams(doc.title()));
+		if (doc.authors() != null) set.addAll(bigrams(doc.authors()));
+		return set;
+	}
+
+	private static List<String> bigrams(String s) {
+		var out = new ArrayList<String>(Math.max(0, s.length() - 1));
+		for (int i = 0; i + 2 <= s.length(); i++) out.add(s.substring(i, i + 2));
+		return out;
+	}
+
+	static String normalize(String s) {
+		return s == null ? null : s.toLowerCase(Locale.ROOT);
+	}
+
+	private static void reverse(long[] a) {
+		for (int i = 0, j = a.length - 1; i < j; i++, j--) {
+			long t = a[i]; a[i] = a[j]; a[j] = t;
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.example.demo.service.index;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.example.demo.service.PaperService.PaperRow;
+
+/**
+ * 条件付き GET（ETag / If-None-Match）用の版番号。
+ * 書き込みのたびにライブラリ全体の版を 1 つ進め、その論文の版をその値にする。
+ * 版はメモリにしか無いので、ETag には起動ごとに変わる epoch を混ぜて再起動前の ETag と衝突させない。
+ * 論文ごとの版は起動後に変わったものだけ持つ（変わっていなければ 0）。
+ */
+@Component
+public class PaperVersions implements PaperIndex {
+
+	private final AtomicLong library = new AtomicLong();
+	private final Map<Long, Long> papers = new ConcurrentHashMap<>();
+	private volatile String epoch = newEpoch();
+	private volatile boolean ready;
+
+	@Override
+	public boolean isReady() { return ready; }
+
+	// 再構築の間に起きた変更は papers に残っていないので、epoch ごと切り替えて以前の ETag を全部無効にする
+	@Override
+	public void markReady() {
+		epoch = newEpoch();
+		ready = true;
+	}
+
+	@Override
+	public void clear() {
+		ready = false;
+		papers.clear();
+	}
+
+	@Override
+	public void put(PaperRow row) {
+		changed(row.id());
+	}
+
+	@Override
+	public void remove(long id) {
+		changed(id);
+	}
+
+	public long library() {
+		return library.get();
+	}
+
+	public long paper(long id) {
+		return papers.getOrDefault(id, 0L);
+	}
+
+	/**
+	 * 一覧・ファセット用（条件は URL 側にあるので版だけで足りる）。
+	 * 同じ URL で JSON と列形式を返し分けるので、representation（返す表現の名前）も混ぜて別の ETag にする。
+	 */
+	public String libraryTag(String representation) {
+		return "W/\"" + epoch + "-" + library() + "-" + representation + "\"";
+	}
+
+	public String paperTag(long id) {
+		return "W/\"" + epoch + "-p" + paper(id) + "\"";
+	}
+
+	// put / remove はコミットの後、ほかの索引を更新し終えてから届く（PaperIndexes）ので、
+	// 新しい版の ETag を付けた応答がコミット前の行や古い索引を読んでいることはない
+	private void changed(long id) {
+		bump(id);
+	}
+
+	@Override
+	public boolean announcesChanges() { return true; }
+
+	private void bump(long id) {
+		long v = library.incrementAndGet();
+		if (ready) papers.merge(id, v, Math::max);
+	}
+
+	private static String newEpoch() {
+		return Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+	}
+}
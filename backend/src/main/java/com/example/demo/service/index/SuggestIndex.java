@@ -0,0 +1,418 @@
+package com.example.demo.service.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.springframework.stereotype.Component;
+
+import com.example.demo.service.PaperService.PaperRow;
+
+/**
+ * 入力補完（GET /api/papers/suggest）用の前方一致索引。タグ名・タイトルの単語・著者名（authors を 1 人ずつに分けたもの）の 3 種類。
+ * 種類ごとに、キーを昇順に並べた配列と、その上に「区間で一番多くの論文に使われている語の位置」を返すセグメント木を持つ。
+ * 接頭辞に当たる区間を二分探索で決め、区間の最大を取り出しては左右に分けるので、
+ * 「a」のような短い接頭辞でも区間全体は舐めずに上位 k 件が O(k log n) で取れる。
+ * 件数は論文ごとに語の id を覚えておき、put / remove の差分で増減する。
+ * 新しい語のキーは並べ替え済みの配列に入れず TreeMap に溜め、ある程度溜まったらまとめて併合する。
+ * 使われなくなった語は件数 0 のまま残り（候補には出ない）、起動時の再構築で消える。
+ */
+@Component
+public class SuggestIndex implements PaperIndex {
+
+	public enum Kind {
+		TAG, WORD, AUTHOR;
+
+		/** リクエストの kind（大文字小文字を問わない）。不明な名前なら null */
+		public static Kind of(String name) {
+			if (name == null) return null;
+			try {
+				return valueOf(name.trim().toUpperCase(Locale.ROOT));
+			} catch (IllegalArgumentException ex) {
+				return null;
+			}
+		}
+	}
+
+	/** count はその語を含む論文の数 */
+	public record Suggestion(String text, int count) {}
+
+	private static final int KIND_SHIFT = 30;
+	private static final int TERM_MASK = (1 << KIND_SHIFT) - 1;
+	private static final int[] NONE = new int[0];
+	// 1 論文から取る著者名の上限（数千人の共著論文で膨らませない）
+	private static final int MAX_AUTHORS = 50;
+	private static final int MAX_WORD = 40;
+	private static final Set<String> STOP_WORDS = Set.of(
+			"a", "an", "and", "are", "as", "at", "by", "for", "from", "in", "into", "is", "it", "its", "of", "on",
+			"or", "the", "to", "toward", "towards", "via", "we", "with", "without", "using");
+	private static final Pattern AUTHOR_AND = Pattern.compile("\\s+(?:and|&)\\s+", Pattern.CASE_INSENSITIVE);
+	private static final Pattern ET_AL = Pattern.compile("(?i)\\s*(?:et\\s*al\\.?|and\\s+others|others)\\s*$");
+	private static final Pattern SPACES = Pattern.compile("\\s+");
+
+	private final Dict[] dicts = { new Dict(Kind.TAG), new Dict(Kind.WORD), new Dict(Kind.AUTHOR) };
+	// 論文 id → その論文の語（種類 << 30 | 語 id、昇順）
+	private int[][] paperTerms = new int[1024][];
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private volatile boolean ready;
+
+	@Override
+	public boolean isReady() { return ready; }
+
+	// 起動時の全件 put の間は併合を止めておき、ここで 1 回だけ並べる
+	@Override
+	public void markReady() {
+		lock.writeLock().lock();
+		try {
+			for (var d : dicts) d.merge();
+			ready = true;
+		} finally { lock.writeLock().unlock(); }
+	}
+
+	@Override
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			ready = false;
+			for (int k = 0; k < dicts.length; k++) dicts[k] = new Dict(Kind.values()[k]);
+			paperTerms = new int[1024][];
+		} finally { lock.writeLock().unlock(); }
+	}
+
+	@Override
+	public void put(PaperRow row) {
+		int id = Math.toIntExact(row.id());
+		var words = titleWords(row.title());
+		var authors = authorNames(row.authors());
+		lock.writeLock().lock();
+		try {
+			int[] terms = new int[row.tags().size() + words.size() + authors.size()];
+			int n = 0;
+			for (var t : row.tags()) terms[n++] = code(Kind.TAG, t);
+			for (var w : words) terms[n++] = code(Kind.WORD, w);
+			for (var a : authors) terms[n++] = code(Kind.AUTHOR, a);
+			Arrays.sort(terms, 0, n);
+			int u = 0;
+			for (int i = 0; i < n; i++) if (u == 0 || terms[u - 1] != terms[i]) terms[u++] = terms[i];
+			apply(id, u == 0 ? null : Arrays.copyOf(terms, u));
+			if (ready) for (var d : dicts) d.mergeIfFull();
+		} finally { lock.writeLock().unlock(); }
+	}
+
+	@Override
+	public void remove(long id) {
+		int key = Math.toIntExact(id);
+		lock.writeLock().lock();
+		try {
+			if (key < paperTerms.length) apply(key, null);
+		} finally { lock.writeLock().unlock(); }
+	}
+
+	/** prefix（大文字小文字・全角半角は問わない）で始まる語を、使われている論文の多い順（同数はキー順）に最大 limit 件 */
+	public List<Suggestion> suggest(Kind kind, String prefix, int limit) {
+		String p = normalize(prefix).strip();
+		if (p.isEmpty() || limit <= 0) return List.of();
+		lock.readLock().lock();
+		try {
+			return dicts[kind.ordinal()].top(p, limit);
+		} finally { lock.readLock().unlock(); }
+	}
+
+	public int terms(Kind kind) {
+		lock.readLock().lock();
+		try { return dicts[kind.ordinal()].terms; } finally { lock.readLock().unlock(); }
+	}
+
+	// 書き込みロック内で呼ぶ。前回の語との差分だけ件数を動かす
+	private void apply(int id, int[] next) {
+		if (id >= paperTerms.length) {
+			if (next == null) return;
+			paperTerms = Arrays.copyOf(paperTerms, Math.max(id + 1, paperTerms.length + (paperTerms.length >> 1)));
+		}
+		int[] a = paperTerms[id] == null ? NONE : paperTerms[id];
+		int[] b = next == null ? NONE : next;
+		paperTerms[id] = next;
+		int i = 0, j = 0;
+		while (i < a.length || j < b.length) {
+			if (j == b.length || (i < a.length && a[i] < b[j])) count(a[i++], -1);
+			else if (i == a.length || b[j] < a[i]) count(b[j++], 1);
+			else { i++; j++; }
+		}
+	}
+
+	private int code(Kind kind, String text) {
+		return kind.ordinal() << KIND_SHIFT | dicts[kind.ordinal()].termId(text);
+	}
+
+	private void count(int code, int delta) {
+		dicts[code >>> KIND_SHIFT].add(code & TERM_MASK, delta, ready);
+	}
+
+	/** タイトルの単語（NFKC・小文字、文字と数字の連続）。1 文字・数字だけ・ありふれた英単語は除く */
+	static List<String> titleWords(String title) {
+		if (title == null) return List.of();
+		String s = normalize(title);
+		var out = new ArrayList<String>();
+		int start = -1;
+		boolean letter = false;
+		for (int i = 0; i <= s.length(); ) {
+			int cp = i < s.length() ? s.codePointAt(i) : ' ';
+			if (Character.isLetterOrDigit(cp)) {
+				if (start < 0) { start = i; letter = false; }
+				letter |= Character.isLetter(cp);
+			} else if (start >= 0) {
+				String w = s.substring(start, i);
+				if (letter && w.length() >= 2 && w.length() <= MAX_WORD && !STOP_WORDS.contains(w)) out.add(w);
+				start = -1;
+			}
+			i += Character.charCount(cp);
+		}
+		return out;
+	}
+
+	/**
+	 * authors を 1 人ずつの表示名に分ける。区切りは "and" / "&"（BibTeX）、無ければ ";"、それも無ければ ","。
+	 * "Vaswani, Ashish" のような「姓, 名」は "Ashish Vaswani" に直す（"et al." は捨てる）。
+	 */
+	static List<String> authorNames(String authors) {
+		if (authors == null || authors.isBlank()) return List.of();
+		String s = stripEtAl(authors.strip());
+		String[] parts;
+		if (AUTHOR_AND.matcher(s).find()) parts = AUTHOR_AND.split(s);
+		else if (s.indexOf(';') >= 0) parts = s.split(";");
+		else if (isLastCommaFirst(s)) parts = new String[] { s };
+		else parts = s.split(",");
+		var out = new ArrayList<String>();
+		for (var part : parts) {
+			String name = stripEtAl(part.strip());
+			int comma = name.indexOf(',');
+			if (comma >= 0) name = name.substring(comma + 1).strip() + " " + name.substring(0, comma).strip();
+			name = SPACES.matcher(name.strip()).replaceAll(" ");
+			if (letters(name) < 2) continue;
+			if (!out.contains(name)) out.add(name);
+			if (out.size() == MAX_AUTHORS) break;
+		}
+		return out;
+	}
+
+	// 末尾の "et al." / "others" を落とす（正規表現は末尾が a / l / . / s のときだけ）
+	private static String stripEtAl(String s) {
+		if (s.isEmpty()) return s;
+		char c = Character.toLowerCase(s.charAt(s.length() - 1));
+		return c == '.' || c == 'l' || c == 's' ? ET_AL.matcher(s).replaceAll("") : s;
+	}
+
+	private static int letters(String s) {
+		int n = 0;
+		for (int i = 0; i < s.length() && n < 2; i++) if (Character.isLetter(s.charAt(i))) n++;
+		return n;
+	}
+
+	// カンマ 1 つで区切られた 1 語ずつ（"Vaswani, Ashish"）は 2 人ではなく「姓, 名」の 1 人とみなす
+	private static boolean isLastCommaFirst(String s) {
+		int comma = s.indexOf(',');
+		if (comma < 0 || s.indexOf(',', comma + 1) >= 0) return false;
+		return !s.substring(0, comma).strip().contains(" ") && !s.substring(comma + 1).strip().contains(" ");
+	}
+
+	private static String normalize(String s) {
+		return Normalizer.normalize(s, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * 1 種類ぶんの辞書。語（表示名）ごとの件数と、前方一致用のキー（小文字）。
+	 * 著者名は姓からでも引けるように、名前全体に加えて 2 語目以降から始まるキーも持つ（"ashish vaswani", "vaswani"）。
+	 */
+	private static final class Dict {
+
+		private final Kind kind;
+		private final HashMap<String, Integer> ids = new HashMap<>();
+		private String[] texts = new String[1024];
+		private int[] freq = new int[1024];
+		private int terms;
+		// 併合済みのキー（昇順）とその語 id
+		private String[] keys = new String[0];
+		private int[] keyTerms = NONE;
+		// 語 id → keys 上の位置（posStart[t]〜posStart[t+1]）。併合後に出来た語（mergedTerms 以上）は pending にある
+		private int[] posStart = new int[1];
+		private int[] positions = NONE;
+		private int mergedTerms;
+		// セグメント木。節は区間で件数が最大のキーを「件数 << 32 | (MAX - 位置)」で持つ（大きい方が上位、-1 は空）。
+		// 比べるのに freq / keyTerms を引かないので、木をたどる間のキャッシュミスが減る
+		private long[] tree = new long[0];
+		private int leaves;
+		// まだ併合していないキー → 語 id
+		private final TreeMap<String, int[]> pending = new TreeMap<>();
+		private int pendingCount;
+
+		Dict(Kind kind) { this.kind = kind; }
+
+		int termId(String text) {
+			Integer id = ids.get(text);
+			if (id != null) return id;
+			int t = terms++;
+			if (t == texts.length) {
+				texts = Arrays.copyOf(texts, t * 2);
+				freq = Arrays.copyOf(freq, t * 2);
+			}
+			texts[t] = text;
+			ids.put(text, t);
+			for (var k : keysOf(text)) {
+				pending.merge(k, new int[] { t }, (a, b) -> {
+					int[] c = Arrays.copyOf(a, a.length + 1);
+					c[a.length] = t;
+					return c;
+				});
+				pendingCount++;
+			}
+			return t;
+		}
+
+		private List<String> keysOf(String text) {
+			String k = normalize(text);
+			if (kind != Kind.AUTHOR) return List.of(k);
+			var out = new ArrayList<String>(List.of(k));
+			for (int i = k.indexOf(' '); i >= 0; i = k.indexOf(' ', i + 1)) out.add(k.substring(i + 1));
+			return out;
+		}
+
+		// live なら木も直す（起動時の全件 put の間は markReady の併合でまとめて作る）
+		void add(int t, int delta, boolean live) {
+			freq[t] += delta;
+			if (!live || t >= mergedTerms) return;
+			for (int i = posStart[t]; i < posStart[t + 1]; i++) update(positions[i]);
+		}
+
+		// pending は接頭辞の範囲を毎回なめるので、並べ替え済みの 1/16 を超えたら併合する
+		void mergeIfFull() {
+			if (pendingCount > Math.max(4096, keys.length >> 4)) merge();
+		}
+
+		void merge() {
+			// 溜めていたキーを（キー, 表示名）順に並べ、並べ替え済みの配列と突き合わせる
+			var added = new ArrayList<Hit>(pendingCount);
+			for (var e : pending.entrySet()) for (int t : e.getValue()) added.add(new Hit(e.getKey(), t));
+			added.sort(this::compare);
+			int n = keys.length + added.size();
+			var nk = new String[n];
+			var nt = new int[n];
+			int i = 0, j = 0, o = 0;
+			while (i < keys.length || j < added.size()) {
+				if (j == added.size() || (i < keys.length && compare(new Hit(keys[i], keyTerms[i]), added.get(j)) <= 0)) {
+					nk[o] = keys[i];
+					nt[o++] = keyTerms[i++];
+				} else {
+					var h = added.get(j++);
+					nk[o] = h.key();
+					nt[o++] = h.term();
+				}
+			}
+			pending.clear();
+			pendingCount = 0;
+			keys = nk;
+			keyTerms = nt;
+
+			mergedTerms = terms;
+			posStart = new int[terms + 1];
+			for (int t : nt) posStart[t + 1]++;
+			for (int t = 0; t < terms; t++) posStart[t + 1] += posStart[t];
+			positions = new int[n];
+			int[] fill = Arrays.copyOf(posStart, terms);
+			for (int p = 0; p < n; p++) positions[fill[nt[p]]++] = p;
+
+			leaves = Integer.highestOneBit(Math.max(1, n - 1)) << 1;
+			tree = new long[2 * leaves];
+			Arrays.fill(tree, -1);
+			for (int p = 0; p < n; p++) tree[leaves + p] = leaf(p);
+			for (int k = leaves - 1; k >= 1; k--) tree[k] = Math.max(tree[2 * k], tree[2 * k + 1]);
+		}
+
+		List<Suggestion> top(String prefix, int limit) {
+			var seen = new HashSet<Integer>();
+			var hits = new ArrayList<Hit>();
+			int lo = lowerBound(prefix), hi = lowerBound(prefix + Character.MAX_VALUE);
+			// 区間を「最大の位置」で左右に割りながら、件数の多い順（同数はキー順）に取り出す
+			var heap = new PriorityQueue<long[]>(Comparator.comparingLong((long[] r) -> r[2]).reversed());
+			push(heap, lo, hi);
+			while (!heap.isEmpty() && hits.size() < limit) {
+				var r = heap.poll();
+				if (r[2] >>> 32 == 0) break;
+				int p = Integer.MAX_VALUE - (int) r[2], t = keyTerms[p];
+				if (seen.add(t)) hits.add(new Hit(keys[p], t));
+				push(heap, (int) r[0], p);
+				push(heap, p + 1, (int) r[1]);
+			}
+			// pending は件数順に並んでいないので、今の limit 件目に届くものだけ足し、溜まったら切り詰める
+			Comparator<Hit> order = Comparator.comparingInt((Hit h) -> -freq[h.term()]).thenComparing(this::compare);
+			int floor = hits.size() < limit ? 1 : freq[hits.get(hits.size() - 1).term()];
+			for (var e : pending.subMap(prefix, true, prefix + Character.MAX_VALUE, true).entrySet()) {
+				for (int t : e.getValue()) {
+					if (freq[t] < floor || !seen.add(t)) continue;
+					hits.add(new Hit(e.getKey(), t));
+					if (hits.size() >= 4 * limit) {
+						hits.sort(order);
+						hits.subList(limit, hits.size()).clear();
+						floor = freq[hits.get(limit - 1).term()];
+					}
+				}
+			}
+			hits.sort(order);
+			var out = new ArrayList<Suggestion>(Math.min(limit, hits.size()));
+			for (int i = 0; i < hits.size() && i < limit; i++) out.add(new Suggestion(texts[hits.get(i).term()], freq[hits.get(i).term()]));
+			return out;
+		}
+
+		// 同じキー（姓が同じ著者など）は表示名順
+		private int compare(Hit a, Hit b) {
+			int c = a.key().compareTo(b.key());
+			return c != 0 ? c : texts[a.term()].compareTo(texts[b.term()]);
+		}
+
+		// 当たったキーと語（同じ語の 2 つめ以降のキーは seen で落ちるので、キーは一番前のもの）
+		private record Hit(String key, int term) {}
+
+		private void push(PriorityQueue<long[]> heap, int lo, int hi) {
+			if (lo >= hi) return;
+			heap.add(new long[] { lo, hi, max(lo, hi) });
+		}
+
+		private int lowerBound(String key) {
+			int lo = 0, hi = keys.length;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (keys[mid].compareTo(key) < 0) lo = mid + 1; else hi = mid;
+			}
+			return lo;
+		}
+
+		// [lo, hi) で件数が最大のキー（同数なら前の位置）
+		private long max(int lo, int hi) {
+			long best = -1;
+			for (int l = lo + leaves, r = hi + leaves; l < r; l >>= 1, r >>= 1) {
+				if ((l & 1) == 1) best = Math.max(best, tree[l++]);
+				if ((r & 1) == 1) best = Math.max(best, tree[--r]);
+			}
+			return best;
+		}
+
+		private void update(int pos) {
+			int j = leaves + pos;
+			tree[j] = leaf(pos);
+			for (j >>= 1; j >= 1; j >>= 1) tree[j] = Math.max(tree[2 * j], tree[2 * j + 1]);
+		}
+
+		private long leaf(int pos) {
+			return (long) freq[keyTerms[pos]] << 32 | (Integer.MAX_VALUE - pos);
+		}
+	}
+}
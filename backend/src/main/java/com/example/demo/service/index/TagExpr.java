@@ -0,0 +1,38 @@
+package com.example.demo.service.index;
+
+import java.util.List;
+
+/**
+ * タグの論理式（例: {@code ml AND survey AND NOT read-later}, {@code (nlp OR cv) -draft}）。
+ * AND / OR / NOT は大文字小文字を問わない。並べただけの項は AND、{@code -tag} は NOT tag。
+ * 空白や括弧を含むタグは "..." で囲む。優先順位は NOT > AND > OR。
+ * タグ名は TagDictionary.normalize と同じく trim + 小文字化して持つ。
+ */
+public sealed interface TagExpr {
+
+	record Tag(String name) implements TagExpr {}
+	record And(List<TagExpr> terms) implements TagExpr {}
+	record Or(List<TagExpr> terms) implements TagExpr {}
+	record Not(TagExpr term) implements TagExpr {}
+
+	/** 構文エラーは IllegalArgumentException */
+	static TagExpr parse(String s) {
+		return TagExprParser.parse(s);
+	}
+
+	/** 従来の tags パラメータ（いずれかを含む）を式にしたもの。空なら null */
+	static TagExpr anyOf(List<String> tags) {
+		if (tags == null) return null;
+		var terms = tags.stream().filter(t -> t != null && !t.isBlank())
+				.map(t -> (TagExpr) new Tag(t.trim().toLowerCase())).distinct().toList();
+		if (terms.isEmpty()) return null;
+		return terms.size() == 1 ? terms.get(0) : new Or(terms);
+	}
+
+	/** a AND b（どちらかが null ならもう片方） */
+	static TagExpr and(TagExpr a, TagExpr b) {
+		if (a == null) return b;
+		if (b == null) return a;
+		return new And(List.of(a, b));
+	}
+}
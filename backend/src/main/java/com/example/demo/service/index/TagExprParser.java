@@ -0,0 +1,102 @@
+package com.example.demo.service.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.demo.service.index.TagExpr.And;
+import com.example.demo.service.index.TagExpr.Not;
+import com.example.demo.service.index.TagExpr.Or;
+import com.example.demo.service.index.TagExpr.Tag;
+
+/** TagExpr の再帰下降パーサ。or := and (OR and)* / and := unary ([AND] unary)* / unary := (NOT|-) unary | ( or ) | tag */
+final class TagExprParser {
+
+	// 巨大な式でビットマップ演算を延々させないための上限
+	private static final int MAX_LENGTH = 1000;
+
+	private final List<String> tokens;
+	private int pos;
+
+	private TagExprParser(List<String> tokens) {
+		this.tokens = tokens;
+	}
+
+	static TagExpr parse(String s) {
+		if (s == null || s.isBlank()) throw new IllegalArgumentException("empty tag expression");
+		if (s.length() > MAX_LENGTH) throw new IllegalArgumentException("tag expression too long");
+		var p = new TagExprParser(tokenize(s));
+		var e = p.or();
+		if (p.pos < p.tokens.size()) throw new IllegalArgumentException("unexpected '" + p.tokens.get(p.pos) + "'");
+		return e;
+	}
+
+	// 引用符付きのタグは先頭に '"' を残して、キーワードや記号と区別する
+	private static List<String> tokenize(String s) {
+		var out = new ArrayList<String>();
+		int i = 0, n = s.length();
+		while (i < n) {
+			char c = s.charAt(i);
+			if (Character.isWhitespace(c)) {
+				i++;
+			} else if (c == '(' || c == ')' || c == '-') {
+				// '-' は語頭のときだけ NOT（read-later のような語中の '-' はタグの一部）
+				out.add(String.valueOf(c));
+				i++;
+			} else if (c == '"') {
+				int end = s.indexOf('"', i + 1);
+				if (end < 0) throw new IllegalArgumentException("unterminated quote");
+				out.add("\"" + s.substring(i + 1, end));
+				i = end + 1;
+			} else {
+				int start = i;
+				while (i < n && !Character.isWhitespace(s.charAt(i)) && "()\"".indexOf(s.charAt(i)) < 0) i++;
+				out.add(s.substring(start, i));
+			}
+		}
+		return out;
+	}
+
+	private TagExpr or() {
+		var terms = new ArrayList<TagExpr>();
+		terms.add(and());
+		while (accept("OR")) terms.add(and());
+		return terms.size() == 1 ? terms.get(0) : new Or(List.copyOf(terms));
+	}
+
+	private TagExpr and() {
+		var terms = new ArrayList<TagExpr>();
+		terms.add(unary());
+		while (pos < tokens.size() && !peek("OR") && !peek(")")) {
+			accept("AND");
+			terms.add(unary());
+		}
+		return terms.size() == 1 ? terms.get(0) : new And(List.copyOf(terms));
+	}
+
+	private TagExpr unary() {
+		if (pos >= tokens.size()) throw new IllegalArgumentException("unexpected end of tag expression");
+		if (accept("NOT") || accept("-")) return new Not(unary());
+		var t = tokens.get(pos++);
+		if (t.equals("(")) {
+			var e = or();
+			if (!accept(")")) throw new IllegalArgumentException("missing ')'");
+			return e;
+		}
+		if (t.equals(")") || t.equalsIgnoreCase("AND") || t.equalsIgnoreCase("OR")) {
+			throw new IllegalArgumentException("unexpected '" + t + "'");
+		}
+		var name = (t.startsWith("\"") ? t.substring(1) : t).trim().toLowerCase();
+		if (name.isEmpty()) throw new IllegalArgumentException("empty tag name");
+		return new Tag(name);
+	}
+
+	private boolean accept(String token) {
+		if (!peek(token)) return false;
+		pos++;
+		return true;
+	}
+
+	private boolean peek(String token) {
+		return pos < tokens.size() && tokens.get(pos).equalsIgnoreCase(token);
+	}
+}
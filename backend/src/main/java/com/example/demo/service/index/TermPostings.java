@@ -0,0 +1,52 @@
+package com.example.demo.service.index;
+
+import java.util.Arrays;
+
+/**
+ * 1 語ぶんの昇順 ID ポスティングと、論文ごとの出現回数（BM25 用）。
+ * 回数は title を下位 4bit、authors を上位 4bit に詰めた 1 byte（15 回で頭打ち）。
+ * IntPostings と同じく追加はほぼ末尾 append。スレッドセーフではない（呼び出し側のロックで守る）。
+ */
+final class TermPostings {
+
+	private int[] ids = new int[2];
+	private byte[] tfs = new byte[2];
+	private int size;
+
+	int size() { return size; }
+
+	boolean isEmpty() { return size == 0; }
+
+	int id(int i) { return ids[i]; }
+
+	int titleTf(int i) { return tfs[i] & 0x0f; }
+
+	int authorsTf(int i) { return (tfs[i] >>> 4) & 0x0f; }
+
+	void add(int id, int titleTf, int authorsTf) {
+		byte tf = (byte) (Math.min(titleTf, 15) | Math.min(authorsTf, 15) << 4);
+		int pos = size == 0 || ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+		if (pos >= 0) {
+			tfs[pos] = tf;
+			return;
+		}
+		int ins = -pos - 1;
+		if (size == ids.length) {
+			ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+			tfs = Arrays.copyOf(tfs, ids.length);
+		}
+		System.arraycopy(ids, ins, ids, ins + 1, size - ins);
+		System.arraycopy(tfs, ins, tfs, ins + 1, size - ins);
+		ids[ins] = id;
+		tfs[ins] = tf;
+		size++;
+	}
+
+	void remove(int id) {
+		int pos = Arrays.binarySearch(ids, 0, size, id);
+		if (pos < 0) return;
+		System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+		System.arraycopy(tfs, pos + 1, tfs, pos, size - pos - 1);
+		size--;
+	}
+}
@@ -5,6 +5,8 @@ import java.util.List;
 
 import jakarta.servlet.http.HttpServletRequest;
 
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -15,6 +17,8 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.example.demo.service.DbBulkhead;
+
 @RestControllerAdvice(basePackages = "com.example.demo.web")
 public class ApiExceptionHandler {
 
@@ -85,6 +89,34 @@ public class ApiExceptionHandler {
         return ResponseEntity.status(ex.getStatusCode()).body(body);
     }
     
+    // 同じ論文への同時更新に負けた（@Version の不一致）。読み直してからやり直してもらう
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<ErrorResponse> onConflict(ConcurrencyFailureException ex, HttpServletRequest req) {
+        var body = new ErrorResponse(
+                "CONFLICT",
+                "The paper was modified concurrently, reload and retry",
+                List.of(),
+                req.getRequestURI(),
+                Instant.now()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
+
+    // DB の同時実行枠がいっぱい（DbBulkhead）。待ち行列に積まずに断り、Retry-After 秒後の再試行を促す
+    @ExceptionHandler(DbBulkhead.Rejected.class)
+    public ResponseEntity<ErrorResponse> onBusy(DbBulkhead.Rejected ex, HttpServletRequest req) {
+        var body = new ErrorResponse(
+                "SERVICE_UNAVAILABLE",
+                "Server is busy, retry later",
+                List.of(),
+                req.getRequestURI(),
+                Instant.now()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Integer.toString(ex.retryAfterSeconds()))
+                .body(body);
+    }
+
     private static final org.slf4j.Logger log =
             org.slf4j.LoggerFactory.getLogger(ApiExceptionHandler.class);
     
@@ -0,0 +1,112 @@
+package com.example.demo.web;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.demo.service.feed.ChangeFeed;
+import com.example.demo.service.feed.ChangeFeed.Change;
+import com.example.demo.web.PaperController.PaperRes;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@Tag(name = "Papers", description = "論文の作成・取得・検索・更新・削除")
+@RestController
+@RequestMapping("/api/papers")
+public class ChangeFeedController {
+
+	private final ChangeFeed feed;
+	private final long heartbeatMs;
+	private final long timeoutMs;
+	public ChangeFeedController(ChangeFeed feed,
+	                            @Value("${bibmanager.changes.heartbeat-ms:15000}") long heartbeatMs,
+	                            @Value("${bibmanager.changes.timeout-ms:1800000}") long timeoutMs) {
+		this.feed = feed;
+		this.heartbeatMs = heartbeatMs;
+		this.timeoutMs = timeoutMs;
+	}
+
+	/**
+	 * SSE の data。種類ごとに要る項目だけを入れる：
+	 * created / updated は paper（行全体）、status は status、tags は tags、deleted は id だけ、reset は何も無い。
+	 */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public static record ChangeRes(long seq, String type, Long id, PaperRes paper, String status, List<String> tags) {}
+
+	private static ChangeRes toRes(Change c) {
+		var p = c.paper();
+		return switch (c.type()) {
+			case CREATED, UPDATED -> new ChangeRes(c.seq(), c.type().eventName(), c.id(), PaperController.toRes(p), null, null);
+			case STATUS -> new ChangeRes(c.seq(), c.type().eventName(), c.id(), null, p.status(), null);
+			case TAGS -> new ChangeRes(c.seq(), c.type().eventName(), c.id(), null, null, p.tags());
+			case DELETED -> new ChangeRes(c.seq(), c.type().eventName(), c.id(), null, null, null);
+			case RESET -> new ChangeRes(c.seq(), c.type().eventName(), null, null, null, null);
+		};
+	}
+
+	@Operation(summary = "変更フィード（SSE）",
+			description = "論文の created / updated / status / tags / deleted を通し番号（SSE の id）付きで流す。"
+					+ "再接続時は Last-Event-ID（EventSource が自動で付ける）か since の続きから送る。"
+					+ "続きが残っていない・受け取りが遅れて溜まりすぎたときは reset を送るので、一覧を読み直すこと。"
+					+ "since なしで繋ぐと最初に ready（id は今の番号）を送る。")
+	@GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter changes(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+	                          @Parameter(description = "この番号より後の変更から") @RequestParam(required = false) Long since) {
+		Long from = since != null ? since : parseSeq(lastEventId);
+		var sub = feed.subscribe(from);
+		if (sub == null) throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "too many change feed subscribers");
+		var emitter = new SseEmitter(timeoutMs);
+		// 送信は購読者ごとの仮想スレッドで行う。遅いクライアントへの書き込みで詰まっても、その間の変更は購読側でまとめられる
+		var sender = Thread.ofVirtual().name("change-feed").unstarted(() -> {
+			try (sub) {
+				if (from == null) emitter.send(SseEmitter.event().id(Long.toString(sub.startSeq())).name("ready").data(""));
+				while (!Thread.currentThread().isInterrupted()) {
+					var batch = sub.poll(heartbeatMs);
+					if (batch.isEmpty()) {
+						// 切れた接続はここでの書き込み失敗で気づく
+						emitter.send(SseEmitter.event().comment("keep-alive"));
+						continue;
+					}
+					for (var c : batch) {
+						emitter.send(SseEmitter.event().id(Long.toString(c.seq())).name(c.type().eventName())
+								.data(toRes(c), MediaType.APPLICATION_JSON));
+					}
+				}
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			} catch (IOException | IllegalStateException ex) {
+				// クライアントが切断した（または emitter が完了済み）
+			} finally {
+				emitter.complete();
+			}
+		});
+		emitter.onCompletion(() -> { sub.close(); sender.interrupt(); });
+		emitter.onTimeout(() -> { sub.close(); sender.interrupt(); });
+		emitter.onError(ex -> { sub.close(); sender.interrupt(); });
+		sender.start();
+		return emitter;
+	}
+
+	// 数字でない Last-Event-ID は無視して今から流す
+	private static Long parseSeq(String id) {
+		if (id == null || id.isBlank()) return null;
+		try {
+			return Long.parseLong(id.trim());
+		} catch (NumberFormatException ex) {
+			return null;
+		}
+	}
+}
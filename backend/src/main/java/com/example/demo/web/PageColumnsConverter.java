@@ -0,0 +1,135 @@
+package com.example.demo.web;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import com.example.demo.service.PaperService.PaperRow;
+import com.example.demo.web.PaperController.PageRes;
+import com.example.demo.web.PaperController.PaperRes;
+import com.example.demo.web.PaperController.PaperResList;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 一覧（PageRes）の列形式。Accept: application/vnd.bibmanager.columns+json のときだけ使う。
+ * 項目名を行ごとに繰り返さず項目ごとの配列にし、tags はページ内のタグ辞書（tagNames）の添字で持つ。
+ * 行は JsonGenerator で直接書き出し、PaperRes は作らない。
+ * <pre>
+ * {"total":..,"page":..,"size":..,"hasNext":..,"nextCursor":..,"tagNames":["ml","nlp"],
+ *  "columns":{"id":[..],"title":[..],"authors":[..],"year":[..],"url":[..],"createdAt":[..],"status":[..],"tags":[[0,1],[]]}}
+ * </pre>
+ */
+@Component
+public class PageColumnsConverter extends AbstractHttpMessageConverter<PageRes<?>> {
+
+	public static final String MEDIA_TYPE_VALUE = "application/vnd.bibmanager.columns+json";
+	public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+	private final JsonFactory factory;
+	public PageColumnsConverter(ObjectMapper mapper) {
+		super(MEDIA_TYPE);
+		this.factory = mapper.getFactory();
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return clazz == PageRes.class;
+	}
+
+	@Override
+	public boolean canRead(Class<?> clazz, MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	protected PageRes<?> readInternal(Class<? extends PageRes<?>> clazz, HttpInputMessage inputMessage) {
+		throw new HttpMessageNotReadableException("columns format is response-only", inputMessage);
+	}
+
+	@Override
+	protected void writeInternal(PageRes<?> page, HttpOutputMessage outputMessage) throws IOException {
+		try (var gen = factory.createGenerator(StreamUtils.nonClosing(outputMessage.getBody()))) {
+			write(page, gen);
+		}
+	}
+
+	public static void write(PageRes<?> page, JsonGenerator gen) throws IOException {
+		var rows = rows(page.content());
+		// タグ辞書は出てきた順に添字を振る
+		var tagIds = new HashMap<String, Integer>();
+		var tagNames = new ArrayList<String>();
+		var tagRefs = new int[rows.size()][];
+		for (int i = 0; i < rows.size(); i++) {
+			var tags = rows.get(i).tags();
+			var refs = new int[tags.size()];
+			for (int j = 0; j < refs.length; j++) {
+				refs[j] = tagIds.computeIfAbsent(tags.get(j), t -> {
+					tagNames.add(t);
+					return tagNames.size() - 1;
+				});
+			}
+			tagRefs[i] = refs;
+		}
+
+		gen.writeStartObject();
+		gen.writeNumberField("total", page.total());
+		gen.writeNumberField("page", page.page());
+		gen.writeNumberField("size", page.size());
+		gen.writeBooleanField("hasNext", page.hasNext());
+		gen.writeStringField("nextCursor", page.nextCursor());
+		gen.writeArrayFieldStart("tagNames");
+		for (var t : tagNames) gen.writeString(t);
+		gen.writeEndArray();
+
+		gen.writeObjectFieldStart("columns");
+		gen.writeArrayFieldStart("id");
+		for (var r : rows) gen.writeNumber(r.id());
+		gen.writeEndArray();
+		gen.writeArrayFieldStart("title");
+		for (var r : rows) gen.writeString(r.title());
+		gen.writeEndArray();
+		gen.writeArrayFieldStart("authors");
+		for (var r : rows) gen.writeString(r.authors());
+		gen.writeEndArray();
+		gen.writeArrayFieldStart("year");
+		for (var r : rows) {
+			if (r.year() == null) gen.writeNull(); else gen.writeNumber(r.year());
+		}
+		gen.writeEndArray();
+		gen.writeArrayFieldStart("url");
+		for (var r : rows) gen.writeString(r.url());
+		gen.writeEndArray();
+		gen.writeArrayFieldStart("createdAt");
+		for (var r : rows) gen.writeNumber(r.createdAt());
+		gen.writeEndArray();
+		gen.writeArrayFieldStart("status");
+		for (var r : rows) gen.writeString(r.status());
+		gen.writeEndArray();
+		gen.writeArrayFieldStart("tags");
+		for (var refs : tagRefs) gen.writeArray(refs, 0, refs.length);
+		gen.writeEndArray();
+		gen.writeEndObject();
+
+		gen.writeEndObject();
+	}
+
+	// 一覧は PaperResList（中身は PaperRow）で来る。それ以外は PaperRes から詰め直す
+	private static List<PaperRow> rows(List<?> content) {
+		if (content instanceof PaperResList l) return l.rows();
+		return content.stream().map(o -> {
+			var p = (PaperRes) o;
+			return new PaperRow(p.id(), p.title(), p.authors(), p.year(), p.url(), p.createdAt(), p.status(), p.tags());
+		}).toList();
+	}
+}
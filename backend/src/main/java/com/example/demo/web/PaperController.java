@@ -1,6 +1,12 @@
 package com.example.demo.web;
 
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
@@ -8,7 +14,11 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -19,10 +29,17 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 //import com.example.demo.service.InMemoryPaperService;
 import com.example.demo.service.PaperService;
+import com.example.demo.service.index.FacetIndex;
+import com.example.demo.service.index.PaperVersions;
+import com.example.demo.service.index.SuggestIndex;
+import com.example.demo.service.index.TagExpr;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -38,9 +55,13 @@ public class PaperController {
 	
 //	private final InMemoryPaperService svc;
 	private final PaperService svc;
+	private final PaperVersions versions;
+	private final SuggestIndex suggest;
 //	public PaperController(InMemoryPaperService svc) {
-	public PaperController(PaperService svc) {
+	public PaperController(PaperService svc, PaperVersions versions, SuggestIndex suggest) {
 		this.svc = svc;
+		this.versions = versions;
+		this.suggest = suggest;
 	}
 	
 	public static record PaperCreateReq(
@@ -61,55 +82,314 @@ public class PaperController {
 			List<String> tags
 	) {}
 	
-	private static PaperRes toRes(com.example.demo.service.PaperService.PaperRow e) {
+	// 一覧の content。PaperRow を PaperRes に詰め替えたリストを作らず、シリアライズ中に 1 件ずつ変換する
+	// （列形式の PageColumnsConverter は rows() をそのまま読む）
+	public static final class PaperResList extends AbstractList<PaperRes> implements RandomAccess {
+		private final List<PaperService.PaperRow> rows;
+
+		public PaperResList(List<PaperService.PaperRow> rows) {
+			this.rows = rows;
+		}
+
+		public List<PaperService.PaperRow> rows() { return rows; }
+
+		@Override
+		public PaperRes get(int index) { return toRes(rows.get(index)); }
+
+		@Override
+		public int size() { return rows.size(); }
+	}
+	
+	// ChangeFeedController からも使う
+	static PaperRes toRes(PaperService.PaperRow e) {
 	    return new PaperRes(e.id(), e.title(), e.authors(), e.year(), e.url(),
 	                        e.createdAt(), e.status(), e.tags()); // ← ここで tags を渡す
 	}
 	
-	@Operation(summary = "論文を作成", description = "title は必須。year は 1900〜2100。")
+	// similarity はタイトル・著者から推定した類似度（0〜1）
+	public static record DuplicateRes(Long id, String title, String authors, Integer year, double similarity) {}
+	
+	// 作成した論文（PaperRes と同じ項目）に、重複かもしれない既存論文を足したもの
+	public static record PaperCreatedRes(
+			@JsonUnwrapped PaperRes paper,
+			List<DuplicateRes> possibleDuplicates
+	) {}
+	
+	private static final int CREATE_DUPLICATES = 5;
+	
+	private static List<DuplicateRes> toDuplicates(List<PaperService.Duplicate> ds) {
+		return ds.stream().map(d -> new DuplicateRes(d.paper().id(), d.paper().title(), d.paper().authors(),
+				d.paper().year(), d.similarity())).toList();
+	}
+	
+	@Operation(summary = "論文を作成", description = "title は必須。year は 1900〜2100。"
+			+ "タイトル・著者がほぼ同じ既存論文があれば possibleDuplicates に入る（作成は止めない）。")
 	@ApiResponses({
 	  @ApiResponse(responseCode = "201", description = "作成成功"),
 	  @ApiResponse(responseCode = "400", description = "入力バリデーションNG")
 	})
 	@PostMapping
 	@ResponseStatus(HttpStatus.CREATED)
-	public PaperRes create(@RequestBody @Valid PaperCreateReq req) {
+	public PaperCreatedRes create(@RequestBody @Valid PaperCreateReq req) {
 		var e = svc.create(req.title(), req.authors(), req.year(), req.url());
-		return toRes(e);
+		List<PaperService.Duplicate> dups;
+		try {
+			dups = svc.possibleDuplicates(e.id(), CREATE_DUPLICATES);
+		} catch (IllegalStateException ex) {
+			// 索引の構築中（や無効時）は重複チェックを飛ばして作成だけ返す
+			dups = List.of();
+		}
+		return new PaperCreatedRes(toRes(e), toDuplicates(dups));
+	}
+	
+	@Operation(summary = "重複候補", description = "タイトル・著者がほぼ同じ論文を似ている順に返す（句読点・大小文字・著者の書き方の違いを無視）。")
+	@ApiResponses({
+		@ApiResponse(responseCode = "200", description = "OK"),
+		@ApiResponse(responseCode = "503", description = "起動直後で索引を構築中（または重複検出が無効）")
+	})
+	@GetMapping("/{id}/duplicates")
+	public List<DuplicateRes> duplicates(@PathVariable Long id,
+								  @Parameter(description="最大件数(1-100)") @RequestParam(defaultValue="10") @Min(1) @Max(100) int limit) {
+		try {
+			return toDuplicates(svc.possibleDuplicates(id, limit));
+		} catch (IllegalStateException ex) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+		}
 	}
 	
+	// 先頭はまとまりの中で一番古い論文（similarity はその論文との値）
+	public static record DuplicateClusterRes(int size, List<DuplicateRes> papers) {}
+	
+	@Operation(summary = "重複レポート", description = "ライブラリ全体の重複のまとまりを大きい順に返す。全件を走査するので 100 万件で数秒かかる。")
+	@ApiResponses({
+		@ApiResponse(responseCode = "200", description = "OK"),
+		@ApiResponse(responseCode = "503", description = "起動直後で索引を構築中（または重複検出が無効）")
+	})
+	@GetMapping("/duplicates")
+	public List<DuplicateClusterRes> duplicateReport(
+								  @Parameter(description="最大まとまり数(1-1000)") @RequestParam(defaultValue="100") @Min(1) @Max(1000) int limit) {
+		try {
+			return svc.duplicateClusters(limit).stream()
+					.filter(c -> c.size() > 1)
+					.map(c -> new DuplicateClusterRes(c.size(), toDuplicates(c)))
+					.toList();
+		} catch (IllegalStateException ex) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+		}
+	}
+	
+	@Operation(summary = "論文を取得", description = "ETag 付き。If-None-Match が一致すれば DB を見ずに 304 を返す。")
 	@GetMapping("/{id}")
-	public PaperRes get(@PathVariable Long id) {
+	public PaperRes get(@PathVariable Long id, ServletWebRequest request) {
+		if (notModified(request, versions.isReady() ? versions.paperTag(id) : null)) return null;
 		var e = svc.findById(id)
 				.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Paper not found: " + id));
 		return toRes(e);
 	}
 	
 	
-	public static record PageRes<T>(List<T> content, long total, int page, int size, boolean hasNext){}
+	// nextCursor は cursor モードのときだけ入る（page モードでは null）。withTotal=false のとき total は -1
+	public static record PageRes<T>(List<T> content, long total, int page, int size, boolean hasNext, String nextCursor){}
 	
-	@Operation(summary = "論文一覧", description = "キーワード(q)とstatusで検索。ページング対応。")
-	@GetMapping
+	@Operation(summary = "論文一覧", description = "キーワード(q)とstatusで検索。ページング対応。cursor を渡すと keyset ページング（空文字で先頭から）。"
+			+ "sort=relevance なら q との関連度（title / authors の BM25）順で、上位 10000 件まで。"
+			+ "Accept: " + PageColumnsConverter.MEDIA_TYPE_VALUE + " なら列形式（項目ごとの配列とページ内のタグ辞書）で返す。")
+	@GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, PageColumnsConverter.MEDIA_TYPE_VALUE})
 	public PageRes<PaperRes> list(@Parameter(description="0始まりのページ番号", example="0") @RequestParam(defaultValue="0") @Min(0) int page,
 								  @Parameter(description="ページサイズ(1-200)", example="10") @RequestParam(defaultValue="10") @Min(1) @Max(200) int size,
 								  @Parameter(description="キーワード（title/authors 部分一致）", example="quic") @RequestParam(required=false) String q,
 								  @Parameter(description="UNREAD/READING/DONE", example="UNREAD") @RequestParam(required=false) String status,
-								  @RequestParam(required=false) List<String> tags
+								  @RequestParam(required=false) List<String> tags,
+								  @Parameter(description="タグ式。AND / OR / NOT と括弧、-tag が使える（tags と併用時は AND）", example="ml AND survey AND NOT read-later") @RequestParam(required=false) String tagExpr,
+								  @Parameter(description="前ページの nextCursor。指定時は page を無視する") @RequestParam(required=false) String cursor,
+								  @Parameter(description="false なら件数を数えず hasNext だけ返す（無限スクロール向け）") @RequestParam(defaultValue="true") boolean withTotal,
+								  @Parameter(description="id（新しい順）/ relevance（q との関連度順、q があるときだけ。cursor は使えない）") @RequestParam(defaultValue="id") String sort,
+								  ServletWebRequest request
 			){
-		var rows = svc.findAll(page, size, q, status, tags).stream()
-				.map(e -> toRes(e))
-				.toList();
+		if (!sort.equals("id") && !sort.equals("relevance"))
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sort must be id or relevance");
+		// 同じ URL で JSON と列形式を返し分けるので、キャッシュは Accept ごとに分けてもらう
+		request.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+		if (notModified(request, versions.isReady() ? versions.libraryTag(listRepresentation(request)) : null)) return null;
+		if (sort.equals("relevance") && q != null && !q.isBlank()) {
+			return listByRelevance(page, size, q, status, tagExpr(tags, tagExpr), cursor);
+		}
+		if (tagExpr != null) {
+			return listByTagExpr(page, size, q, status, tagExpr(tags, tagExpr), cursor);
+		}
+		if (cursor != null) {
+			Long after = cursor.isEmpty() ? null : decodeCursor(cursor);
+			// 1 件多く取って次ページの有無を判定する
+			var found = svc.findAfter(after, size + 1, q, status, tags);
+			boolean hasNext = found.size() > size;
+			var pageRows = hasNext ? found.subList(0, size) : found;
+			var rows = new PaperResList(pageRows);
+			long total = withTotal ? svc.countFiltered(q, status, tags) : -1;
+			String next = hasNext ? encodeCursor(pageRows.get(pageRows.size() - 1).id()) : null;
+			return new PageRes<>(rows, total, page, size, hasNext, next);
+		}
+		var found = svc.findAll(page, size, q, status, tags);
+		var rows = new PaperResList(found);
+		if (!withTotal) {
+			// 満杯のページなら、最後の id より後ろが 1 件でもあるかを keyset で確かめるだけ
+			boolean hasNext = found.size() == size
+					&& !svc.findAfter(found.get(found.size() - 1).id(), 1, q, status, tags).isEmpty();
+			return new PageRes<>(rows, -1, page, size, hasNext, null);
+		}
 		long total = svc.countFiltered(q, status, tags);
 		boolean hasNext = (long)(page + 1) * size < total;
-		return new PageRes<>(rows, total, page, size, hasNext);
+		return new PageRes<>(rows, total, page, size, hasNext, null);
 	}
 	
+	// タグ式の一覧は索引のビットマップだけで絞るので、件数も常に返す（withTotal は見ない）
+	private PageRes<PaperRes> listByTagExpr(int page, int size, String q, String status, TagExpr expr, String cursor) {
+		Long after = cursor == null || cursor.isEmpty() ? null : decodeCursor(cursor);
+		int offset = cursor == null ? (int) Math.min(Integer.MAX_VALUE, (long) page * size) : 0;
+		try {
+			var slice = svc.findByTagExpr(q, status, expr, after, offset, size + 1);
+			boolean hasNext = slice.rows().size() > size;
+			var pageRows = hasNext ? slice.rows().subList(0, size) : slice.rows();
+			var rows = new PaperResList(pageRows);
+			String next = cursor != null && hasNext ? encodeCursor(pageRows.get(pageRows.size() - 1).id()) : null;
+			return new PageRes<>(rows, slice.total(), page, size, hasNext, next);
+		} catch (IllegalStateException ex) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+		}
+	}
+
+	// 関連度順は上位 RELEVANCE_WINDOW 件まで（それより深いページはヒープが大きくなるだけで役に立たない）
+	private static final int RELEVANCE_WINDOW = 10_000;
+
+	private PageRes<PaperRes> listByRelevance(int page, int size, String q, String status, TagExpr expr, String cursor) {
+		if (cursor != null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "cursor paging is not supported with sort=relevance");
+		if ((long) (page + 1) * size > RELEVANCE_WINDOW)
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sort=relevance is limited to the first " + RELEVANCE_WINDOW + " results");
+		try {
+			var slice = svc.findByRelevance(q, status, expr, page * size, size);
+			var rows = new PaperResList(slice.rows());
+			boolean hasNext = (long) (page + 1) * size < Math.min(slice.total(), RELEVANCE_WINDOW);
+			return new PageRes<>(rows, slice.total(), page, size, hasNext, null);
+		} catch (IllegalStateException ex) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+		}
+	}
+
+	private static TagExpr tagExpr(List<String> tags, String tagExpr) {
+		try {
+			return TagExpr.and(TagExpr.anyOf(tags), tagExpr == null ? null : TagExpr.parse(tagExpr));
+		} catch (IllegalArgumentException ex) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid tagExpr: " + ex.getMessage());
+		}
+	}
+
+	@Operation(summary = "ファセット集計", description = "一覧と同じ q/status/tags/tagExpr の絞り込み結果について、status・タグ・年ごとの件数を返す。")
+	@ApiResponses({
+		@ApiResponse(responseCode = "200", description = "OK"),
+		@ApiResponse(responseCode = "503", description = "起動直後で索引を構築中")
+	})
+	@GetMapping("/facets")
+	public FacetIndex.Facets facets(@RequestParam(required=false) String q,
+								  @RequestParam(required=false) String status,
+								  @RequestParam(required=false) List<String> tags,
+								  @RequestParam(required=false) String tagExpr,
+								  @Parameter(description="返すタグの上位件数(0-200)") @RequestParam(defaultValue="20") @Min(0) @Max(200) int topTags,
+								  ServletWebRequest request) {
+		if (notModified(request, versions.isReady() ? versions.libraryTag(JSON) : null)) return null;
+		try {
+			return svc.facets(q, status, tagExpr(tags, tagExpr), topTags);
+		} catch (IllegalStateException ex) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+		}
+	}
+
+	// 頼まれなかった種類は null（JSON に出さない）
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public static record SuggestRes(List<SuggestIndex.Suggestion> tags, List<SuggestIndex.Suggestion> words,
+	                                List<SuggestIndex.Suggestion> authors) {}
+
+	@Operation(summary = "入力補完", description = "prefix で始まるタグ名・タイトルの単語・著者名を、使われている論文の多い順に返す。"
+			+ "メモリ上の索引だけで答え、DB には触れない。著者は姓からでも引ける（\"vas\" → \"Ashish Vaswani\"）。"
+			+ "タイトルは単語ごとなので、検索欄では入力中の最後の単語を渡す。")
+	@ApiResponses({
+		@ApiResponse(responseCode = "200", description = "OK"),
+		@ApiResponse(responseCode = "503", description = "起動直後で索引を構築中")
+	})
+	@GetMapping("/suggest")
+	public SuggestRes suggest(@Parameter(description="入力中の文字列") @RequestParam String prefix,
+								  @Parameter(description="tag / word / author（省略時は全部）") @RequestParam(required=false) List<String> kind,
+								  @Parameter(description="種類ごとの最大件数(1-50)") @RequestParam(defaultValue="8") @Min(1) @Max(50) int limit,
+								  ServletWebRequest request) {
+		if (!suggest.isReady()) throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "suggest index is not ready");
+		if (notModified(request, versions.isReady() ? versions.libraryTag(JSON) : null)) return null;
+		var kinds = kind == null || kind.isEmpty() ? List.of(SuggestIndex.Kind.values()) : kind.stream().map(k -> {
+			var parsed = SuggestIndex.Kind.of(k);
+			if (parsed == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "kind must be tag, word or author");
+			return parsed;
+		}).toList();
+		return new SuggestRes(
+				kinds.contains(SuggestIndex.Kind.TAG) ? suggest.suggest(SuggestIndex.Kind.TAG, prefix, limit) : null,
+				kinds.contains(SuggestIndex.Kind.WORD) ? suggest.suggest(SuggestIndex.Kind.WORD, prefix, limit) : null,
+				kinds.contains(SuggestIndex.Kind.AUTHOR) ? suggest.suggest(SuggestIndex.Kind.AUTHOR, prefix, limit) : null);
+	}
+
+	private static final String JSON = "json";
+	private static final String COLUMNS = "columns";
+
+	/**
+	 * 一覧が返す表現（ETag の区別用）。メッセージコンバータの選び方に合わせ、Accept を q 値と具体性の順に見て
+	 * 最初に受け入れられる型で決める（同順位なら produces の先頭の JSON）。
+	 */
+	static String listRepresentation(ServletWebRequest request) {
+		String accept = request.getHeader(HttpHeaders.ACCEPT);
+		if (accept == null || accept.isBlank()) return JSON;
+		List<MediaType> types;
+		try {
+			types = new ArrayList<>(MediaType.parseMediaTypes(accept));
+		} catch (InvalidMediaTypeException ex) {
+			return JSON;
+		}
+		MimeTypeUtils.sortBySpecificity(types);
+		for (var t : types) {
+			if (t.getQualityValue() == 0) continue;
+			if (t.includes(MediaType.APPLICATION_JSON)) return JSON;
+			if (t.includes(PageColumnsConverter.MEDIA_TYPE)) return COLUMNS;
+		}
+		return JSON;
+	}
+
+	/**
+	 * ETag は版番号だけから作るので、一致すれば DB にもインデックスにも触れずに 304 を返せる。
+	 * 版は本文を読む前に取る（読んだ後に取ると、古い本文に新しい版が付くことがある）。
+	 * no-cache でブラウザに毎回問い合わせさせ、axios 側は何もしなくても 304 のときキャッシュの本文が使われる。
+	 */
+	private static boolean notModified(ServletWebRequest request, String etag) {
+		if (etag == null) return false;
+		request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+		return request.checkNotModified(etag);
+	}
+
+	// cursor は最後に返した id を包んだだけの不透明トークン（クライアントは中身を解釈しない）
+	private static String encodeCursor(long lastId) {
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(("id:" + lastId).getBytes(StandardCharsets.UTF_8));
+	}
+	
+	private static long decodeCursor(String cursor) {
+		try {
+			var s = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			if (!s.startsWith("id:")) throw new IllegalArgumentException(s);
+			return Long.parseLong(s.substring(3));
+		} catch (IllegalArgumentException ex) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid cursor");
+		}
+	}
+	
+	// 1 件はエンティティとして消す（一括 DML は 2 次キャッシュの領域ごと捨てるので bulk 専用）
 	@DeleteMapping("/{id}")
 	@ResponseStatus(HttpStatus.NO_CONTENT)
 	public void delete(@PathVariable Long id) {
-		if(svc.findById(id).isEmpty())
+		if (!svc.delete(id))
 			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Paper not found: " + id);
-		svc.delete(id);
 	}
 	
 	public static record PaperUpdateReq(String title, String authors, Integer year, String url) {}
@@ -131,7 +411,7 @@ public class PaperController {
 		}
 		var wanted = req.status().trim().toUpperCase();
 		
-	    var allowed = java.util.Set.of("UNREAD", "READING", "DONE");
+	    var allowed = Set.of("UNREAD", "READING", "DONE");
 	    if (!allowed.contains(wanted)) {
 	        throw new org.springframework.web.server.ResponseStatusException(
 	                org.springframework.http.HttpStatus.BAD_REQUEST, "status must be one of " + allowed);
@@ -155,9 +435,87 @@ public class PaperController {
 	@DeleteMapping("/{id}/tags/{tag}")
 	@ResponseStatus(HttpStatus.NO_CONTENT)
 	public void removeTag(@PathVariable Long id, @PathVariable String tag) {
-	  if (svc.findById(id).isEmpty())
+	  // 論文が無ければ removeTag が empty を返すので、存在確認の読み直しはしない
+	  if (svc.removeTag(id, tag).isEmpty())
 	    throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Paper not found: " + id);
-	  svc.removeTag(id, tag);
+	}
+
+	// 一括操作の対象は ids か filter（一覧と同じ q/status/tags/tagExpr）のどちらか一方で指定する
+	public static record BulkFilter(
+			@Schema(description="キーワード（title/authors 部分一致）") String q,
+			@Schema(description="UNREAD/READING/DONE") String status,
+			@Schema(description="いずれかを持つ（OR）") List<String> tags,
+			@Schema(description="タグ式", example="ml AND NOT read-later") String tagExpr
+	) {
+		boolean isEmpty() {
+			return (q == null || q.isBlank()) && (status == null || status.isBlank())
+					&& (tags == null || tags.isEmpty()) && (tagExpr == null || tagExpr.isBlank());
+		}
+	}
+
+	// filter で選べる件数の上限（ids は @Size で同じ上限）
+	private static final int MAX_BULK = 10000;
+
+	public static record BulkTagReq(
+			@Schema(description="対象の論文ID") @Size(max=MAX_BULK) List<Long> ids,
+			@Schema(description="ids の代わりに条件で対象を選ぶ") BulkFilter filter,
+			@Schema(description="付けるタグ") List<String> add,
+			@Schema(description="外すタグ") List<String> remove
+	) {}
+
+	@Operation(summary = "タグの一括付け外し", description = "対象の全論文に add のタグを付け、remove のタグを外す。存在しない id は無視。")
+	@PostMapping("/tags/bulk")
+	public PaperService.BulkTagResult bulkTags(@RequestBody @Valid BulkTagReq req) {
+	  return svc.bulkTags(targets(req.ids(), req.filter()), req.add(), req.remove());
+	}
+
+	public static record BulkStatusReq(
+			@Schema(description="対象の論文ID") @Size(max=MAX_BULK) List<Long> ids,
+			@Schema(description="ids の代わりに条件で対象を選ぶ") BulkFilter filter,
+			@Schema(description="UNREAD/READING/DONE", example="DONE") @NotBlank String status
+	) {}
+
+	@Operation(summary = "status の一括変更", description = "1 トランザクションでまとめて更新する。affected は実際に status が変わった件数。")
+	@PostMapping("/status/bulk")
+	public PaperService.BulkResult bulkStatus(@RequestBody @Valid BulkStatusReq req) {
+	  var wanted = req.status().trim().toUpperCase();
+	  if (!STATUSES.contains(wanted))
+	    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "status must be one of " + STATUSES);
+	  return svc.bulkStatus(targets(req.ids(), req.filter()), wanted);
+	}
+
+	public static record BulkDeleteReq(
+			@Schema(description="対象の論文ID") @Size(max=MAX_BULK) List<Long> ids,
+			@Schema(description="ids の代わりに条件で対象を選ぶ") BulkFilter filter
+	) {}
+
+	@Operation(summary = "一括削除", description = "1 トランザクションでまとめて削除する。存在しない id は無視し、affected は削除した件数。")
+	@PostMapping("/delete/bulk")
+	public PaperService.BulkResult bulkDelete(@RequestBody @Valid BulkDeleteReq req) {
+	  return svc.bulkDelete(targets(req.ids(), req.filter()));
+	}
+
+	private static final Set<String> STATUSES = Set.of("UNREAD", "READING", "DONE");
+
+	// 条件は索引のビットマップで解決する（DB には id を取りに行かない）。空の条件（全件）は誤操作とみなして断る
+	private List<Long> targets(List<Long> ids, BulkFilter filter) {
+	  boolean byIds = ids != null && !ids.isEmpty();
+	  if (byIds == (filter != null))
+	    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "specify either ids or filter");
+	  if (byIds) return ids;
+	  if (filter.isEmpty())
+	    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "filter needs at least one of q, status, tags, tagExpr");
+	  String status = filter.status() == null || filter.status().isBlank() ? null : filter.status().trim().toUpperCase();
+	  if (status != null && !STATUSES.contains(status))
+	    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "status must be one of " + STATUSES);
+	  try {
+	    var found = svc.matchingIds(filter.q(), status, tagExpr(filter.tags(), filter.tagExpr()), MAX_BULK + 1);
+	    if (found.size() > MAX_BULK)
+	      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "filter matches more than " + MAX_BULK + " papers");
+	    return found;
+	  } catch (IllegalStateException ex) {
+	    throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+	  }
 	}
 
 }
@@ -0,0 +1,87 @@
+package com.example.demo.web;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.service.exporter.ExportFormat;
+import com.example.demo.service.exporter.PaperExporter;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@Tag(name = "Papers", description = "論文の作成・取得・検索・更新・削除")
+@RestController
+@RequestMapping("/api/papers")
+public class PaperExportController {
+
+	private final PaperExporter exporter;
+	public PaperExportController(PaperExporter exporter) {
+		this.exporter = exporter;
+	}
+
+	@Operation(summary = "エクスポート",
+			description = "一覧と同じ q/status/tags で絞り込んだ全件を BibTeX / NDJSON / CSV でストリーム出力する。Accept-Encoding: gzip なら圧縮。")
+	@GetMapping("/export")
+	public void export(@Parameter(description = "bibtex / ndjson / csv", example = "bibtex") @RequestParam(defaultValue = "ndjson") String format,
+	                   @RequestParam(required = false) String q,
+	                   @RequestParam(required = false) String status,
+	                   @RequestParam(required = false) List<String> tags,
+	                   HttpServletRequest request,
+	                   HttpServletResponse response) throws IOException {
+		var fmt = ExportFormat.of(format);
+		if (fmt == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be bibtex, ndjson or csv");
+
+		response.setContentType(fmt.contentType() + ";charset=UTF-8");
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"papers." + fmt.extension() + "\"");
+		response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if (acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+			try (var out = new GZIPOutputStream(response.getOutputStream(), 64 * 1024)) {
+				exporter.export(fmt, q, status, tags, out);
+			}
+		} else {
+			exporter.export(fmt, q, status, tags, response.getOutputStream());
+		}
+	}
+
+	/**
+	 * Accept-Encoding が gzip を受け入れるか。トークンごとに q 値を見る（gzip;q=0 は断り）。
+	 * gzip の指定が無ければ * の q 値に従う。
+	 */
+	static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) return false;
+		Double gzip = null, any = null;
+		for (var token : acceptEncoding.split(",")) {
+			var parts = token.split(";");
+			var coding = parts[0].trim().toLowerCase(Locale.ROOT);
+			double q = 1;
+			for (int i = 1; i < parts.length; i++) {
+				var param = parts[i].trim().toLowerCase(Locale.ROOT);
+				if (!param.startsWith("q=")) continue;
+				try {
+					q = Double.parseDouble(param.substring(2).trim());
+				} catch (NumberFormatException ex) {
+					q = 0;
+				}
+			}
+			if (coding.equals("gzip") || coding.equals("x-gzip")) gzip = gzip == null ? q : Math.max(gzip, q);
+			else if (coding.equals("*")) any = q;
+		}
+		if (gzip != null) return gzip > 0;
+		return any != null && any > 0;
+	}
+}
@@ -0,0 +1,64 @@
+package com.example.demo.web;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.service.importer.BibtexRecordReader;
+import com.example.demo.service.importer.NdjsonRecordReader;
+import com.example.demo.service.importer.PaperImportService;
+import com.example.demo.service.importer.PaperImportService.ImportReport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@Tag(name = "Papers", description = "論文の作成・取得・検索・更新・削除")
+@RestController
+@RequestMapping("/api/papers")
+@Profile("!inmemory")
+public class PaperImportController {
+
+	private final PaperImportService importer;
+	private final ObjectMapper mapper;
+	public PaperImportController(PaperImportService importer, ObjectMapper mapper) {
+		this.importer = importer;
+		this.mapper = mapper;
+	}
+
+	@Operation(summary = "一括取り込み",
+			description = "BibTeX か NDJSON の本文をストリームで読み、JDBC バッチで登録する。レコード単位のエラーと処理速度を返す。")
+	@PostMapping("/import")
+	public ImportReport importPapers(
+			@Parameter(description = "bibtex / ndjson（省略時は Content-Type から判断）") @RequestParam(required = false) String format,
+			HttpServletRequest request) throws IOException {
+		String fmt = format != null ? format.toLowerCase() : guessFormat(request.getContentType());
+		// @RequestBody を使わず InputStream を直接読む（本文全体をメモリに載せない）
+		var in = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+		return switch (fmt) {
+			case "bibtex" -> importer.importAll(new BibtexRecordReader(in));
+			case "ndjson" -> importer.importAll(new NdjsonRecordReader(in, mapper));
+			default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be bibtex or ndjson");
+		};
+	}
+
+	private static String guessFormat(String contentType) {
+		if (contentType == null) return "";
+		var ct = contentType.toLowerCase();
+		if (ct.contains("ndjson") || ct.contains("jsonl")) return "ndjson";
+		if (ct.contains("bibtex") || ct.contains("x-bibtex")) return "bibtex";
+		return "";
+	}
+}
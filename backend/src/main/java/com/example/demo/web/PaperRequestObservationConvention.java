@@ -0,0 +1,37 @@
+package com.example.demo.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.common.KeyValues;
+
+/**
+ * http.server.requests に一覧の「絞り込みの形」を足す。値そのもの（q の文字列など）は入れず、
+ * q / status / tagExpr の有無、tags の個数（0/1/2/3+）、ページングの方式だけにしてタグの種類数を抑える。
+ * 同じメトリクス名ではキーを揃える必要があるので、一覧以外のリクエストでも false / 0 / none で埋める。
+ */
+@Component
+public class PaperRequestObservationConvention extends DefaultServerRequestObservationConvention {
+
+	@Override
+	public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+		HttpServletRequest req = context.getCarrier();
+		boolean papers = req.getRequestURI().startsWith("/api/papers");
+		var tags = papers ? req.getParameterValues("tags") : null;
+		int tagCount = tags == null ? 0 : tags.length;
+		String paging = !papers ? "none" : req.getParameter("cursor") != null ? "cursor" : req.getParameter("page") != null ? "page" : "none";
+		return super.getLowCardinalityKeyValues(context).and(
+				"filter.q", present(papers, req.getParameter("q")),
+				"filter.status", present(papers, req.getParameter("status")),
+				"filter.tags", tagCount >= 3 ? "3+" : Integer.toString(tagCount),
+				"filter.tagExpr", present(papers, req.getParameter("tagExpr")),
+				"paging", paging);
+	}
+
+	private static String present(boolean papers, String value) {
+		return papers && value != null && !value.isBlank() ? "true" : "false";
+	}
+}
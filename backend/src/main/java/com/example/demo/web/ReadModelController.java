@@ -0,0 +1,48 @@
+package com.example.demo.web;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.service.PaperJpaService;
+import com.example.demo.service.index.PaperReadModel;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@Tag(name = "Admin", description = "一覧用の読み取りモデルの状態確認と作り直し")
+@RestController
+@RequestMapping("/api/admin/read-model")
+@Profile("!inmemory")
+public class ReadModelController {
+
+	private final PaperJpaService svc;
+	private final PaperReadModel readModel;
+	public ReadModelController(PaperJpaService svc, PaperReadModel readModel) {
+		this.svc = svc;
+		this.readModel = readModel;
+	}
+
+	public static record ReadModelStatus(boolean ready, boolean rebuilding, int papers) {}
+
+	@Operation(summary = "読み取りモデルの状態", description = "ready=false の間は一覧が SQL の経路で返る。")
+	@GetMapping
+	public ReadModelStatus status() {
+		return new ReadModelStatus(readModel.isReady(), readModel.isRebuilding(), readModel.size());
+	}
+
+	@Operation(summary = "読み取りモデルを作り直す",
+			description = "papers から裏で作り直して差し替える（202）。その間も一覧は今のモデルで返る。既に実行中なら 409。")
+	@PostMapping("/rebuild")
+	@ResponseStatus(HttpStatus.ACCEPTED)
+	public ReadModelStatus rebuild() {
+		if (!svc.rebuildReadModel())
+			throw new ResponseStatusException(HttpStatus.CONFLICT, "read model rebuild is already running or disabled");
+		return status();
+	}
+}
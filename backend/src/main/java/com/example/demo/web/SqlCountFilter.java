@@ -0,0 +1,150 @@
+package com.example.demo.web;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.example.demo.config.SqlStatementCounter;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 1 リクエストで Hibernate が発行した SQL の文数を bibmanager.sql.statements（uri / method 別）に記録する。
+ * bibmanager.debug.sql-count-header=true なら X-SQL-Count ヘッダでも返す（一覧で N+1 が出たらすぐ分かるように）。
+ * ヘッダはレスポンス本文を書き始める直前の数なので、ストリーミング中に出た分は入らない。
+ */
+@Component
+public class SqlCountFilter extends OncePerRequestFilter {
+
+	public static final String HEADER = "X-SQL-Count";
+
+	private final MeterRegistry registry;
+	private final boolean header;
+
+	public SqlCountFilter(MeterRegistry registry, @Value("${bibmanager.debug.sql-count-header:false}") boolean header) {
+		this.registry = registry;
+		this.header = header;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain)
+			throws ServletException, IOException {
+		SqlStatementCounter.reset();
+		var out = header ? new CountingResponse(res) : null;
+		try {
+			chain.doFilter(req, out != null ? out : res);
+		} finally {
+			if (out != null) out.stamp();
+			var uri = req.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+			DistributionSummary.builder("bibmanager.sql.statements")
+					.description("SQL statements issued through Hibernate per request")
+					.baseUnit("statements")
+					.tag("uri", uri != null ? uri.toString() : "UNKNOWN")
+					.tag("method", req.getMethod())
+					.register(registry)
+					.record(SqlStatementCounter.count());
+			SqlStatementCounter.reset();
+		}
+	}
+
+	// 本文を書き出す（＝ヘッダが確定する）直前に件数ヘッダを差し込む
+	private static final class CountingResponse extends HttpServletResponseWrapper {
+		private boolean stamped;
+		private ServletOutputStream stream;
+
+		CountingResponse(HttpServletResponse res) {
+			super(res);
+		}
+
+		void stamp() {
+			if (stamped || isCommitted()) return;
+			stamped = true;
+			setHeader(HEADER, Long.toString(SqlStatementCounter.count()));
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			if (stream == null) stream = new StampingStream(super.getOutputStream());
+			return stream;
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			stamp();
+			return super.getWriter();
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			stamp();
+			super.flushBuffer();
+		}
+
+		@Override
+		public void sendError(int sc, String msg) throws IOException {
+			stamp();
+			super.sendError(sc, msg);
+		}
+
+		@Override
+		public void sendError(int sc) throws IOException {
+			stamp();
+			super.sendError(sc);
+		}
+
+		private final class StampingStream extends ServletOutputStream {
+			private final ServletOutputStream delegate;
+
+			StampingStream(ServletOutputStream delegate) {
+				this.delegate = delegate;
+			}
+
+			@Override
+			public void write(int b) throws IOException {
+				stamp();
+				delegate.write(b);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				stamp();
+				delegate.write(b, off, len);
+			}
+
+			@Override
+			public void flush() throws IOException {
+				stamp();
+				delegate.flush();
+			}
+
+			@Override
+			public void close() throws IOException {
+				stamp();
+				delegate.close();
+			}
+
+			@Override
+			public boolean isReady() {
+				return delegate.isReady();
+			}
+
+			@Override
+			public void setWriteListener(WriteListener listener) {
+				delegate.setWriteListener(listener);
+			}
+		}
+	}
+}
@@ -0,0 +1,2 @@
+-- 楽観ロック用の版番号（@Version）。既存行と JDBC の一括取り込みは 0 から
+ALTER TABLE papers ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
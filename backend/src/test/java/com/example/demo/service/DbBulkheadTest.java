@@ -0,0 +1,59 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DbBulkheadTest {
+
+	private static DbBulkhead bulkhead(int initial, int min, int max) {
+		return new DbBulkhead(new SimpleMeterRegistry(), true, initial, min, max, 0, 3);
+	}
+
+	// n 件同時に入れて、全部 rtt で返す
+	private static void round(DbBulkhead b, int n, long rttNanos) {
+		for (int i = 0; i < n; i++) b.acquire();
+		for (int i = 0; i < n; i++) b.release(rttNanos, true);
+	}
+
+	@Test
+	void rejectsWhenFullAndAdmitsAfterRelease() {
+		var b = bulkhead(2, 2, 2);
+		b.acquire();
+		b.acquire();
+		assertThatThrownBy(b::acquire)
+				.isInstanceOf(DbBulkhead.Rejected.class)
+				.satisfies(ex -> assertThat(((DbBulkhead.Rejected) ex).retryAfterSeconds()).isEqualTo(3));
+
+		b.release(1, null);
+		b.acquire();
+		assertThat(b.inFlight()).isEqualTo(2);
+	}
+
+	@Test
+	void limitShrinksWhenLatencyRisesAndGrowsBackWhenItRecovers() {
+		var b = bulkhead(20, 2, 50);
+		for (int i = 0; i < 200; i++) round(b, Math.min(15, (int) b.limit()), 1_000_000);
+		double warmed = b.limit();
+
+		for (int i = 0; i < 3; i++) round(b, Math.min(15, (int) b.limit()), 10_000_000);
+		assertThat(b.limit()).isLessThan(warmed / 2);
+
+		for (int i = 0; i < 300; i++) round(b, (int) b.limit(), 1_000_000);
+		assertThat(b.limit()).isGreaterThan(warmed);
+	}
+
+	@Test
+	void failuresCutTheLimit() {
+		var b = bulkhead(20, 2, 50);
+		for (int i = 0; i < 20; i++) {
+			b.acquire();
+			b.release(1_000_000, false);
+		}
+		assertThat(b.limit()).isLessThan(20).isGreaterThanOrEqualTo(2);
+		assertThat(b.inFlight()).isZero();
+	}
+}
@@ -0,0 +1,164 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.service.index.FacetIndex;
+import com.example.demo.service.index.NearDuplicateIndex;
+import com.example.demo.service.index.PaperIndexes;
+import com.example.demo.service.index.PaperSearchIndex;
+import com.example.demo.service.index.TagExpr;
+
+class InMemoryPaperServiceTest {
+
+	private InMemoryPaperService svc;
+
+	@BeforeEach
+	void setUp() {
+		var search = new PaperSearchIndex(2.0, 1.0);
+		var facets = new FacetIndex();
+		var duplicates = new NearDuplicateIndex(0.7, true);
+		svc = new InMemoryPaperService(search, facets, duplicates, new PaperIndexes(List.of(search, facets, duplicates)));
+		svc.init();
+		for (int i = 1; i <= 10; i++) {
+			svc.create("Paper " + i + (i % 2 == 0 ? " Survey" : ""), "Author " + i, 2000 + i, null);
+		}
+		svc.addTag(3L, "ML");
+		svc.addTag(4L, "ml");
+		svc.addTag(4L, "nlp");
+		svc.setStatus(5L, "DONE");
+	}
+
+	private static List<Long> ids(List<PaperService.PaperRow> rows) {
+		return rows.stream().map(PaperService.PaperRow::id).toList();
+	}
+
+	@Test
+	void pagesAreNewestFirst() {
+		assertThat(ids(svc.findAll(0, 3))).containsExactly(10L, 9L, 8L);
+		assertThat(ids(svc.findAll(3, 3))).containsExactly(1L);
+		assertThat(svc.findAll(4, 3)).isEmpty();
+	}
+
+	@Test
+	void filtersMatchJpaSemantics() {
+		assertThat(ids(svc.findAll(0, 10, "survey", null, null))).containsExactly(10L, 8L, 6L, 4L, 2L);
+		assertThat(svc.countFiltered("SURVEY", null, null)).isEqualTo(5);
+		assertThat(ids(svc.findAll(0, 10, null, null, List.of("ML", "nlp")))).containsExactly(4L, 3L);
+		assertThat(ids(svc.findAll(0, 10, null, "done", null))).containsExactly(5L);
+		assertThat(ids(svc.findAll(0, 10, "survey", "unread", List.of("ml")))).containsExactly(4L);
+		// LIKE のワイルドカードもそのまま効く
+		assertThat(svc.countFiltered("paper _ s", null, null)).isEqualTo(4);
+	}
+
+	@Test
+	void facetsCountWithinCurrentFilter() {
+		var all = svc.facets(null, null, null, 10);
+		assertThat(all.total()).isEqualTo(10);
+		assertThat(all.status()).containsEntry("UNREAD", 9L).containsEntry("DONE", 1L).containsEntry("READING", 0L);
+		assertThat(all.tags()).containsExactly(new FacetIndex.TagCount("ml", 2), new FacetIndex.TagCount("nlp", 1));
+		assertThat(all.years()).hasSize(10).containsEntry(2005, 1L);
+
+		var survey = svc.facets("survey", null, TagExpr.anyOf(List.of("ml")), 10);
+		assertThat(survey.total()).isEqualTo(1);
+		assertThat(survey.tags()).containsExactly(new FacetIndex.TagCount("ml", 1), new FacetIndex.TagCount("nlp", 1));
+		assertThat(survey.years()).containsOnlyKeys(2004);
+	}
+
+	@Test
+	void tagExpressionsCombineWithFiltersAndPaging() {
+		svc.addTag(6L, "ml");
+		svc.addTag(6L, "survey");
+		svc.addTag(4L, "survey");
+		svc.addTag(4L, "read-later");
+
+		var and = svc.findByTagExpr(null, null, TagExpr.parse("ml AND survey AND NOT read-later"), null, 0, 10);
+		assertThat(ids(and.rows())).containsExactly(6L);
+		var or = svc.findByTagExpr(null, null, TagExpr.parse("nlp OR -ml"), null, 0, 10);
+		assertThat(or.total()).isEqualTo(8);
+		assertThat(ids(svc.findByTagExpr("survey", "unread", TagExpr.parse("ml"), null, 0, 10).rows())).containsExactly(6L, 4L);
+
+		// page と keyset のどちらでも id 降順に切り出せる
+		assertThat(ids(svc.findByTagExpr(null, null, TagExpr.parse("-nlp"), null, 2, 3).rows())).containsExactly(8L, 7L, 6L);
+		var after = svc.findByTagExpr(null, null, TagExpr.parse("-nlp"), 6L, 0, 3);
+		assertThat(ids(after.rows())).containsExactly(5L, 3L, 2L);
+		assertThat(after.total()).isEqualTo(9);
+	}
+
+	@Test
+	void relevanceOrdersWithinFilterAndKeepsTotal() {
+		var focused = svc.create("Survey", "Author 11", 2011, null);
+		svc.update(4L, "Paper 4 Survey of Survey Papers", null, null, null);
+
+		// タイトルの短い・語を多く含む論文が先、同点は id 降順
+		var page = svc.findByRelevance("survey", null, null, 0, 3);
+		assertThat(ids(page.rows())).containsExactly(focused.id(), 4L, 10L);
+		assertThat(page.total()).isEqualTo(6);
+		assertThat(ids(svc.findByRelevance("survey", null, null, 3, 3).rows())).containsExactly(8L, 6L, 2L);
+		assertThat(ids(svc.findByRelevance("survey", null, TagExpr.parse("ml"), 0, 10).rows())).containsExactly(4L);
+	}
+
+	@Test
+	void keysetPagingSeeksPastCursor() {
+		assertThat(ids(svc.findAfter(null, 2, null, null, null))).containsExactly(10L, 9L);
+		assertThat(ids(svc.findAfter(9L, 2, null, "UNREAD", null))).containsExactly(8L, 7L);
+		assertThat(ids(svc.findAfter(4L, 5, "survey", null, null))).containsExactly(2L);
+	}
+
+	@Test
+	void mutationsKeepSecondaryIndexesInSync() {
+		var r = svc.addTag(1L, " Survey ").orElseThrow();
+		assertThat(r.tags()).containsExactly("survey");
+		assertThat(svc.bulkTags(List.of(1L, 2L, 99L), List.of("x"), List.of("survey")))
+				.isEqualTo(new PaperService.BulkTagResult(2, 1));
+		assertThat(svc.countFiltered(null, null, List.of("survey"))).isZero();
+
+		svc.update(2L, "renamed", null, null, null);
+		assertThat(svc.countFiltered("survey", null, null)).isEqualTo(4);
+		svc.delete(1L);
+		assertThat(svc.countFiltered(null, null, List.of("x"))).isEqualTo(1);
+		assertThat(svc.count()).isEqualTo(9);
+	}
+
+	@Test
+	void removeTagIsEmptyOnlyForMissingPapers() {
+		// コントローラはこの結果だけで 404 を決める
+		assertThat(svc.removeTag(4L, "ml").orElseThrow().tags()).containsExactly("nlp");
+		assertThat(svc.removeTag(4L, "absent")).isPresent();
+		assertThat(svc.removeTag(4L, " ")).isPresent();
+		assertThat(svc.removeTag(99L, "ml")).isEmpty();
+		assertThat(svc.removeTag(99L, " ")).isEmpty();
+	}
+
+	@Test
+	void bulkStatusAndDeleteOnFilteredTargets() {
+		var targets = svc.matchingIds("survey", null, TagExpr.parse("ml OR nlp"), 100);
+		assertThat(targets).containsExactly(4L);
+		targets = svc.matchingIds("survey", "UNREAD", null, 100);
+		assertThat(targets).containsExactly(10L, 8L, 6L, 4L, 2L);
+
+		assertThat(svc.bulkStatus(List.of(10L, 8L, 5L, 5L, 99L), "DONE")).isEqualTo(new PaperService.BulkResult(4, 2));
+		assertThat(ids(svc.findAll(0, 10, null, "done", null))).containsExactly(10L, 8L, 5L);
+		assertThat(svc.facets(null, null, null, 0).status()).containsEntry("DONE", 3L);
+
+		assertThat(svc.bulkDelete(svc.matchingIds(null, "DONE", null, 100))).isEqualTo(new PaperService.BulkResult(3, 3));
+		assertThat(svc.count()).isEqualTo(7);
+		assertThat(svc.matchingIds(null, "DONE", null, 100)).isEmpty();
+		assertThat(svc.bulkDelete(List.of(10L))).isEqualTo(new PaperService.BulkResult(1, 0));
+	}
+
+	@Test
+	void possibleDuplicatesFollowCreateAndDelete() {
+		long a = svc.create("Deep Residual Learning for Image Recognition", "He, Kaiming; Zhang, Xiangyu", 2016, null).id();
+		long b = svc.create("Deep residual learning for image recognition.", "Kaiming He, Xiangyu Zhang", 2016, null).id();
+		assertThat(svc.possibleDuplicates(b, 5)).extracting(d -> d.paper().id()).containsExactly(a);
+		assertThat(svc.duplicateClusters(10)).anySatisfy(c -> assertThat(c).extracting(d -> d.paper().id()).containsExactly(a, b));
+
+		svc.delete(a);
+		assertThat(svc.possibleDuplicates(b, 5)).isEmpty();
+	}
+}
@@ -0,0 +1,108 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.demo.domain.Tag;
+import com.example.demo.repository.TagRepository;
+
+class TagDictionaryTest {
+
+	// tags 表の代わり。insertIfAbsent は on conflict do nothing と同じく、既にあれば何もしない
+	private final Map<String, Long> table = new ConcurrentHashMap<>();
+	private final AtomicLong seq = new AtomicLong();
+	private final AtomicInteger inserts = new AtomicInteger();
+	private TagDictionary dict;
+
+	@BeforeEach
+	void setUp() {
+		var repo = (TagRepository) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {TagRepository.class},
+				(proxy, m, args) -> switch (m.getName()) {
+					case "insertIfAbsent" -> {
+						inserts.incrementAndGet();
+						yield table.putIfAbsent((String) args[0], seq.incrementAndGet()) == null ? 1 : 0;
+					}
+					case "findByName" -> Optional.ofNullable(table.get((String) args[0]))
+							.map(id -> Tag.builder().id(id).name((String) args[0]).build());
+					case "findAll" -> table.entrySet().stream()
+							.map(e -> Tag.builder().id(e.getValue()).name(e.getKey()).build()).toList();
+					default -> throw new UnsupportedOperationException(m.getName());
+				});
+		dict = new TagDictionary(repo);
+	}
+
+	@Test
+	void concurrentCreatesOfTheSameTagShareOneRow() throws Exception {
+		int n = 16;
+		var start = new CountDownLatch(1);
+		var results = new ArrayList<Future<Long>>();
+		try (var pool = Executors.newFixedThreadPool(n)) {
+			for (int i = 0; i < n; i++) {
+				results.add(pool.submit(() -> {
+					start.await();
+					return dict.resolveOrCreate("ml");
+				}));
+			}
+			start.countDown();
+			var ids = new ArrayList<Long>();
+			for (var f : results) ids.add(f.get());
+			assertThat(ids.stream().distinct().toList()).containsExactly(table.get("ml"));
+		}
+		assertThat(table).hasSize(1);
+		assertThat(dict.cachedId("ml")).isEqualTo(table.get("ml"));
+
+		// 辞書に載った後は DB を見ない
+		int before = inserts.get();
+		assertThat(dict.resolveOrCreate("ml")).isEqualTo(table.get("ml"));
+		assertThat(inserts.get()).isEqualTo(before);
+	}
+
+	@Test
+	void rememberedOnlyAfterCommit() {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			long id = dict.resolveOrCreate("nlp");
+			assertThat(dict.cachedId("nlp")).isNull();
+			TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+			assertThat(dict.cachedId("nlp")).isEqualTo(id);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		// ロールバックしたら（afterCommit が来なければ）辞書には載らない
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			dict.resolveOrCreate("rolled-back");
+			assertThat(dict.cachedId("rolled-back")).isNull();
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertThat(dict.cachedId("rolled-back")).isNull();
+	}
+
+	@Test
+	void warmLoadsExistingTags() {
+		table.put("db", 42L);
+		dict.warm();
+		assertThat(dict.idOf("db")).contains(42L);
+		assertThat(dict.idOf("missing")).isEmpty();
+		assertThat(dict.cachedId("db")).isEqualTo(42L);
+		assertThat(List.of(dict.resolveOrCreate("db"))).containsExactly(42L);
+	}
+}
@@ -0,0 +1,129 @@
+package com.example.demo.service.exporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.service.PaperService.PaperRow;
+import com.example.demo.service.importer.BibtexRecordReader;
+import com.example.demo.service.importer.ImportRecord;
+import com.example.demo.service.importer.NdjsonRecordReader;
+import com.example.demo.service.importer.RecordReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class RowWriterTest {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	// BibTeX / LaTeX / CSV で意味を持つ文字を一通り入れる
+	private static final PaperRow TRICKY = new PaperRow(1L, "Braces {balanced} and } stray { , 100% & $x_1$ #1 ~home \\LaTeX \"quoted\"",
+			"O'Brien, \"Q\" and Zoë Ünal", 2021, "https://example.org/~user/a_b?q=1&x=%20#frag", 1_700_000_000_000L, "DONE",
+			List.of("ml", "nlp"));
+	private static final PaperRow SPARSE = new PaperRow(2L, "Plain", null, null, null, 1_700_000_000_001L, "UNREAD", List.of());
+
+	@Test
+	void bibtexRoundTripsThroughTheImporter() throws Exception {
+		String bib = export(ExportFormat.BIBTEX, TRICKY, SPARSE);
+		// 波括弧は値の中で釣り合っている（BibTeX は \{ も数える）
+		assertThat(bib).contains("\\{balanced\\}", "\\textbraceright{}", "\\textbraceleft{}", "\\$x\\_1\\$", "\\#1", "100\\%", "\\&");
+		assertThat(bib).contains("url = {https://example.org/~user/a_b?q=1&x=%20#frag}");
+
+		var in = new BibtexRecordReader(new StringReader(bib));
+		var r = in.next();
+		assertThat(r.title()).isEqualTo(TRICKY.title());
+		assertThat(r.authors()).isEqualTo(TRICKY.authors());
+		assertThat(r.year()).isEqualTo(2021);
+		assertThat(r.url()).isEqualTo(TRICKY.url());
+		assertThat(r.tags().stream().map(String::trim).toList()).containsExactly("ml", "nlp");
+
+		r = in.next();
+		assertThat(r.title()).isEqualTo("Plain");
+		assertThat(r.authors()).isNull();
+		assertThat(r.year()).isNull();
+		assertThat(r.url()).isNull();
+		assertThat(r.tags()).isEmpty();
+		assertThat(in.next()).isNull();
+	}
+
+	@Test
+	void bibtexUrlEncodesOnlyCharactersThatWouldBreakTheValue() throws Exception {
+		var row = new PaperRow(3L, "U", null, null, "https://example.org/{a}\\b", 0, "UNREAD", List.of());
+		var r = new BibtexRecordReader(new StringReader(export(ExportFormat.BIBTEX, row))).next();
+		assertThat(r.url()).isEqualTo("https://example.org/%7Ba%7D%5Cb");
+	}
+
+	@Test
+	void ndjsonRoundTripsThroughTheImporter() throws Exception {
+		var in = new NdjsonRecordReader(new BufferedReader(new StringReader(export(ExportFormat.NDJSON, TRICKY, SPARSE))), MAPPER);
+		var records = readAll(in);
+		assertThat(records).hasSize(2);
+		assertThat(records.get(0)).isEqualTo(new ImportRecord(1, null, TRICKY.title(), TRICKY.authors(), 2021, TRICKY.url(), "DONE", List.of("ml", "nlp")));
+		assertThat(records.get(1)).isEqualTo(new ImportRecord(2, null, "Plain", null, null, null, "UNREAD", List.of()));
+	}
+
+	@Test
+	void csvQuotesOnlyWhenNeededAndRoundTrips() throws Exception {
+		var multiline = new PaperRow(4L, "line one\r\nline two", "A, B", 1999, null, 5, "READING", List.of("x", "y"));
+		String csv = export(ExportFormat.CSV, TRICKY, SPARSE, multiline);
+
+		var lines = parseCsv(csv);
+		assertThat(lines.get(0)).containsExactly("id", "title", "authors", "year", "url", "createdAt", "status", "tags");
+		assertThat(lines.get(1)).containsExactly("1", TRICKY.title(), TRICKY.authors(), "2021", TRICKY.url(), "1700000000000", "DONE", "ml;nlp");
+		assertThat(lines.get(2)).containsExactly("2", "Plain", "", "", "", "1700000000001", "UNREAD", "");
+		assertThat(lines.get(3)).containsExactly("4", "line one\r\nline two", "A, B", "1999", "", "5", "READING", "x;y");
+		assertThat(lines).hasSize(4);
+		// 特殊文字の無い値は引用符で囲まない
+		assertThat(csv).contains("\r\n2,Plain,,,,1700000000001,UNREAD,\r\n");
+	}
+
+	private static String export(ExportFormat format, PaperRow... rows) throws Exception {
+		var out = new ByteArrayOutputStream();
+		var w = RowWriter.of(format, out, MAPPER);
+		for (var r : rows) w.write(r);
+		w.finish();
+		return out.toString(StandardCharsets.UTF_8);
+	}
+
+	private static List<ImportRecord> readAll(RecordReader in) throws Exception {
+		var out = new ArrayList<ImportRecord>();
+		for (ImportRecord r; (r = in.next()) != null;) out.add(r);
+		return out;
+	}
+
+	// RFC 4180 の読み戻し（"" は " 1 つ、引用符の中の , と改行は値の一部）
+	private static List<List<String>> parseCsv(String csv) {
+		var lines = new ArrayList<List<String>>();
+		var line = new ArrayList<String>();
+		var field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < csv.length(); i++) {
+			char c = csv.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < csv.length() && csv.charAt(i + 1) == '"') { field.append('"'); i++; }
+				else if (c == '"') quoted = false;
+				else field.append(c);
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				line.add(field.toString());
+				field.setLength(0);
+			} else if (c == '\r' && i + 1 < csv.length() && csv.charAt(i + 1) == '\n') {
+				line.add(field.toString());
+				field.setLength(0);
+				lines.add(line);
+				line = new ArrayList<>();
+				i++;
+			} else {
+				field.append(c);
+			}
+		}
+		return lines;
+	}
+}
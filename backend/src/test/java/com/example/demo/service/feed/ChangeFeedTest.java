@@ -0,0 +1,106 @@
+package com.example.demo.service.feed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.service.PaperService.PaperRow;
+import com.example.demo.service.feed.ChangeFeed.Change;
+import com.example.demo.service.feed.ChangeFeed.Type;
+
+class ChangeFeedTest {
+
+	private ChangeFeed feed;
+
+	@BeforeEach
+	void setUp() {
+		feed = new ChangeFeed(100, 3, 2);
+		feed.clear();
+		// 再構築中の put は流さない
+		feed.put(row(1, "A", "UNREAD"));
+		feed.markReady();
+	}
+
+	@Test
+	void classifiesChangesAgainstPreviousState() throws InterruptedException {
+		try (var sub = feed.subscribe(null)) {
+			feed.put(row(1, "A", "DONE"));
+			feed.put(row(1, "A", "DONE", "ml"));
+			feed.put(row(1, "A", "DONE", "ml"));
+			feed.put(row(2, "B", "UNREAD"));
+			feed.put(row(2, "B2", "UNREAD"));
+			feed.remove(1);
+			feed.remove(99);
+			// 同じ論文の変更はまとめられる（1: status → tags → deleted、2: created → updated）
+			assertThat(types(sub.poll(0))).containsExactly(Type.CREATED, Type.DELETED);
+
+			feed.put(row(2, "B2", "READING"));
+			feed.put(row(3, "C", "UNREAD"));
+			var batch = sub.poll(0);
+			assertThat(types(batch)).containsExactly(Type.STATUS, Type.CREATED);
+			assertThat(batch.get(0).paper().status()).isEqualTo("READING");
+			assertThat(batch.get(1).seq()).isGreaterThan(batch.get(0).seq());
+			assertThat(sub.poll(0)).isEmpty();
+		}
+	}
+
+	@Test
+	void resumesFromSequenceOrResetsWhenTooOld() throws InterruptedException {
+		long start = feed.lastSeq();
+		feed.put(row(2, "B", "UNREAD"));
+		feed.put(row(3, "C", "UNREAD"));
+		try (var sub = feed.subscribe(start + 1)) {
+			var batch = sub.poll(0);
+			assertThat(batch).extracting(Change::id).containsExactly(3L);
+		}
+		try (var sub = feed.subscribe(start - 1)) {
+			assertThat(types(sub.poll(0))).containsExactly(Type.RESET);
+		}
+		try (var sub = feed.subscribe(feed.lastSeq() + 10)) {
+			assertThat(types(sub.poll(0))).containsExactly(Type.RESET);
+		}
+	}
+
+	@Test
+	void slowSubscriberOverflowsIntoReset() throws InterruptedException {
+		try (var sub = feed.subscribe(null)) {
+			for (int id = 10; id < 15; id++) feed.put(row(id, "T" + id, "UNREAD"));
+			var reset = sub.poll(0);
+			assertThat(types(reset)).containsExactly(Type.RESET);
+			// reset の後は普段どおり届く
+			feed.put(row(20, "X", "UNREAD"));
+			var next = sub.poll(0);
+			assertThat(next).extracting(Change::id).containsExactly(20L);
+			assertThat(next.get(0).seq()).isGreaterThan(reset.get(0).seq());
+		}
+	}
+
+	@Test
+	void limitsSubscribers() {
+		var a = feed.subscribe(null);
+		var b = feed.subscribe(null);
+		assertThat(feed.subscribe(null)).isNull();
+		a.close();
+		assertThat(feed.subscribe(null)).isNotNull();
+		b.close();
+	}
+
+	@Test
+	void eventNamesStayLowercaseForClients() {
+		// frontend/src/api.ts がこの名前で addEventListener している
+		assertThat(Arrays.stream(Type.values()).map(Type::eventName).toList())
+				.containsExactly("created", "updated", "status", "tags", "deleted", "reset");
+	}
+
+	private static PaperRow row(long id, String title, String status, String... tags) {
+		return new PaperRow(id, title, null, null, null, 0, status, List.of(tags));
+	}
+
+	private static List<Type> types(List<Change> changes) {
+		return changes.stream().map(Change::type).toList();
+	}
+}
@@ -0,0 +1,74 @@
+package com.example.demo.service.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.service.importer.RecordReader.RecordException;
+
+class BibtexRecordReaderTest {
+
+	@Test
+	void readsNestedBracesQuotesAndConcatenation() throws Exception {
+		var in = new BibtexRecordReader(new StringReader("""
+				Exported by hand; ask admin@example.org if something is missing.
+				@string{acm = "ACM"}
+				@comment{ skipped {entirely} @article{fake, title = {no}} }
+				@Article{knuth84,
+				  title = {Deep {L}earning for {BibTeX}: {Nested {Braces}}},
+				  author = "Donald E. Knuth and {Leslie} Lamport",
+				  year = 1984,
+				  keywords = {typesetting; tex},
+				  doi = {10.1000/xyz}
+				}
+				Notes @ the end, and @see also.
+				@InProceedings(vaswani17, title = "Attention Is {All} " # "You Need", year = "2017",
+				  url = {https://arxiv.org/abs/1706.03762},)
+				"""));
+
+		var r = in.next();
+		assertThat(r.seq()).isEqualTo(1);
+		assertThat(r.key()).isEqualTo("knuth84");
+		assertThat(r.title()).isEqualTo("Deep Learning for BibTeX: Nested Braces");
+		assertThat(r.authors()).isEqualTo("Donald E. Knuth and Leslie Lamport");
+		assertThat(r.year()).isEqualTo(1984);
+		assertThat(r.url()).isEqualTo("https://doi.org/10.1000/xyz");
+		assertThat(r.tags().stream().map(String::trim).toList()).containsExactly("typesetting", "tex");
+
+		// 間の文章の '@' はエントリとして数えない
+		r = in.next();
+		assertThat(r.seq()).isEqualTo(2);
+		assertThat(r.key()).isEqualTo("vaswani17");
+		assertThat(r.title()).isEqualTo("Attention Is All You Need");
+		assertThat(r.year()).isEqualTo(2017);
+		assertThat(r.url()).isEqualTo("https://arxiv.org/abs/1706.03762");
+		assertThat(r.tags()).isEmpty();
+
+		assertThat(in.next()).isNull();
+	}
+
+	@Test
+	void malformedEntriesAreReportedAndSkipped() throws Exception {
+		var in = new BibtexRecordReader(new StringReader("""
+				@article{bad1, title = }
+				@article no brace here
+				@misc{bad2, year = {n.d.}}
+				@misc{ok, title = {Fine}}
+				"""));
+
+		assertThatThrownBy(in::next).isInstanceOf(RecordException.class).hasMessageContaining("missing value")
+				.satisfies(ex -> assertThat(((RecordException) ex).key()).isEqualTo("bad1"));
+		assertThatThrownBy(in::next).isInstanceOf(RecordException.class).hasMessageContaining("expected '{' after @article")
+				.satisfies(ex -> assertThat(((RecordException) ex).seq()).isEqualTo(2));
+		assertThatThrownBy(in::next).isInstanceOf(RecordException.class).hasMessageContaining("year is not a number")
+				.satisfies(ex -> assertThat(((RecordException) ex).key()).isEqualTo("bad2"));
+
+		var r = in.next();
+		assertThat(r.seq()).isEqualTo(4);
+		assertThat(r.title()).isEqualTo("Fine");
+		assertThat(in.next()).isNull();
+	}
+}
@@ -0,0 +1,52 @@
+package com.example.demo.service.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.service.importer.RecordReader.RecordException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class NdjsonRecordReaderTest {
+
+	@Test
+	void readsRecordsAndReportsBrokenLinesWithoutStopping() throws Exception {
+		var in = new NdjsonRecordReader(new BufferedReader(new StringReader("""
+				{"title":"QUIC Survey","authors":"Yan","year":2021,"url":"https://example.org","status":"DONE","tags":["net","ml"]}
+
+				{"title": "broken
+				[1, 2]
+				{"title":"Bad Year","year":"20x"}
+				{"title":"Tags As Text","year":" 2001 ","tags":"a,b"}
+				""")), new ObjectMapper());
+
+		var r = in.next();
+		assertThat(r.seq()).isEqualTo(1);
+		assertThat(r.key()).isNull();
+		assertThat(r.title()).isEqualTo("QUIC Survey");
+		assertThat(r.authors()).isEqualTo("Yan");
+		assertThat(r.year()).isEqualTo(2021);
+		assertThat(r.url()).isEqualTo("https://example.org");
+		assertThat(r.status()).isEqualTo("DONE");
+		assertThat(r.tags()).containsExactly("net", "ml");
+
+		// 空行は数えない。壊れた行はその行だけ失敗にして次の行から続ける
+		assertThatThrownBy(in::next).isInstanceOf(RecordException.class).hasMessageContaining("malformed JSON")
+				.satisfies(ex -> assertThat(((RecordException) ex).seq()).isEqualTo(2));
+		assertThatThrownBy(in::next).isInstanceOf(RecordException.class).hasMessageContaining("expected a JSON object")
+				.satisfies(ex -> assertThat(((RecordException) ex).seq()).isEqualTo(3));
+		assertThatThrownBy(in::next).isInstanceOf(RecordException.class).hasMessageContaining("year must be an integer")
+				.satisfies(ex -> assertThat(((RecordException) ex).seq()).isEqualTo(4));
+
+		r = in.next();
+		assertThat(r.seq()).isEqualTo(5);
+		assertThat(r.year()).isEqualTo(2001);
+		assertThat(r.tags()).containsExactly("a", "b");
+		assertThat(r.authors()).isNull();
+		assertThat(in.next()).isNull();
+	}
+}
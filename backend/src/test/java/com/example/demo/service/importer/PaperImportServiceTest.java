@@ -0,0 +1,87 @@
+package com.example.demo.service.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.demo.service.PaperService;
+import com.example.demo.service.PaperService.PaperRow;
+import com.example.demo.service.importer.PaperImportService.ImportError;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:import-test;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"bibmanager.import.batch-size=2"
+})
+class PaperImportServiceTest {
+
+	@Autowired
+	private PaperImportService importer;
+	@Autowired
+	private PaperService papers;
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void partiallyInvalidInputImportsTheRestAndReportsEachFailure() throws Exception {
+		var report = importer.importAll(new NdjsonRecordReader(new BufferedReader(new StringReader("""
+				{"title":"Import A","tags":["Imported"]}
+				{"authors":"no title"}
+				{"title":"Import B","year":1800}
+				{"title":
+				{"title":"Import C","status":"done","tags":["imported","x"]}
+				{"title":"Import D","status":"LOST"}
+				""")), new ObjectMapper()));
+
+		assertThat(report.records()).isEqualTo(6);
+		assertThat(report.imported()).isEqualTo(2);
+		assertThat(report.failed()).isEqualTo(4);
+		assertThat(report.errorsTruncated()).isFalse();
+		assertThat(report.errors()).extracting(ImportError::seq).containsExactly(2L, 3L, 4L, 6L);
+		var messages = report.errors().stream().map(ImportError::message).toList();
+		assertThat(messages.get(0)).isEqualTo("title is required");
+		assertThat(messages.get(1)).isEqualTo("year must be between 1900 and 2100");
+		assertThat(messages.get(2)).startsWith("malformed JSON");
+		assertThat(messages.get(3)).startsWith("status must be one of");
+
+		// 通ったものだけが入り、タグは正規化されて共有される
+		var rows = papers.findAfter(null, 10, "import", null, null);
+		assertThat(rows).extracting(PaperRow::title).containsExactly("Import C", "Import A");
+		assertThat(rows).extracting(PaperRow::status).containsExactly("DONE", "UNREAD");
+		assertThat(rows).extracting(PaperRow::tags).containsExactly(List.of("imported", "x"), List.of("imported"));
+	}
+
+	@Test
+	void rowRejectedByTheDatabaseFailsAloneNotItsWholeBatch() throws Exception {
+		// 入力チェックは通るが DB が断る行を作る
+		jdbc.execute("alter table papers add constraint chk_import_poison check (title <> 'Poison')");
+		try {
+			long before = papers.countFiltered("bisect", null, null);
+			var report = importer.importAll(new NdjsonRecordReader(new BufferedReader(new StringReader("""
+					{"title":"Bisect 1"}
+					{"title":"Bisect 2"}
+					{"title":"Poison","tags":["bisect"]}
+					{"title":"Bisect 4"}
+					{"title":"Bisect 5"}
+					""")), new ObjectMapper()));
+
+			assertThat(report.imported()).isEqualTo(4);
+			assertThat(report.failed()).isEqualTo(1);
+			assertThat(report.errors()).extracting(ImportError::seq).containsExactly(3L);
+			assertThat(report.errors().get(0).message()).startsWith("database error");
+			// バッチごとに件数キャッシュも捨てているので、一覧と件数が合う
+			assertThat(papers.countFiltered("bisect", null, null)).isEqualTo(before + 4);
+			assertThat(papers.findAfter(null, 10, "bisect", null, null)).extracting(PaperRow::title)
+					.containsExactly("Bisect 5", "Bisect 4", "Bisect 2", "Bisect 1");
+		} finally {
+			jdbc.execute("alter table papers drop constraint chk_import_poison");
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.example.demo.service.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+class IdBitmapTest {
+
+	@Test
+	void setOperationsMatchTreeSet() {
+		var r = new Random(1);
+		for (int round = 0; round < 50; round++) {
+			// 配列コンテナとビットマップコンテナの両方を通るように件数と範囲を揺らす
+			int range = r.nextBoolean() ? 200_000 : 70_000;
+			int n = r.nextInt(20_000);
+			var sa = new TreeSet<Integer>();
+			var sb = new TreeSet<Integer>();
+			var a = new IdBitmap();
+			var b = new IdBitmap();
+			for (int i = 0; i < n; i++) {
+				int x = r.nextInt(range), y = r.nextInt(range);
+				assertThat(a.add(x)).isEqualTo(sa.add(x));
+				b.add(y);
+				sb.add(y);
+			}
+			for (int i = 0; i < n / 3; i++) {
+				int x = r.nextInt(range);
+				assertThat(a.remove(x)).isEqualTo(sa.remove(x));
+			}
+
+			var and = new TreeSet<>(sa);
+			and.retainAll(sb);
+			var or = new TreeSet<>(sa);
+			or.addAll(sb);
+			var andNot = new TreeSet<>(sa);
+			andNot.removeAll(sb);
+
+			assertThat(IdBitmap.and(a, b).toArray()).containsExactly(ints(and));
+			assertThat(IdBitmap.or(a, b).toArray()).containsExactly(ints(or));
+			assertThat(IdBitmap.andNot(a, b).toArray()).containsExactly(ints(andNot));
+			assertThat(IdBitmap.andCardinality(a, b)).isEqualTo(and.size());
+			assertThat(a.copy().toArray()).containsExactly(ints(sa));
+			assertThat(a.cardinality()).isEqualTo(sa.size());
+
+			var desc = new ArrayList<Integer>();
+			a.forEachDesc(id -> desc.add(id));
+			assertThat(desc).containsExactlyElementsOf(sa.descendingSet());
+		}
+	}
+
+	@Test
+	void ofBuildsTheSameSetFromAnyInputOrder() {
+		var r = new Random(2);
+		for (int round = 0; round < 20; round++) {
+			// 疎な配列コンテナと 4096 件を超えるビットマップコンテナの両方、重複あり
+			var set = new TreeSet<Integer>();
+			int n = r.nextInt(30_000);
+			for (int i = 0; i < n; i++) set.add(r.nextBoolean() ? r.nextInt(10_000) : r.nextInt(400_000));
+			long[] asc = set.stream().mapToLong(Integer::longValue).toArray();
+			long[] desc = set.descendingSet().stream().mapToLong(Integer::longValue).toArray();
+			var shuffled = new ArrayList<Long>();
+			for (long id : asc) { shuffled.add(id); if (r.nextInt(4) == 0) shuffled.add(id); }
+			Collections.shuffle(shuffled, r);
+
+			for (long[] input : List.of(asc, desc, shuffled.stream().mapToLong(Long::longValue).toArray())) {
+				var b = IdBitmap.of(input);
+				assertThat(b.toArray()).containsExactly(ints(set));
+				assertThat(b.cardinality()).isEqualTo(set.size());
+				// まとめて作ったコンテナも 1 件ずつの変更と同じように扱える
+				if (!set.isEmpty()) {
+					assertThat(b.remove(set.first())).isTrue();
+					assertThat(b.add(set.first())).isTrue();
+				}
+				assertThat(b.toArray()).containsExactly(ints(set));
+			}
+		}
+		assertThat(IdBitmap.of().isEmpty()).isTrue();
+	}
+
+	@Test
+	void readOnlyCopyRejectsChangesButCopiesAreWritable() {
+		var b = IdBitmap.of(3, 1, 2).readOnlyCopy();
+		assertThatThrownBy(() -> b.add(4)).isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> b.remove(1)).isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(b::clear).isInstanceOf(UnsupportedOperationException.class);
+		var c = b.copy();
+		assertThat(c.add(4)).isTrue();
+		assertThat(c.toArray()).containsExactly(1, 2, 3, 4);
+		assertThat(b.toArray()).containsExactly(1, 2, 3);
+	}
+
+	private static int[] ints(TreeSet<Integer> s) {
+		return s.stream().mapToInt(Integer::intValue).toArray();
+	}
+}
@@ -0,0 +1,79 @@
+package com.example.demo.service.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.service.PaperService.PaperRow;
+
+class NearDuplicateIndexTest {
+
+	private NearDuplicateIndex idx;
+
+	@BeforeEach
+	void setUp() {
+		idx = new NearDuplicateIndex(0.7, true);
+		idx.clear();
+		idx.put(row(1, "Attention Is All You Need", "Vaswani, Ashish and Shazeer, Noam"));
+		idx.put(row(2, "Attention is all you need.", "A. Vaswani, N. Shazeer"));
+		idx.put(row(3, "ATTENTION IS ALL YOU NEED!", "Ashish Vaswani; Noam Shazeer"));
+		idx.put(row(4, "BERT: Pre-training of Deep Bidirectional Transformers", "Devlin, Jacob"));
+		idx.put(row(5, "深層学習を用いた論文推薦手法の提案", "山田 太郎"));
+		idx.put(row(6, "深層学習を用いた論文推薦手法の提案。", "山田太郎"));
+		idx.put(row(7, "Attention Is Not All You Need", "Someone Else"));
+		idx.markReady();
+	}
+
+	@Test
+	void findsVariantsThatDifferOnlyInPunctuationCaseAndAuthorFormat() {
+		assertThat(ids(idx.similarTo(1, 10))).containsExactlyInAnyOrder(2L, 3L);
+		assertThat(ids(idx.similarTo(5, 10))).containsExactly(6L);
+		assertThat(idx.similarTo(1, 10)).allSatisfy(m -> assertThat(m.similarity()).isBetween(0.7, 1.0));
+	}
+
+	@Test
+	void unrelatedPapersAreNotDuplicates() {
+		assertThat(idx.similarTo(4, 10)).isEmpty();
+		assertThat(idx.similarTo(7, 10)).isEmpty();
+		assertThat(idx.similarTo(99, 10)).isEmpty();
+	}
+
+	@Test
+	void followsUpdatesAndRemovals() {
+		idx.remove(2);
+		assertThat(ids(idx.similarTo(1, 10))).containsExactly(3L);
+		idx.put(row(3, "Something totally different", "X Y"));
+		assertThat(idx.similarTo(1, 10)).isEmpty();
+		assertThat(idx.size()).isEqualTo(6);
+	}
+
+	@Test
+	void clustersGroupDuplicatesLargestFirstWithOldestAsHead() {
+		var clusters = idx.clusters(10);
+		assertThat(clusters).hasSize(2);
+		assertThat(ids(clusters.get(0))).containsExactly(1L, 2L, 3L);
+		assertThat(clusters.get(0).get(0).similarity()).isEqualTo(1.0);
+		assertThat(ids(clusters.get(1))).containsExactly(5L, 6L);
+		assertThat(idx.clusters(1)).hasSize(1);
+	}
+
+	@Test
+	void disabledIndexIsNeverReady() {
+		var off = new NearDuplicateIndex(0.7, false);
+		off.put(row(1, "Attention Is All You Need", "Vaswani"));
+		off.markReady();
+		assertThat(off.isReady()).isFalse();
+		assertThat(off.size()).isZero();
+	}
+
+	private static PaperRow row(long id, String title, String authors) {
+		return new PaperRow(id, title, authors, null, null, 0, "UNREAD", List.of());
+	}
+
+	private static List<Long> ids(List<NearDuplicateIndex.Match> matches) {
+		return matches.stream().map(NearDuplicateIndex.Match::id).toList();
+	}
+}
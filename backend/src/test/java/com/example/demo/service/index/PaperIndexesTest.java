@@ -0,0 +1,56 @@
+package com.example.demo.service.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.service.PaperService.PaperRow;
+
+class PaperIndexesTest {
+
+	private PaperReadModel model;
+	private PaperSearchIndex search;
+	private PaperIndexes indexes;
+
+	@BeforeEach
+	void setUp() {
+		model = new PaperReadModel(true);
+		search = new PaperSearchIndex(2.0, 1.0);
+		indexes = new PaperIndexes(List.of(model, search));
+	}
+
+	@Test
+	void rebuildKeepsWritesMadeWhileScanning() {
+		indexes.put(row(9, "Before Rebuild"));
+		indexes.beginRebuild();
+		assertThat(indexes.isReady()).isFalse();
+		assertThat(model.size()).isZero();
+
+		// 走査より先に届いた更新と削除は、走査で読んだ古い行より優先する
+		indexes.put(row(2, "Deep Learning (2nd ed.)"));
+		indexes.remove(3);
+		indexes.rebuildPut(row(1, "QUIC Survey"));
+		indexes.rebuildPut(row(2, "Deep Learning"));
+		indexes.rebuildPut(row(3, "Deleted While Scanning"));
+		indexes.put(row(4, "Added During Rebuild"));
+		indexes.finishRebuild();
+
+		assertThat(indexes.isReady()).isTrue();
+		assertThat(model.rows(List.of(4L, 3L, 2L, 1L))).extracting(PaperRow::title)
+				.containsExactly("Added During Rebuild", "Deep Learning (2nd ed.)", "QUIC Survey");
+		assertThat(search.match("deleted").length).isZero();
+		assertThat(search.match("2nd").length).isEqualTo(1);
+
+		// 作り直しが終われば、また書き込みどおり
+		indexes.remove(2);
+		indexes.rebuildPut(row(2, "late scan row"));
+		assertThat(model.rows(List.of(2L))).isEmpty();
+	}
+
+	private static PaperRow row(long id, String title) {
+		return new PaperRow(id, title, null, null, null, 0, "UNREAD", List.of());
+	}
+}
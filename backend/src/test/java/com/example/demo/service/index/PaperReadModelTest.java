@@ -0,0 +1,96 @@
+package com.example.demo.service.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.service.PaperService.PaperRow;
+
+class PaperReadModelTest {
+
+	private PaperReadModel model;
+
+	@BeforeEach
+	void setUp() {
+		model = new PaperReadModel(true);
+		model.clear();
+		model.put(row(1, "QUIC Survey", "Yan et al.", "ml", "net"));
+		model.put(row(2, "Deep Learning", "LeCun, Yann"));
+		model.put(row(5000, "100% Recall_Search", "Smith"));
+		model.markReady();
+	}
+
+	@Test
+	void returnsRowsInRequestedOrderSkippingMissing() {
+		assertThat(model.rows(List.of(5000L, 3L, 1L, 99999L))).extracting(PaperRow::id).containsExactly(5000L, 1L);
+		assertThat(model.rows(List.of(1L)).get(0).tags()).containsExactly("ml", "net");
+		assertThat(model.size()).isEqualTo(3);
+
+		model.put(row(2, "Deep Learning", "LeCun, Yann", "dl"));
+		model.remove(1);
+		assertThat(model.rows(List.of(1L, 2L))).extracting(PaperRow::tags).containsExactly(List.of("dl"));
+		assertThat(model.size()).isEqualTo(2);
+	}
+
+	@Test
+	void likeMatchesLowercaseTitleOrAuthorsWithSqlWildcards() {
+		assertThat(model.like("quic").toArray()).containsExactly(1);
+		assertThat(model.like("YANN").toArray()).containsExactly(2);
+		assertThat(model.like("d%l").toArray()).containsExactly(2);
+		assertThat(model.like("100_ rec").toArray()).containsExactly(5000);
+		assertThat(model.like("recall_s").toArray()).containsExactly(5000);
+		assertThat(model.like("nothing").isEmpty()).isTrue();
+	}
+
+	@Test
+	void likeHonoursBackslashEscapeLikeTheRepository() {
+		model.put(row(7, "50_50 split", "O\\Brien"));
+		// \% \_ は文字そのもの、\\ は \ 1 文字
+		assertThat(model.like("100\\% r").toArray()).containsExactly(5000);
+		assertThat(model.like("50\\_50").toArray()).containsExactly(7);
+		assertThat(model.like("recall\\_s").toArray()).containsExactly(5000);
+		assertThat(model.like("d\\%l").isEmpty()).isTrue();
+		assertThat(model.like("o\\\\b").toArray()).containsExactly(7);
+		// 末尾の \ は \ そのもの
+		assertThat(model.like("o\\").toArray()).containsExactly(7);
+	}
+
+	@Test
+	void rebuildKeepsWritesMadeWhileScanning() {
+		assertThat(model.beginRebuild()).isTrue();
+		assertThat(model.beginRebuild()).isFalse();
+
+		// 走査より先に届いた更新と削除は、走査で読んだ古い行より優先する
+		model.put(row(2, "Deep Learning (2nd ed.)", "LeCun, Yann"));
+		model.remove(5000);
+		model.rebuildPut(row(1, "QUIC Survey", "Yan et al.", "ml", "net"));
+		model.rebuildPut(row(2, "Deep Learning", "LeCun, Yann"));
+		model.rebuildPut(row(5000, "100% Recall_Search", "Smith"));
+		model.put(row(6000, "Added During Rebuild", "Doe"));
+		// 作り直しの間も今のモデルで読める
+		assertThat(model.rows(List.of(2L)).get(0).title()).isEqualTo("Deep Learning (2nd ed.)");
+		assertThat(model.isRebuilding()).isTrue();
+
+		model.finishRebuild(false);
+		assertThat(model.isRebuilding()).isFalse();
+		assertThat(model.rows(List.of(6000L, 5000L, 2L, 1L))).extracting(PaperRow::id).containsExactly(6000L, 2L, 1L);
+		assertThat(model.rows(List.of(2L)).get(0).title()).isEqualTo("Deep Learning (2nd ed.)");
+		assertThat(model.size()).isEqualTo(3);
+	}
+
+	@Test
+	void abortedRebuildKeepsCurrentModel() {
+		assertThat(model.beginRebuild()).isTrue();
+		model.rebuildPut(row(1, "stale", null));
+		model.finishRebuild(true);
+		assertThat(model.rows(List.of(1L)).get(0).title()).isEqualTo("QUIC Survey");
+		assertThat(model.beginRebuild()).isTrue();
+	}
+
+	private static PaperRow row(long id, String title, String authors, String... tags) {
+		return new PaperRow(id, title, authors, null, null, 0, "UNREAD", List.of(tags));
+	}
+}
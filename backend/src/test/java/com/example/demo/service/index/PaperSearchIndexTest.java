@@ -0,0 +1,88 @@
+package com.example.demo.service.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PaperSearchIndexTest {
+
+	private PaperSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new PaperSearchIndex(2.0, 1.0);
+		index.put(1, "QUIC Survey", "Yan et al.");
+		index.put(2, "深層学習による論文推薦", "山田 太郎");
+		index.put(3, "A Survey of Transformers", "Lin, Wang");
+		index.markReady();
+	}
+
+	@Test
+	void matchesSubstringCaseInsensitiveNewestFirst() {
+		assertThat(index.match("survey")).containsExactly(3, 1);
+		assertThat(index.match("URVE")).containsExactly(3, 1);
+		assertThat(index.match("yan")).containsExactly(1);
+	}
+
+	@Test
+	void matchesJapaneseWithoutSpaces() {
+		assertThat(index.match("論文")).containsExactly(2);
+		assertThat(index.match("学習による")).containsExactly(2);
+		assertThat(index.match("習")).containsExactly(2);
+	}
+
+	@Test
+	void bigramsMustBeContiguous() {
+		// "su" と "ey" はどちらも含むが "suey" は部分文字列ではない
+		assertThat(index.match("suey")).isEmpty();
+	}
+
+	@Test
+	void updateAndRemoveKeepIndexInSync() {
+		index.put(1, "HTTP/3 in practice", "Yan et al.");
+		assertThat(index.match("survey")).containsExactly(3);
+		assertThat(index.match("http/3")).containsExactly(1);
+
+		index.remove(3);
+		assertThat(index.match("survey")).isEmpty();
+		assertThat(index.size()).isEqualTo(2);
+	}
+
+	@Test
+	void ranksByBm25WithTitleBoostAndPagesTopK() {
+		index.put(4, "Survey of Survey Methods", "Doe");
+		index.put(5, "Notes", "Survey, Ann");
+		index.put(6, "Surveying Large Networks", "Roe");
+		var all = IdBitmap.of(index.match("survey"));
+		// 短いタイトルに 2 回 > 短いタイトルに 1 回 > 長いタイトルに 1 回 > 著者だけ > 続きの語（surveying）
+		assertThat(index.rank("survey", all, 0, 10)).containsExactly(4L, 1L, 3L, 5L, 6L);
+		assertThat(index.rank("survey", all, 1, 2)).containsExactly(1L, 3L);
+		assertThat(index.rank("survey", IdBitmap.of(3, 5), 0, 10)).containsExactly(3L, 5L);
+
+		// 語の途中に一致しただけの候補は id 降順で後ろに付く
+		var partial = IdBitmap.of(index.match("urvey"));
+		assertThat(index.rank("urvey", partial, 0, 10)).containsExactly(6L, 5L, 4L, 3L, 1L);
+		assertThat(index.rank("quic survey", all, 0, 1)).containsExactly(1L);
+	}
+
+	@Test
+	void rankFollowsUpdatesAndJapaneseBigrams() {
+		index.put(4, "論文推薦のための学習", "佐藤");
+		assertThat(index.rank("論文推薦", IdBitmap.of(2, 4), 0, 10)).containsExactly(4L, 2L);
+		index.put(4, "Unrelated", "佐藤");
+		assertThat(index.rank("論文推薦", IdBitmap.of(2, 4), 0, 10)).containsExactly(2L, 4L);
+		index.remove(2);
+		assertThat(index.rank("論文推薦", IdBitmap.of(4), 0, 10)).containsExactly(4L);
+		assertThat(PaperSearchIndex.words("deep学習モデル x")).isEqualTo(List.of("deep", "学習", "習モ", "モデ", "デル", "x"));
+	}
+
+	@Test
+	void likeWildcardsAreNotSupported() {
+		assertThat(PaperSearchIndex.supports("a_b")).isFalse();
+		assertThat(PaperSearchIndex.supports("100%")).isFalse();
+		assertThat(PaperSearchIndex.supports("quic")).isTrue();
+	}
+}
@@ -0,0 +1,51 @@
+package com.example.demo.service.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.service.PaperService.PaperRow;
+
+class PaperVersionsTest {
+
+	private static PaperRow row(long id) {
+		return new PaperRow(id, "t", null, null, null, 0, "UNREAD", List.of());
+	}
+
+	@Test
+	void writesChangeOnlyTheTouchedPaperAndTheLibrary() {
+		var v = new PaperVersions();
+		v.clear();
+		for (long id = 1; id <= 3; id++) v.put(row(id));
+		v.markReady();
+		assertThat(v.paper(1)).isZero();
+
+		var lib = v.libraryTag("json");
+		var p1 = v.paperTag(1);
+		var p2 = v.paperTag(2);
+		v.put(row(2));
+		assertThat(v.libraryTag("json")).isNotEqualTo(lib);
+		// 同じ版でも表現が違えば別の ETag
+		assertThat(v.libraryTag("columns")).isNotEqualTo(v.libraryTag("json"));
+		assertThat(v.paperTag(2)).isNotEqualTo(p2);
+		assertThat(v.paperTag(1)).isEqualTo(p1);
+
+		// 削除も版を進める（消えた論文の古い ETag で 304 にしない）
+		v.remove(1);
+		assertThat(v.paperTag(1)).isNotEqualTo(p1);
+	}
+
+	@Test
+	void rebuildInvalidatesEveryTag() {
+		var v = new PaperVersions();
+		v.markReady();
+		var lib = v.libraryTag("json");
+		var p = v.paperTag(7);
+		v.clear();
+		v.markReady();
+		assertThat(v.libraryTag("json")).isNotEqualTo(lib);
+		assertThat(v.paperTag(7)).isNotEqualTo(p);
+	}
+}
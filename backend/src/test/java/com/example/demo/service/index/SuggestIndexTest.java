@@ -0,0 +1,80 @@
+package com.example.demo.service.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.service.PaperService.PaperRow;
+import com.example.demo.service.index.SuggestIndex.Kind;
+import com.example.demo.service.index.SuggestIndex.Suggestion;
+
+class SuggestIndexTest {
+
+	private SuggestIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new SuggestIndex();
+		index.clear();
+		index.put(row(1, "Attention Is All You Need", "Vaswani, Ashish and Shazeer, Noam", "ml", "nlp"));
+		index.put(row(2, "Attention for Speech", "Ashish Vaswani; Alex Graves", "ml", "speech"));
+		index.put(row(3, "Atari Games with Deep RL", "Mnih et al.", "rl"));
+		index.markReady();
+	}
+
+	@Test
+	void ranksCompletionsByNumberOfPapers() {
+		assertThat(index.suggest(Kind.WORD, "at", 10)).containsExactly(
+				new Suggestion("attention", 2), new Suggestion("atari", 1));
+		assertThat(index.suggest(Kind.TAG, "M", 10)).containsExactly(new Suggestion("ml", 2));
+		assertThat(index.suggest(Kind.WORD, "ＡＴＴ", 1)).containsExactly(new Suggestion("attention", 2));
+		// ありふれた英単語・1 文字は入れない
+		assertThat(index.suggest(Kind.WORD, "is", 10)).isEmpty();
+		assertThat(index.suggest(Kind.WORD, "", 10)).isEmpty();
+	}
+
+	@Test
+	void splitsAuthorsAndMatchesFromLastName() {
+		assertThat(index.suggest(Kind.AUTHOR, "vas", 10)).containsExactly(new Suggestion("Ashish Vaswani", 2));
+		assertThat(index.suggest(Kind.AUTHOR, "ashish v", 10)).containsExactly(new Suggestion("Ashish Vaswani", 2));
+		assertThat(index.suggest(Kind.AUTHOR, "gra", 10)).containsExactly(new Suggestion("Alex Graves", 1));
+		assertThat(index.suggest(Kind.AUTHOR, "mnih", 10)).containsExactly(new Suggestion("Mnih", 1));
+		assertThat(SuggestIndex.authorNames("Vaswani, Ashish")).containsExactly("Ashish Vaswani");
+		assertThat(SuggestIndex.authorNames("A. Vaswani, N. Shazeer, et al.")).containsExactly("A. Vaswani", "N. Shazeer");
+	}
+
+	@Test
+	void followsUpdatesAndDeletes() {
+		index.put(row(2, "Speech Recognition", "Alex Graves", "speech"));
+		assertThat(index.suggest(Kind.WORD, "att", 10)).containsExactly(new Suggestion("attention", 1));
+		assertThat(index.suggest(Kind.TAG, "m", 10)).containsExactly(new Suggestion("ml", 1));
+		assertThat(index.suggest(Kind.AUTHOR, "vas", 10)).containsExactly(new Suggestion("Ashish Vaswani", 1));
+
+		// 準備完了後に出来た語（まだ併合していない）も出る
+		index.put(row(4, "Attention Rollout", "Samira Abnar", "ml", "interpretability"));
+		assertThat(index.suggest(Kind.WORD, "att", 10)).containsExactly(new Suggestion("attention", 2));
+		assertThat(index.suggest(Kind.TAG, "in", 10)).containsExactly(new Suggestion("interpretability", 1));
+
+		index.remove(1);
+		index.remove(4);
+		assertThat(index.suggest(Kind.WORD, "att", 10)).isEmpty();
+		assertThat(index.suggest(Kind.TAG, "i", 10)).isEmpty();
+		assertThat(index.suggest(Kind.AUTHOR, "a", 10)).containsExactly(new Suggestion("Alex Graves", 1));
+	}
+
+	@Test
+	void kindIsParsedCaseInsensitively() {
+		assertThat(Kind.of("tag")).isEqualTo(Kind.TAG);
+		assertThat(Kind.of(" Author ")).isEqualTo(Kind.AUTHOR);
+		assertThat(Kind.of("WORD")).isEqualTo(Kind.WORD);
+		assertThat(Kind.of("title")).isNull();
+		assertThat(Kind.of(null)).isNull();
+	}
+
+	private static PaperRow row(long id, String title, String authors, String... tags) {
+		return new PaperRow(id, title, authors, null, null, 0, "UNREAD", List.of(tags));
+	}
+}
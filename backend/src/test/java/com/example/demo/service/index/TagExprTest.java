@@ -0,0 +1,35 @@
+package com.example.demo.service.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.service.index.TagExpr.And;
+import com.example.demo.service.index.TagExpr.Not;
+import com.example.demo.service.index.TagExpr.Or;
+import com.example.demo.service.index.TagExpr.Tag;
+
+class TagExprTest {
+
+	@Test
+	void parsesPrecedenceAndShorthand() {
+		assertThat(TagExpr.parse("ML and Survey AND NOT read-later"))
+				.isEqualTo(new And(List.of(new Tag("ml"), new Tag("survey"), new Not(new Tag("read-later")))));
+		// 並べただけは AND、OR は AND より弱い
+		assertThat(TagExpr.parse("a b or -c"))
+				.isEqualTo(new Or(List.of(new And(List.of(new Tag("a"), new Tag("b"))), new Not(new Tag("c")))));
+		assertThat(TagExpr.parse("(a OR b) \"to read\""))
+				.isEqualTo(new And(List.of(new Or(List.of(new Tag("a"), new Tag("b"))), new Tag("to read"))));
+		assertThat(TagExpr.parse("\"or\"")).isEqualTo(new Tag("or"));
+	}
+
+	@Test
+	void rejectsMalformedExpressions() {
+		for (var bad : List.of("", "a AND", "(a OR b", "a )", "OR a", "NOT", "\"open", "\"  \"")) {
+			assertThatThrownBy(() -> TagExpr.parse(bad)).as(bad).isInstanceOf(IllegalArgumentException.class);
+		}
+	}
+}
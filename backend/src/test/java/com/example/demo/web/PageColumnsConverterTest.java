@@ -0,0 +1,91 @@
+package com.example.demo.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.service.PaperService.PaperRow;
+import com.example.demo.web.PaperController.PageRes;
+import com.example.demo.web.PaperController.PaperRes;
+import com.example.demo.web.PaperController.PaperResList;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class PageColumnsConverterTest {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private static final List<PaperRow> ROWS = List.of(
+			new PaperRow(12L, "Sparse Row", null, null, null, 1_700_000_000_000L, "UNREAD", List.of()),
+			new PaperRow(11L, "Full Row", "Yan et al.", 2021, "https://example.org/11", 1_700_000_000_001L, "DONE", List.of("net", "ml")),
+			new PaperRow(10L, "Shared Tags", "Doe", 1999, null, 1_700_000_000_002L, "READING", List.of("ml")));
+
+	@Test
+	void roundTripsNullFieldsEmptyTagsAndUnknownTotal() throws Exception {
+		var page = new PageRes<PaperRes>(new PaperResList(ROWS), -1, 0, 3, true, null);
+		var t = columns(page);
+
+		assertThat(t.get("total").asLong()).isEqualTo(-1);
+		assertThat(t.get("hasNext").asBoolean()).isTrue();
+		assertThat(t.get("nextCursor").isNull()).isTrue();
+		// タグ辞書は出てきた順
+		assertThat(strings(t.get("tagNames"))).containsExactly("net", "ml");
+
+		// 列から行を組み立て直すと元の行に戻る
+		assertThat(rows(t)).containsExactlyElementsOf(ROWS);
+	}
+
+	@Test
+	void plainPaperResContentIsWrittenTheSameWay() throws Exception {
+		var content = ROWS.stream().map(r -> new PaperRes(r.id(), r.title(), r.authors(), r.year(), r.url(), r.createdAt(), r.status(), r.tags())).toList();
+		var lazy = columns(new PageRes<PaperRes>(new PaperResList(ROWS), 3, 0, 3, false, "abc"));
+		var plain = columns(new PageRes<>(content, 3, 0, 3, false, "abc"));
+		assertThat(plain).isEqualTo(lazy);
+		assertThat(plain.get("nextCursor").asText()).isEqualTo("abc");
+	}
+
+	@Test
+	void emptyPageHasEmptyColumns() throws Exception {
+		var t = columns(new PageRes<PaperRes>(new PaperResList(List.of()), 0, 5, 20, false, null));
+		assertThat(t.get("tagNames").size()).isZero();
+		assertThat(t.get("columns").get("id").size()).isZero();
+		assertThat(t.get("columns").get("tags").size()).isZero();
+		assertThat(t.get("page").asInt()).isEqualTo(5);
+	}
+
+	private JsonNode columns(PageRes<?> page) throws Exception {
+		var out = new ByteArrayOutputStream();
+		try (var gen = mapper.getFactory().createGenerator(out)) {
+			PageColumnsConverter.write(page, gen);
+		}
+		return mapper.readTree(out.toByteArray());
+	}
+
+	private static List<PaperRow> rows(JsonNode t) {
+		var c = t.get("columns");
+		var names = strings(t.get("tagNames"));
+		var out = new ArrayList<PaperRow>();
+		for (int i = 0; i < c.get("id").size(); i++) {
+			var tags = new ArrayList<String>();
+			c.get("tags").get(i).forEach(ref -> tags.add(names.get(ref.asInt())));
+			out.add(new PaperRow(c.get("id").get(i).asLong(), text(c.get("title").get(i)), text(c.get("authors").get(i)),
+					c.get("year").get(i).isNull() ? null : c.get("year").get(i).asInt(), text(c.get("url").get(i)),
+					c.get("createdAt").get(i).asLong(), text(c.get("status").get(i)), tags));
+		}
+		return out;
+	}
+
+	private static String text(JsonNode n) {
+		return n.isNull() ? null : n.asText();
+	}
+
+	private static List<String> strings(JsonNode array) {
+		var out = new ArrayList<String>();
+		array.forEach(n -> out.add(n.asText()));
+		return out;
+	}
+}
@@ -0,0 +1,33 @@
+package com.example.demo.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+class PaperControllerTest {
+
+	private static final String COLUMNS = PageColumnsConverter.MEDIA_TYPE_VALUE;
+
+	@Test
+	void listRepresentationFollowsTheNegotiatedMediaType() {
+		assertThat(representation(null)).isEqualTo("json");
+		assertThat(representation("*/*")).isEqualTo("json");
+		assertThat(representation("application/json")).isEqualTo("json");
+		assertThat(representation(COLUMNS)).isEqualTo("columns");
+		assertThat(representation(COLUMNS + ", application/json")).isEqualTo("columns");
+		// q 値が高いほうを選ぶ。q=0 は受け入れない
+		assertThat(representation("application/json;q=0.5, " + COLUMNS)).isEqualTo("columns");
+		assertThat(representation("application/json, " + COLUMNS + ";q=0.5")).isEqualTo("json");
+		assertThat(representation("application/json;q=0, " + COLUMNS)).isEqualTo("columns");
+		assertThat(representation("not a media type")).isEqualTo("json");
+	}
+
+	private static String representation(String accept) {
+		var request = new MockHttpServletRequest("GET", "/api/papers");
+		if (accept != null) request.addHeader(HttpHeaders.ACCEPT, accept);
+		return PaperController.listRepresentation(new ServletWebRequest(request));
+	}
+}
@@ -0,0 +1,25 @@
+package com.example.demo.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class PaperExportControllerTest {
+
+	@Test
+	void gzipFollowsAcceptEncodingQualityValues() {
+		assertThat(PaperExportController.acceptsGzip(null)).isFalse();
+		assertThat(PaperExportController.acceptsGzip("")).isFalse();
+		assertThat(PaperExportController.acceptsGzip("gzip, deflate, br")).isTrue();
+		assertThat(PaperExportController.acceptsGzip("GZIP")).isTrue();
+		assertThat(PaperExportController.acceptsGzip("br;q=1.0, gzip;q=0.5")).isTrue();
+		assertThat(PaperExportController.acceptsGzip("gzip;q=0")).isFalse();
+		assertThat(PaperExportController.acceptsGzip("gzip; q=0.0, identity")).isFalse();
+		// gzip の指定が無ければ * に従う。gzip を明示して断っていれば * は見ない
+		assertThat(PaperExportController.acceptsGzip("*")).isTrue();
+		assertThat(PaperExportController.acceptsGzip("*;q=0")).isFalse();
+		assertThat(PaperExportController.acceptsGzip("gzip;q=0, *")).isFalse();
+		// 名前の一部に gzip を含むだけのものは gzip ではない
+		assertThat(PaperExportController.acceptsGzip("x-gzip-not")).isFalse();
+	}
+}
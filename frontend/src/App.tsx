@@ -1,5 +1,5 @@
 // src/App.tsx
-import React, { createContext, useContext, useEffect, useMemo, useRef, useState } from "react";
+import React, { createContext, useContext, useEffect, useId, useMemo, useRef, useState } from "react";
 import {
   QueryClient,
   QueryClientProvider,
@@ -14,10 +14,15 @@ import {
   deletePaper,
   listPapers,
   removeTag,
+  subscribeChanges,
+  suggest,
   updateStatus,
   updatePaper,
+  type ChangeEvent,
+  type PageRes,
   type PaperRes,
   type Status,
+  type SuggestKind,
 } from "./api";
 import "./styles.css";
 
@@ -30,6 +35,18 @@ function useDebounced<T>(value: T, delay = 350) {
   }, [value, delay]);
   return v;
 }
+// 入力補完。サーバー側はメモリだけで答えるので待ちは短め。同じ接頭辞は 30 秒キャッシュ
+function useSuggest(prefix: string, kind: SuggestKind[]) {
+  const p = useDebounced(prefix, 80);
+  const { data } = useQuery({
+    queryKey: ["suggest", p, kind],
+    queryFn: () => suggest(p, kind),
+    enabled: p.length > 0,
+    staleTime: 30_000,
+    placeholderData: keepPreviousData,
+  });
+  return p ? data : undefined;
+}
 const fmt = (ts?: number) => (ts ? new Date(ts).toLocaleString() : "-");
 
 /* ========== トースト（シンプル） ========== */
@@ -55,6 +72,44 @@ function ToastHost({ children }: { children: React.ReactNode }) {
 }
 const useToast = () => useContext(ToastCtx);
 
+/* ========== 変更フィード ========== */
+// 自分の操作も他のタブ・他の人の操作も、フィードで届いた変更をキャッシュ済みのページに当てて、一覧を読み直さない。
+// 読み直すのは、作成（どのページに入るか分からない）、reset、その項目で絞り込んでいるページだけ
+type ListKey = { q?: string; status?: string; tags?: string[] };
+function useChangeFeed() {
+  const client = useQueryClient();
+  useEffect(() => subscribeChanges((e: ChangeEvent) => {
+    if (e.type === "reset" || e.type === "created") {
+      client.invalidateQueries({ queryKey: ["papers"] });
+      return;
+    }
+    for (const [key, page] of client.getQueriesData<PageRes<PaperRes>>({ queryKey: ["papers"] })) {
+      if (!page) continue;
+      const f = (key[1] ?? {}) as ListKey;
+      const filtered =
+        (e.type === "status" && !!f.status) ||
+        (e.type === "tags" && !!f.tags?.length) ||
+        (e.type === "updated" && (!!f.q || !!f.status || !!f.tags?.length));
+      if (filtered) {
+        client.invalidateQueries({ queryKey: key, exact: true });
+        continue;
+      }
+      if (!page.content.some((p) => p.id === e.id)) continue;
+      client.setQueryData<PageRes<PaperRes>>(key, e.type === "deleted"
+        ? { ...page, content: page.content.filter((p) => p.id !== e.id), total: page.total > 0 ? page.total - 1 : page.total }
+        : { ...page, content: page.content.map((p) => (p.id === e.id ? patch(p, e) : p)) });
+    }
+  }), [client]);
+}
+function patch(p: PaperRes, e: ChangeEvent): PaperRes {
+  switch (e.type) {
+    case "updated": return e.paper;
+    case "status": return { ...p, status: e.status };
+    case "tags": return { ...p, tags: e.tags };
+    default: return p;
+  }
+}
+
 /* ========== アプリ本体 ========== */
 const qc = new QueryClient();
 export default function App() {
@@ -67,7 +122,10 @@ export default function App() {
   );
 }
 
+type Sort = "id" | "relevance";
+
 function Shell() {
+  useChangeFeed();
   // URL 初期値
   const init = new URLSearchParams(location.search);
   const [page, setPage] = useState<number>(parseInt(init.get("page") || "0", 10) || 0);
@@ -75,6 +133,7 @@ function Shell() {
   const [qInput, setQInput] = useState(init.get("q") || "");
   const [status, setStatus] = useState(init.get("status") || "");
   const [tagsText, setTagsText] = useState(init.getAll("tags").join(", "));
+  const [sort, setSort] = useState<Sort>(init.get("sort") === "relevance" ? "relevance" : "id");
 
   const q = useDebounced(qInput, 350);
   const tags = useMemo(
@@ -90,8 +149,9 @@ function Shell() {
     tags.forEach((t) => sp.append("tags", t));
     if (page) sp.set("page", String(page));
     if (size !== 10) sp.set("size", String(size));
+    if (sort !== "id") sp.set("sort", sort);
     history.replaceState(null, "", sp.toString() ? `?${sp.toString()}` : location.pathname);
-  }, [q, status, tags, page, size]);
+  }, [q, status, tags, page, size, sort]);
 
   // ダークモード
   const [dark, setDark] = useState(() => document.documentElement.classList.contains("theme-dark"));
@@ -138,10 +198,12 @@ function Shell() {
         setTagsText={(v) => { setTagsText(v); setPage(0); }}
         size={size}
         setSize={(v) => { setSize(v); setPage(0); }}
+        sort={sort}
+        setSort={(v) => { setSort(v); setPage(0); }}
       />
 
       <PapersTable
-        page={page} size={size} q={q} status={status} tags={tags}
+        page={page} size={size} q={q} status={status} tags={tags} sort={sort}
         onPrev={() => setPage((p) => Math.max(0, p - 1))}
         onNext={() => setPage((p) => p + 1)}
       />
@@ -155,17 +217,31 @@ function Toolbar(props: {
   status: string; setStatus: (v: string) => void;
   tagsText: string; setTagsText: (v: string) => void;
   size: number; setSize: (v: number) => void;
+  sort: Sort; setSort: (v: Sort) => void;
 }) {
   const [open, setOpen] = useState(false);
-  const { searchRef, qInput, setQInput, status, setStatus, tagsText, setTagsText, size, setSize } = props;
+  const { searchRef, qInput, setQInput, status, setStatus, tagsText, setTagsText, size, setSize, sort, setSort } = props;
+  const qListId = useId();
+  const tagsListId = useId();
+  // 検索欄は最後の単語を補完（著者名は欄ごと置き換え）、タグ欄は最後のカンマ以降を補完
+  const qLast = qInput.match(/(\S*)$/)?.[1] ?? "";
+  const qSuggest = useSuggest(qLast, ["word", "author"]);
+  const qOptions = [
+    ...(qSuggest?.words ?? []).map((s) => qInput.slice(0, qInput.length - qLast.length) + s.text),
+    ...(qSuggest?.authors ?? []).map((s) => s.text),
+  ];
+  const tagsHead = tagsText.slice(0, tagsText.lastIndexOf(",") + 1);
+  const tagSuggest = useSuggest(tagsText.slice(tagsHead.length).trim(), ["tag"]);
+  const tagOptions = (tagSuggest?.tags ?? []).map((s) => (tagsHead ? tagsHead + " " : "") + s.text);
 
   return (
     <div className="card toolbar">
       <div className="grid">
         <div className="icon-input">
           <span className="icon">🔎</span>
-          <input ref={searchRef} value={qInput} onChange={(e) => setQInput(e.target.value)}
+          <input ref={searchRef} value={qInput} onChange={(e) => setQInput(e.target.value)} list={qListId}
                  placeholder="キーワード (title/authors)  —  ⌘/Ctrl + K でフォーカス" />
+          <datalist id={qListId}>{qOptions.map((o) => <option key={o} value={o} />)}</datalist>
         </div>
         <div className="icon-input">
           <span className="icon">⛳</span>
@@ -178,9 +254,14 @@ function Toolbar(props: {
         </div>
         <div className="icon-input">
           <span className="icon">🏷️</span>
-          <input value={tagsText} onChange={(e) => setTagsText(e.target.value)}
+          <input value={tagsText} onChange={(e) => setTagsText(e.target.value)} list={tagsListId}
                  placeholder="tags (comma separated)" />
+          <datalist id={tagsListId}>{tagOptions.map((o) => <option key={o} value={o} />)}</datalist>
         </div>
+        <select value={sort} onChange={(e) => setSort(e.target.value as Sort)} title="関連度順はキーワードがあるときだけ">
+          <option value="id">新しい順</option>
+          <option value="relevance">関連度順</option>
+        </select>
         <select value={size} onChange={(e) => setSize(Number(e.target.value))}>
           {[10, 20, 50].map((n) => <option key={n} value={n}>{n}/page</option>)}
         </select>
@@ -193,7 +274,6 @@ function Toolbar(props: {
 
 function CreateModal({ onClose }: { onClose: () => void }) {
   const { push } = useToast();
-  const qc = useQueryClient();
   const [title, setTitle] = useState("");
   const [authors, setAuthors] = useState("");
   const [year, setYear] = useState("");
@@ -208,9 +288,9 @@ function CreateModal({ onClose }: { onClose: () => void }) {
         year: year ? Number(year) : undefined,
         url: url || undefined,
       }),
-    onSuccess: () => {
-      qc.invalidateQueries({ queryKey: ["papers"] });
-      push("作成しました");
+    onSuccess: (created) => {
+      const dup = created.possibleDuplicates?.[0];
+      push(dup ? `作成しました（重複かも: #${dup.id} ${dup.title}）` : "作成しました");
       onClose();
     },
     onError: (e: any) => setErr(e?.response?.data?.message || e?.message || "failed"),
@@ -248,7 +328,6 @@ function CreateModal({ onClose }: { onClose: () => void }) {
 }
 
 function EditModal({ paper, onClose }: { paper: PaperRes; onClose: () => void }) {
-  const qc = useQueryClient();
   const { push } = useToast();
 
   // 既存値を初期表示。空文字にすると「未指定」で送らない運用にしやすい。
@@ -278,7 +357,6 @@ function EditModal({ paper, onClose }: { paper: PaperRes; onClose: () => void })
   const mut = useMutation({
     mutationFn: (payload: any) => updatePaper(paper.id, payload),
     onSuccess: () => {
-      qc.invalidateQueries({ queryKey: ["papers"] });
       push("更新しました");
       onClose();
     },
@@ -320,37 +398,37 @@ function EditModal({ paper, onClose }: { paper: PaperRes; onClose: () => void })
 }
 
 function PapersTable(props: {
-  page: number; size: number; q: string; status: string; tags: string[];
+  page: number; size: number; q: string; status: string; tags: string[]; sort: Sort;
   onPrev: () => void; onNext: () => void;
 }) {
   const { push } = useToast();
-  const qc = useQueryClient();
-  const { page, size, q, status, tags, onPrev, onNext } = props;
-  const queryKey = ["papers", { page, size, q, status, tags }];
+  const { page, size, q, status, tags, sort, onPrev, onNext } = props;
+  const queryKey = ["papers", { page, size, q, status, tags, sort }];
   const [editing, setEditing] = useState<PaperRes | null>(null);
   const { data, isLoading, isError, refetch } = useQuery({
     queryKey,
-    queryFn: () => listPapers({ page, size, q: q || undefined, status: status || undefined, tags: tags.length ? tags : undefined }),
+    queryFn: () => listPapers({ page, size, q: q || undefined, status: status || undefined, tags: tags.length ? tags : undefined,
+      sort: sort !== "id" && q ? sort : undefined }),
     placeholderData: keepPreviousData,
   });
 
   const statusMut = useMutation({
     mutationFn: ({ id, st }: { id: number; st: Status }) => updateStatus(id, st),
-    onSuccess: () => { qc.invalidateQueries({ queryKey: ["papers"] }); push("ステータス更新"); },
+    onSuccess: () => push("ステータス更新"),
   });
 
   const tagAdd = useMutation({
     mutationFn: ({ id, tag }: { id: number; tag: string }) => addTag(id, tag),
-    onSuccess: () => { qc.invalidateQueries({ queryKey: ["papers"] }); push("タグ追加"); },
+    onSuccess: () => push("タグ追加"),
   });
   const tagRemove = useMutation({
     mutationFn: ({ id, tag }: { id: number; tag: string }) => removeTag(id, tag),
-    onSuccess: () => { qc.invalidateQueries({ queryKey: ["papers"] }); push("タグ削除"); },
+    onSuccess: () => push("タグ削除"),
   });
 
   const delMut = useMutation({
     mutationFn: (id: number) => deletePaper(id),
-    onSuccess: () => { qc.invalidateQueries({ queryKey: ["papers"] }); push("削除しました"); },
+    onSuccess: () => push("削除しました"),
   });
 
   return (
@@ -443,6 +521,8 @@ function TagsCell({ p, onAdd, onRemove }: {
   p: PaperRes; onAdd: (t: string) => void; onRemove: (t: string) => void;
 }) {
   const [t, setT] = useState("");
+  const listId = useId();
+  const tagSuggest = useSuggest(t.trim(), ["tag"]);
   return (
     <div className="tags-cell">
       <div className="tags">
@@ -459,7 +539,11 @@ function TagsCell({ p, onAdd, onRemove }: {
           value={t}
           onChange={(e) => setT(e.target.value)}
           onKeyDown={(e) => { if (e.key === "Enter" && t.trim()) { onAdd(t.trim()); setT(""); } }}
+          list={listId}
         />
+        <datalist id={listId}>
+          {(tagSuggest?.tags ?? []).filter((s) => !p.tags?.includes(s.text)).map((s) => <option key={s.text} value={s.text} />)}
+        </datalist>
         <button className="btn" onClick={() => { if (t.trim()) { onAdd(t.trim()); setT(""); } }}>Add</button>
       </div>
     </div>
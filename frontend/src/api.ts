@@ -16,10 +16,19 @@ export type PaperRes = {
 
 export type PageRes<T> = {
   content: T[];
-  total: number;
+  total: number; // withTotal=false のときは -1
   page: number;
   size: number;
   hasNext: boolean;
+  nextCursor?: string | null; // cursor モードのときだけ
+};
+
+export type Facets = {
+  total: number;
+  status: Record<Status, number>;
+  tags: { tag: string; count: number }[]; // 件数の多い順
+  years: Record<string, number>;
+  unknownYear: number;
 };
 
 // Vite の proxy を使う前提（vite.config.ts の server.proxy を参照）
@@ -38,14 +47,67 @@ export const api = axios.create({
 
 export async function listPapers(params: {
   page?: number; size?: number; q?: string; status?: string; tags?: string[];
+  tagExpr?: string; // 例: "ml AND survey AND NOT read-later"
+  cursor?: string; // "" で先頭から keyset ページング
+  withTotal?: boolean;
+  sort?: "id" | "relevance"; // relevance は q があるときだけ効く（上位 10,000 件まで）
 }): Promise<PageRes<PaperRes>> {
-  const res = await api.get("/api/papers", { params });
+  // 一覧は列形式で受け取る（項目名を行ごとに繰り返さず、タグはページ内の辞書の添字）。JSON が返っても読める
+  const res = await api.get("/api/papers", { params, headers: { Accept: `${COLUMNS}, application/json;q=0.9` } });
+  return String(res.headers["content-type"] ?? "").startsWith(COLUMNS) ? fromColumns(res.data) : res.data;
+}
+
+const COLUMNS = "application/vnd.bibmanager.columns+json";
+
+type PageColumns = Omit<PageRes<PaperRes>, "content"> & {
+  tagNames: string[];
+  columns: {
+    id: number[]; title: string[]; authors: (string | null)[]; year: (number | null)[]; url: (string | null)[];
+    createdAt: number[]; status: Status[]; tags: number[][];
+  };
+};
+
+function fromColumns({ tagNames, columns: c, ...page }: PageColumns): PageRes<PaperRes> {
+  const content = c.id.map((id, i): PaperRes => ({
+    id, title: c.title[i], authors: c.authors[i] ?? undefined, year: c.year[i] ?? undefined, url: c.url[i] ?? undefined,
+    createdAt: c.createdAt[i], status: c.status[i], tags: c.tags[i].map((t) => tagNames[t]),
+  }));
+  return { ...page, content };
+}
+
+export async function getFacets(params: {
+  q?: string; status?: string; tags?: string[]; tagExpr?: string; topTags?: number;
+}): Promise<Facets> {
+  const res = await api.get("/api/papers/facets", { params });
   return res.data;
 }
 
+export type SuggestKind = "tag" | "word" | "author";
+export type Suggestion = { text: string; count: number }; // count はその語を含む論文数
+
+// 頼んだ種類だけが入る
+export type SuggestRes = { tags?: Suggestion[]; words?: Suggestion[]; authors?: Suggestion[] };
+
+// 入力補完。DB を見ずにメモリ上の索引だけで返るので、キー入力ごとに呼んでよい
+export async function suggest(prefix: string, kind?: SuggestKind[], limit?: number): Promise<SuggestRes> {
+  const res = await api.get("/api/papers/suggest", { params: { prefix, kind, limit } });
+  return res.data;
+}
+
+export type DuplicateRes = {
+  id: number;
+  title: string;
+  authors?: string;
+  year?: number;
+  similarity: number; // 0〜1
+};
+
+// 作成した論文 + タイトル・著者がほぼ同じ既存論文
+export type PaperCreatedRes = PaperRes & { possibleDuplicates: DuplicateRes[] };
+
 export async function createPaper(req: {
   title: string; authors?: string; year?: number; url?: string;
-}): Promise<PaperRes> {
+}): Promise<PaperCreatedRes> {
   const res = await api.post("/api/papers", req);
   return res.data;
 }
@@ -74,4 +136,22 @@ export async function updatePaper(
 ): Promise<PaperRes> {
   const res = await api.patch(`/api/papers/${id}`, req);
   return res.data;
-}
\ No newline at end of file
+}
+
+// 変更フィード（GET /api/papers/changes の SSE）の 1 件。種類ごとに要る項目だけが入る
+export type ChangeEvent =
+  | { seq: number; type: "created" | "updated"; id: number; paper: PaperRes }
+  | { seq: number; type: "status"; id: number; status: Status }
+  | { seq: number; type: "tags"; id: number; tags: string[] }
+  | { seq: number; type: "deleted"; id: number }
+  | { seq: number; type: "reset" }; // 取りこぼしがあったので一覧を読み直す
+
+// EventSource は切れると自動で繋ぎ直し、Last-Event-ID で続きから受け取る。戻り値で購読をやめる
+export function subscribeChanges(onChange: (e: ChangeEvent) => void): () => void {
+  const es = new EventSource("/api/papers/changes");
+  const handler = (ev: MessageEvent) => onChange(JSON.parse(ev.data));
+  for (const t of ["created", "updated", "status", "tags", "deleted", "reset"]) {
+    es.addEventListener(t, handler as EventListener);
+  }
+  return () => es.close();
+}